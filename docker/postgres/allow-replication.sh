@@ -0,0 +1,4 @@
+#!/bin/bash
+# Разрешает потоковую репликацию для сервиса postgres-replica. Выполняется только при инициализации пустого тома.
+set -e
+echo "host replication all all scram-sha-256" >> "$PGDATA/pg_hba.conf"
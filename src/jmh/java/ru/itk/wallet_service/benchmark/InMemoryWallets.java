@@ -0,0 +1,94 @@
+package ru.itk.wallet_service.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.db.model.WalletOperation;
+import ru.itk.wallet_service.db.repository.IdempotencyKeyRepository;
+import ru.itk.wallet_service.db.repository.WalletOperationRepository;
+import ru.itk.wallet_service.db.repository.WalletRepository;
+import ru.itk.wallet_service.db.repository.WalletShardRepository;
+import ru.itk.wallet_service.db.routing.RecentWrites;
+import ru.itk.wallet_service.service.cache.WalletBalanceCache;
+import ru.itk.wallet_service.service.hot.HotWalletDetector;
+import ru.itk.wallet_service.service.impl.WalletServiceImpl;
+import ru.itk.wallet_service.service.metrics.WalletMetrics;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * {@link WalletServiceImpl} над хранилищем в памяти: измеряется только код сервиса,
+ * без Hibernate, JDBC и транзакций.
+ */
+final class InMemoryWallets {
+
+  private InMemoryWallets() {
+  }
+
+  static WalletServiceImpl walletService(Map<UUID, Wallet> wallets) {
+    WalletProperties properties = new WalletProperties();
+    return new WalletServiceImpl(
+      walletRepository(wallets),
+      unsupported(WalletShardRepository.class),
+      new WalletOperationRepository(null) {
+        @Override
+        public void saveAll(List<WalletOperation> operations) {
+          // журнал в памяти не хранится
+        }
+      },
+      new IdempotencyKeyRepository(null),
+      new WalletBalanceCache(properties, new SimpleMeterRegistry()),
+      new RecentWrites(properties),
+      new WalletMetrics(new SimpleMeterRegistry()),
+      new HotWalletDetector(properties),
+      properties);
+  }
+
+  private static WalletRepository walletRepository(Map<UUID, Wallet> wallets) {
+    return (WalletRepository) Proxy.newProxyInstance(WalletRepository.class.getClassLoader(),
+      new Class<?>[]{WalletRepository.class}, (proxy, method, args) -> switch (method.getName()) {
+        case "findById", "findByIdForUpdate" -> Optional.ofNullable(wallets.get((UUID) args[0]));
+        case "findBalanceById" -> Optional.ofNullable(wallets.get((UUID) args[0])).map(Wallet::getAmountMinor);
+        case "save", "saveAndFlush" -> {
+          Wallet wallet = (Wallet) args[0];
+          wallets.put(wallet.getWalletId(), wallet);
+          yield wallet;
+        }
+        case "saveAll" -> {
+          List<Wallet> saved = new ArrayList<>();
+          for (Object item : (Iterable<?>) args[0]) {
+            Wallet wallet = (Wallet) item;
+            wallets.put(wallet.getWalletId(), wallet);
+            saved.add(wallet);
+          }
+          yield saved;
+        }
+        case "updateBalance" -> {
+          Wallet wallet = wallets.get((UUID) args[0]);
+          if (wallet == null || wallet.getVersion() != (long) args[1]) {
+            yield 0;
+          }
+          wallet.setAmountMinor((long) args[2]);
+          yield 1;
+        }
+        // изменения уже в хранилище, сбрасывать нечего
+        case "flush" -> null;
+        case "hashCode" -> System.identityHashCode(proxy);
+        case "equals" -> proxy == args[0];
+        case "toString" -> "InMemoryWalletRepository";
+        default -> throw new UnsupportedOperationException(method.getName());
+      });
+  }
+
+  private static <T> T unsupported(Class<T> type) {
+    return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+      (proxy, method, args) -> {
+        throw new UnsupportedOperationException(method.getName());
+      }));
+  }
+}
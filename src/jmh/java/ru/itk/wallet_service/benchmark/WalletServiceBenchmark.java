@@ -0,0 +1,58 @@
+package ru.itk.wallet_service.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.service.impl.WalletServiceImpl;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Стоимость {@link WalletServiceImpl#updateWallet} и {@link WalletServiceImpl#getBalance} без базы данных.
+ */
+@State(Scope.Thread)
+public class WalletServiceBenchmark {
+  private WalletServiceImpl service;
+  private UUID walletId;
+  private SaveWalletDto deposit;
+  private SaveWalletDto withdraw;
+
+  @Setup
+  public void setUp() {
+    walletId = UUID.randomUUID();
+    Wallet wallet = new Wallet();
+    wallet.setWalletId(walletId);
+    wallet.setAmount(BigDecimal.valueOf(1_000_000));
+    Map<UUID, Wallet> wallets = new HashMap<>();
+    wallets.put(walletId, wallet);
+    service = InMemoryWallets.walletService(wallets);
+    deposit = operation(walletId, OperationType.DEPOSIT);
+    withdraw = operation(walletId, OperationType.WITHDRAW);
+  }
+
+  @Benchmark
+  public Wallet depositThenWithdraw() {
+    service.updateWallet(deposit);
+    return service.updateWallet(withdraw);
+  }
+
+  @Benchmark
+  public Wallet getBalance() {
+    return service.getBalance(walletId);
+  }
+
+  private static SaveWalletDto operation(UUID walletId, OperationType type) {
+    SaveWalletDto dto = new SaveWalletDto();
+    dto.setWalletId(walletId);
+    dto.setOperationType(type);
+    dto.setAmount(new BigDecimal("12.34"));
+    return dto;
+  }
+}
@@ -0,0 +1,148 @@
+package ru.itk.wallet_service.benchmark;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.enums.EntityType;
+import ru.itk.wallet_service.handler.WebExceptionHandler;
+import ru.itk.wallet_service.handler.exception.EntityNotFoundException;
+import ru.itk.wallet_service.handler.exception.InsufficientFundsException;
+import ru.itk.wallet_service.handler.exception.WalletLockTimeoutException;
+import ru.itk.wallet_service.mapper.WalletMapper;
+import ru.itk.wallet_service.mapper.WalletMapperImpl;
+import ru.itk.wallet_service.service.metrics.WalletMetrics;
+import ru.itk.wallet_service.web.converter.WalletJsonHttpMessageConverter;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+import ru.itk.wallet_service.web.dto.WalletDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Стоимость слоя web на один запрос: маппинг сущности, (де)сериализация JSON
+ * и формирование ответа об ошибке. Отказы (handleNotFound, handleInsufficientFunds, handleLockTimeout)
+ * сравниваются по gc.alloc.rate.norm с успешным ответом mapAndWriteWalletDto, конвертер Jackson
+ * (*Jackson) — с потоковым кодеком {@link WalletJsonHttpMessageConverter} (*Codec).
+ */
+@State(Scope.Thread)
+public class WalletWebBenchmark {
+  private final WalletMapper mapper = new WalletMapperImpl();
+  private final WebExceptionHandler exceptionHandler = new WebExceptionHandler(new WalletMetrics(new SimpleMeterRegistry()));
+
+  private ObjectReader saveWalletReader;
+  private ObjectWriter walletWriter;
+  private MappingJackson2HttpMessageConverter jacksonConverter;
+  private WalletJsonHttpMessageConverter codecConverter;
+  private byte[] saveWalletBytes;
+  private Wallet wallet;
+  private WalletDto walletDto;
+  private String saveWalletJson;
+  private UUID walletId;
+  private ServletWebRequest webRequest;
+
+  @Setup
+  public void setUp() throws JsonProcessingException {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    saveWalletReader = objectMapper.readerFor(SaveWalletDto.class);
+    walletWriter = objectMapper.writerFor(WalletDto.class);
+    jacksonConverter = new MappingJackson2HttpMessageConverter(objectMapper);
+    codecConverter = new WalletJsonHttpMessageConverter(jacksonConverter);
+
+    walletId = UUID.randomUUID();
+    wallet = new Wallet();
+    wallet.setWalletId(walletId);
+    wallet.setAmount(new BigDecimal("1234.56"));
+    walletDto = mapper.toDto(wallet);
+    saveWalletJson = """
+      {"walletId": "%s", "operationType": "DEPOSIT", "amount": 1000.00}
+      """.formatted(walletId);
+    saveWalletBytes = saveWalletJson.getBytes(StandardCharsets.UTF_8);
+    webRequest = new ServletWebRequest(new MockHttpServletRequest("POST", "/api/v1/wallet"));
+  }
+
+  @Benchmark
+  public WalletDto mapToDto() {
+    return mapper.toDto(wallet);
+  }
+
+  @Benchmark
+  public SaveWalletDto readSaveWalletDto() throws JsonProcessingException {
+    return saveWalletReader.readValue(saveWalletJson);
+  }
+
+  @Benchmark
+  public String writeWalletDto() throws JsonProcessingException {
+    return walletWriter.writeValueAsString(walletDto);
+  }
+
+  @Benchmark
+  public ResponseEntity<Object> handleNotFound() {
+    return exceptionHandler.handleEntityNotFoundException(new EntityNotFoundException(EntityType.WALLET, walletId), webRequest);
+  }
+
+  @Benchmark
+  public ResponseEntity<Object> handleInsufficientFunds() {
+    return exceptionHandler.handleInsufficientFundsException(
+      new InsufficientFundsException(walletId, BigDecimal.TEN), webRequest);
+  }
+
+  @Benchmark
+  public ResponseEntity<Object> handleLockTimeout() {
+    return exceptionHandler.handleLockExceptions(new WalletLockTimeoutException(walletId), webRequest);
+  }
+
+  @Benchmark
+  public String mapAndWriteWalletDto() throws JsonProcessingException {
+    return walletWriter.writeValueAsString(mapper.toDto(wallet));
+  }
+
+  @Benchmark
+  public Object readSaveWalletJackson() throws IOException {
+    return readSaveWallet(jacksonConverter);
+  }
+
+  @Benchmark
+  public Object readSaveWalletCodec() throws IOException {
+    return readSaveWallet(codecConverter);
+  }
+
+  @Benchmark
+  public MockHttpOutputMessage writeWalletJackson() throws IOException {
+    return writeWallet(jacksonConverter);
+  }
+
+  @Benchmark
+  public MockHttpOutputMessage writeWalletCodec() throws IOException {
+    return writeWallet(codecConverter);
+  }
+
+  private Object readSaveWallet(HttpMessageConverter<Object> converter) throws IOException {
+    MockHttpInputMessage input = new MockHttpInputMessage(saveWalletBytes);
+    input.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    return converter.read(SaveWalletDto.class, input);
+  }
+
+  private MockHttpOutputMessage writeWallet(HttpMessageConverter<Object> converter) throws IOException {
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    converter.write(walletDto, MediaType.APPLICATION_JSON, output);
+    return output;
+  }
+}
@@ -1,16 +1,21 @@
 package ru.itk.wallet_service.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.MessageSource;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.support.ReloadableResourceBundleMessageSource;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @Configuration
+@EnableScheduling
+@EnableConfigurationProperties(WalletProperties.class)
 public class AppConfig {
 
   /**
    * Загружает сообщения из resources/messages/messages.properties
-   * и устанавливает кодировку UTF-8.
+   * и устанавливает кодировку UTF-8. Файлы читаются один раз и не перечитываются во время работы,
+   * а разобранные шаблоны кэшируются по локали.
    *
    * @return настроенный {@link MessageSource} для работы с локализованными сообщениями
    */
@@ -19,6 +24,7 @@ public class AppConfig {
     ReloadableResourceBundleMessageSource messageSource = new ReloadableResourceBundleMessageSource();
     messageSource.setBasename("classpath:messages/messages");
     messageSource.setDefaultEncoding("UTF-8");
+    messageSource.setCacheMillis(-1);
     return messageSource;
   }
 
@@ -0,0 +1,107 @@
+package ru.itk.wallet_service.config;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import ru.itk.wallet_service.db.routing.Bulkhead;
+import ru.itk.wallet_service.db.routing.ReplicaHealth;
+import ru.itk.wallet_service.db.routing.RoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Раздельные пулы соединений (wallet.pools.enabled) и чтение с реплики (wallet.replica.enabled).
+ * Пулы основной базы настраиваются из {@code spring.datasource}; с раздельными пулами у каждой перегородки
+ * свои размер и время ожидания соединения. Собственный {@link DataSource} отключает автонастройку пула
+ * Spring Boot, поэтому все пулы создаются здесь.
+ */
+@Configuration
+@ConditionalOnExpression("${wallet.pools.enabled:false} or ${wallet.replica.enabled:false}")
+public class RoutingDataSourceConfig {
+
+  @Bean(destroyMethod = "close")
+  public RoutingDataSource routingDataSource(DataSourceProperties dataSourceProperties,
+                                             WalletProperties properties,
+                                             Environment environment,
+                                             MeterRegistry meterRegistry) {
+    HikariDataSource template = dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(template));
+    template.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+    Map<Bulkhead, HikariDataSource> pools = new EnumMap<>(Bulkhead.class);
+    WalletProperties.Pools settings = properties.getPools();
+    if (settings.isEnabled()) {
+      pools.put(Bulkhead.READS, pool(template, Bulkhead.READS, settings.getReads()));
+      pools.put(Bulkhead.UPDATES, pool(template, Bulkhead.UPDATES, settings.getUpdates()));
+      pools.put(Bulkhead.BULK, pool(template, Bulkhead.BULK, settings.getBulk()));
+    } else {
+      HikariDataSource primary = copyOf(template);
+      primary.setPoolName("primary");
+      for (Bulkhead bulkhead : Bulkhead.values()) {
+        pools.put(bulkhead, primary);
+      }
+    }
+
+    WalletProperties.Replica replicaSettings = properties.getReplica();
+    if (!replicaSettings.isEnabled()) {
+      return new RoutingDataSource(pools, null, null);
+    }
+    HikariDataSource replica = new HikariDataSource();
+    replica.setPoolName("replica");
+    replica.setDriverClassName(dataSourceProperties.determineDriverClassName());
+    replica.setJdbcUrl(replicaSettings.getUrl());
+    replica.setUsername(replicaSettings.getUsername());
+    replica.setPassword(replicaSettings.getPassword());
+    replica.setMaximumPoolSize(replicaSettings.getMaximumPoolSize());
+    replica.setConnectionTimeout(replicaSettings.getConnectionTimeout().toMillis());
+    replica.setReadOnly(true);
+    // пул не ждёт реплику при запуске: пока она недоступна, чтение идёт в основную базу
+    replica.setInitializationFailTimeout(-1);
+    replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+
+    ReplicaHealth health = new ReplicaHealth(replica, replicaSettings.getMaxLag(),
+      replicaSettings.getHealthCheckInterval(), meterRegistry);
+    return new RoutingDataSource(pools, replica, health);
+  }
+
+  /**
+   * Соединение берётся при первом запросе, а не при открытии транзакции: к этому моменту
+   * известно, что транзакция read-only, и выбрана перегородка.
+   */
+  @Bean
+  @Primary
+  public DataSource dataSource(RoutingDataSource routingDataSource) {
+    return new LazyConnectionDataSourceProxy(routingDataSource);
+  }
+
+  private static HikariDataSource pool(HikariConfig template, Bulkhead bulkhead, WalletProperties.Pools.Pool settings) {
+    HikariDataSource pool = copyOf(template);
+    pool.setPoolName(bulkhead.name().toLowerCase(Locale.ROOT));
+    pool.setMaximumPoolSize(settings.getMaximumPoolSize());
+    pool.setMinimumIdle(Math.min(pool.getMinimumIdle(), settings.getMaximumPoolSize()));
+    pool.setConnectionTimeout(settings.getConnectionTimeout().toMillis());
+    return pool;
+  }
+
+  /**
+   * Пул с настройками {@code template}. Пул открывается при первом запросе соединения, как в Spring Boot.
+   */
+  private static HikariDataSource copyOf(HikariConfig template) {
+    HikariDataSource pool = new HikariDataSource();
+    template.copyStateTo(pool);
+    return pool;
+  }
+}
@@ -0,0 +1,592 @@
+package ru.itk.wallet_service.config;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+import ru.itk.wallet_service.enums.UpdateMode;
+
+import java.time.Duration;
+
+/**
+ * Настройки сервиса кошельков (префикс {@code wallet} в application.yaml).
+ */
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@ConfigurationProperties(prefix = "wallet")
+public class WalletProperties {
+
+  /**
+   * Стратегия изменения баланса.
+   */
+  UpdateMode updateMode = UpdateMode.PESSIMISTIC;
+
+  /**
+   * Объединение конкурентных операций над одним кошельком в общую транзакцию.
+   */
+  Combiner combiner = new Combiner();
+
+  /**
+   * Блокировки кошельков в памяти приложения до открытия транзакции.
+   */
+  Lock lock = new Lock();
+
+  /**
+   * Шардированные балансы горячих кошельков.
+   */
+  Sharding sharding = new Sharding();
+
+  /**
+   * Журнал операций wallet_operation.
+   */
+  Ledger ledger = new Ledger();
+
+  /**
+   * Пакетное применение операций.
+   */
+  Batch batch = new Batch();
+
+  /**
+   * Кэш балансов для GET /v1/wallets/{walletId}.
+   */
+  Cache cache = new Cache();
+
+  /**
+   * Ключи идемпотентности для POST /v1/wallet.
+   */
+  Idempotency idempotency = new Idempotency();
+
+  /**
+   * Повторы оптимистичных обновлений (режимы OPTIMISTIC и ADAPTIVE).
+   */
+  Optimistic optimistic = new Optimistic();
+
+  /**
+   * Асинхронное изменение баланса через POST /v1/wallet/async.
+   */
+  Async async = new Async();
+
+  /**
+   * Обнаружение горячих кошельков.
+   */
+  Hot hot = new Hot();
+
+  /**
+   * Массовое создание кошельков через POST /v1/wallet/create/bulk.
+   */
+  Bulk bulk = new Bulk();
+
+  /**
+   * История операций GET /v1/wallets/{walletId}/operations.
+   */
+  History history = new History();
+
+  /**
+   * Выгрузка балансов GET /v1/wallets/export.
+   */
+  Export export = new Export();
+
+  /**
+   * Локальный журнал для POST /v1/wallet: подтверждение после записи в файл, запись в базу пачками.
+   */
+  Journal journal = new Journal();
+
+  /**
+   * Чтение баланса с реплики базы данных.
+   */
+  Replica replica = new Replica();
+
+  /**
+   * Раздельные пулы соединений основной базы для чтений, изменений балансов и массовых задач.
+   */
+  Pools pools = new Pools();
+
+  /**
+   * Адаптивный предел одновременных запросов к /v1/wallet и /v1/wallets.
+   */
+  Limit limit = new Limit();
+
+  /**
+   * Потоковый JSON-кодек для тела POST /v1/wallet и ответа с балансом.
+   */
+  Codec codec = new Codec();
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Combiner {
+    /**
+     * Включает объединение операций.
+     */
+    boolean enabled = false;
+
+    /**
+     * Максимальное количество операций в одной транзакции.
+     */
+    int maxBatchSize = 100;
+
+    /**
+     * Время ожидания накопления пакета, если он не заполнен.
+     */
+    Duration linger = Duration.ZERO;
+
+    /**
+     * Количество независимых очередей, между которыми распределяются кошельки.
+     */
+    int stripes = 64;
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Lock {
+    /**
+     * Включает блокировки кошельков в памяти.
+     */
+    boolean enabled = false;
+
+    /**
+     * Количество полос блокировок, между которыми распределяются кошельки.
+     */
+    int stripes = 1024;
+
+    /**
+     * Максимальное время ожидания блокировки, после которого запрос отклоняется.
+     */
+    Duration waitTimeout = Duration.ofSeconds(5);
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Sharding {
+    /**
+     * Пытаться зачислять пополнения в слоты шардированных кошельков без блокировки основной строки.
+     * Для нешардированных кошельков это стоит одного дополнительного запроса на пополнение.
+     */
+    boolean enabled = false;
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Ledger {
+    /**
+     * На сколько месяцев вперёд заранее создавать секции журнала.
+     */
+    int partitionsAhead = 2;
+
+    /**
+     * Сколько месяцев хранить секции журнала в основной таблице. 0 — не отсоединять.
+     */
+    int retentionMonths = 0;
+
+    /**
+     * Расписание обслуживания секций.
+     */
+    String maintenanceCron = "0 0 * * * *";
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Batch {
+    /**
+     * Количество операций в одной транзакции в режиме BEST_EFFORT.
+     */
+    int chunkSize = 200;
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Cache {
+    /**
+     * Включает кэш балансов.
+     */
+    boolean enabled = false;
+
+    /**
+     * Максимальное количество кошельков в кэше.
+     */
+    long maximumSize = 100_000;
+
+    /**
+     * Время жизни записи после записи в кэш.
+     */
+    Duration ttl = Duration.ofSeconds(30);
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Idempotency {
+    /**
+     * Минимальное время хранения ключа.
+     */
+    Duration ttl = Duration.ofHours(24);
+
+    /**
+     * Ожидаемое количество ключей за время хранения, по нему рассчитывается фильтр Блума.
+     */
+    int expectedKeys = 1_000_000;
+
+    /**
+     * Допустимая доля ложноположительных ответов фильтра Блума.
+     */
+    double falsePositiveRate = 0.01;
+
+    /**
+     * Количество недавних ключей, результат которых хранится в памяти.
+     */
+    long recentKeys = 100_000;
+
+    /**
+     * Расписание удаления просроченных ключей.
+     */
+    String purgeCron = "0 */5 * * * *";
+
+    /**
+     * Количество ключей, удаляемых одним запросом.
+     */
+    int purgeBatchSize = 10_000;
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Optimistic {
+    /**
+     * Максимальное количество попыток, после него — ответ 409.
+     */
+    int maxAttempts = 5;
+
+    /**
+     * Верхняя граница задержки перед второй попыткой; удваивается с каждой следующей.
+     */
+    Duration initialBackoff = Duration.ofMillis(5);
+
+    /**
+     * Максимальная задержка между попытками.
+     */
+    Duration maxBackoff = Duration.ofMillis(200);
+
+    /**
+     * Количество конфликтов версий за {@code contentionWindow}, после которого
+     * в режиме ADAPTIVE кошелёк изменяется с блокировкой строки.
+     */
+    int contentionThreshold = 3;
+
+    /**
+     * Время, в течение которого помнятся конфликты версий кошелька.
+     */
+    Duration contentionWindow = Duration.ofSeconds(10);
+
+    /**
+     * Максимальное количество кошельков, для которых помнятся конфликты.
+     */
+    long trackedWallets = 100_000;
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Async {
+    /**
+     * Количество потоков, выполняющих операции; не больше размера пула соединений.
+     */
+    int poolSize = 16;
+
+    /**
+     * Время ожидания результата, после него — ответ 409, если операция не начата, иначе 503.
+     */
+    Duration timeout = Duration.ofSeconds(5);
+
+    /**
+     * Максимальное количество операций в очередях, сверх него запросы сразу получают 409.
+     */
+    int maxPending = 10_000;
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Hot {
+    /**
+     * Включает учёт нагрузки по кошелькам и перевод горячих кошельков на комбайнер.
+     */
+    boolean enabled = false;
+
+    /**
+     * Количество отслеживаемых кошельков в каждом окне.
+     */
+    int capacity = 1024;
+
+    /**
+     * Длина окна, по которому оценивается нагрузка.
+     */
+    Duration window = Duration.ofSeconds(10);
+
+    /**
+     * Частота записей, начиная с которой кошелёк становится горячим.
+     */
+    double promoteWritesPerSecond = 50;
+
+    /**
+     * Частота записей, ниже которой горячий кошелёк возвращается на обычный путь.
+     */
+    double demoteWritesPerSecond = 20;
+
+    /**
+     * Суммарное ожидание блокировки строки за секунду, начиная с которого кошелёк становится горячим.
+     */
+    Duration promoteLockWaitPerSecond = Duration.ofMillis(200);
+
+    /**
+     * Суммарное ожидание блокировки строки за секунду, ниже которого кошелёк возвращается на обычный путь.
+     */
+    Duration demoteLockWaitPerSecond = Duration.ofMillis(50);
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Bulk {
+    /**
+     * Количество кошельков в одном INSERT; идентификаторы отправляются клиенту после каждой порции.
+     */
+    int chunkSize = 10_000;
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class History {
+    /**
+     * Размер страницы, если клиент не указал limit.
+     */
+    int pageSize = 50;
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Export {
+    /**
+     * Количество строк, которое драйвер получает от курсора за один запрос к базе.
+     */
+    int fetchSize = 10_000;
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Journal {
+    /**
+     * Включает режим локального журнала. Пакеты, переводы, шардирование и ключи идемпотентности
+     * в этом режиме отклоняются с 409.
+     */
+    boolean enabled = false;
+
+    /**
+     * Каталог сегментов журнала; должен быть на локальном диске, переживающем перезапуск.
+     */
+    String directory = "data/journal";
+
+    /**
+     * Идентификатор журнала в journal_checkpoint; у каждого экземпляра сервиса свой.
+     */
+    String id = "default";
+
+    /**
+     * Размер одного сегмента журнала.
+     */
+    DataSize segmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * Пауза между применениями журнала к базе.
+     */
+    Duration applyInterval = Duration.ofMillis(200);
+
+    /**
+     * Максимальное количество записей журнала в одной транзакции базы.
+     */
+    int applyBatchSize = 10_000;
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Replica {
+    /**
+     * Направляет read-only транзакции в пул реплики.
+     */
+    boolean enabled = false;
+
+    /**
+     * JDBC URL реплики.
+     */
+    String url;
+
+    String username;
+
+    String password;
+
+    /**
+     * Максимальный размер пула соединений реплики.
+     */
+    int maximumPoolSize = 20;
+
+    /**
+     * Ожидание соединения реплики; после него чтение уходит в основную базу.
+     */
+    Duration connectionTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Время после изменения кошелька, в течение которого его баланс читается из основной базы.
+     * Должно быть больше {@code max-lag}.
+     */
+    Duration readYourWritesWindow = Duration.ofSeconds(2);
+
+    /**
+     * Максимальное количество кошельков, изменения которых отслеживаются в окне.
+     */
+    int trackedWallets = 100_000;
+
+    /**
+     * Допустимое отставание реплики; при большем чтение идёт в основную базу.
+     */
+    Duration maxLag = Duration.ofSeconds(1);
+
+    /**
+     * Период проверки доступности и отставания реплики.
+     */
+    Duration healthCheckInterval = Duration.ofSeconds(1);
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Pools {
+    /**
+     * Включает раздельные пулы; иначе все запросы получают соединения одного пула {@code spring.datasource}.
+     */
+    boolean enabled = false;
+
+    /**
+     * Чтение баланса и истории, создание кошелька.
+     */
+    Pool reads = new Pool(10, Duration.ofSeconds(1));
+
+    /**
+     * Изменения балансов.
+     */
+    Pool updates = new Pool(20, Duration.ofSeconds(5));
+
+    /**
+     * Массовое создание, выгрузка, применение журнала, обслуживание таблиц.
+     */
+    Pool bulk = new Pool(4, Duration.ofSeconds(30));
+
+    @Getter
+    @Setter
+    @FieldDefaults(level = AccessLevel.PRIVATE)
+    public static class Pool {
+      /**
+       * Максимальный размер пула.
+       */
+      int maximumPoolSize;
+
+      /**
+       * Ожидание свободного соединения, после него запрос получает 503.
+       */
+      Duration connectionTimeout;
+
+      public Pool() {
+      }
+
+      Pool(int maximumPoolSize, Duration connectionTimeout) {
+        this.maximumPoolSize = maximumPoolSize;
+        this.connectionTimeout = connectionTimeout;
+      }
+    }
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Limit {
+    /**
+     * Включает ограничение; сверх предела запросы получают 429 и Retry-After.
+     */
+    boolean enabled = false;
+
+    /**
+     * Предел одновременных запросов при запуске.
+     */
+    int initialLimit = 20;
+
+    /**
+     * Нижняя граница предела.
+     */
+    int minLimit = 4;
+
+    /**
+     * Верхняя граница предела.
+     */
+    int maxLimit = 200;
+
+    /**
+     * На сколько запросов предел растёт за шаг, пока задержка не растёт.
+     */
+    int queueSize = 4;
+
+    /**
+     * Доля нового значения при сглаживании предела, от 0 до 1.
+     */
+    double smoothing = 0.2;
+
+    /**
+     * Во сколько раз краткая средняя задержка может превысить долгую, прежде чем предел начнёт снижаться.
+     */
+    double rttTolerance = 1.5;
+
+    /**
+     * Окно долгой средней задержки, запросов.
+     */
+    int longWindow = 600;
+
+    /**
+     * Окно краткой средней задержки, запросов.
+     */
+    int shortWindow = 10;
+
+    /**
+     * Доля предела сервиса, доступная запросам к одному кошельку.
+     */
+    double walletShare = 0.25;
+
+    /**
+     * Нижняя граница предела одного кошелька.
+     */
+    int minWalletLimit = 2;
+
+    /**
+     * Верхняя граница Retry-After.
+     */
+    Duration maxRetryAfter = Duration.ofSeconds(10);
+  }
+
+  @Getter
+  @Setter
+  @FieldDefaults(level = AccessLevel.PRIVATE)
+  public static class Codec {
+    /**
+     * Включает чтение SaveWalletDto и запись WalletDto без databind Jackson.
+     */
+    boolean enabled = false;
+  }
+}
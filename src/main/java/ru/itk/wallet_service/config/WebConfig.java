@@ -0,0 +1,50 @@
+package ru.itk.wallet_service.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.itk.wallet_service.service.limit.ConcurrencyLimiter;
+import ru.itk.wallet_service.web.converter.WalletJsonHttpMessageConverter;
+import ru.itk.wallet_service.web.limit.ConcurrencyLimitInterceptor;
+
+import java.util.List;
+
+@Configuration
+@RequiredArgsConstructor
+public class WebConfig implements WebMvcConfigurer {
+  private final ConcurrencyLimiter limiter;
+  private final WalletProperties properties;
+
+  /**
+   * Ограничение одновременных запросов подключается только к API кошельков. Массовое создание и выгрузка
+   * не ограничиваются: они работают в собственном пуле соединений, и их долгая задержка исказила бы предел.
+   */
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    if (!limiter.isEnabled()) {
+      return;
+    }
+    registry.addInterceptor(new ConcurrencyLimitInterceptor(limiter))
+      .addPathPatterns("/v*/wallet/**", "/v*/wallets/**")
+      .excludePathPatterns("/v*/wallet/create/bulk", "/v*/wallets/export");
+  }
+
+  /**
+   * Потоковый кодек ставится перед конвертером Jackson и использует его ObjectMapper
+   * и как запасной путь для всего, что не разбирает сам.
+   */
+  @Override
+  public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+    if (!properties.getCodec().isEnabled()) {
+      return;
+    }
+    converters.stream()
+      .filter(MappingJackson2HttpMessageConverter.class::isInstance)
+      .map(MappingJackson2HttpMessageConverter.class::cast)
+      .findFirst()
+      .ifPresent(jackson -> converters.add(converters.indexOf(jackson), new WalletJsonHttpMessageConverter(jackson)));
+  }
+}
@@ -5,6 +5,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.experimental.FieldDefaults;
+import ru.itk.wallet_service.money.MinorUnits;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -21,6 +22,31 @@ public class Wallet {
   @Column(name = "wallet_id", updatable = false, nullable = false)
   UUID walletId;
 
-  @Column(name = "amount", precision = 10, scale = 2)
-  BigDecimal amount;
+  /**
+   * Баланс в минорных единицах (копейках). Вычисления над балансом выполняются в {@code long},
+   * десятичная сумма получается только на границе API через {@link #getAmount()}.
+   */
+  @Column(name = "amount", nullable = false)
+  long amountMinor;
+
+  /**
+   * Количество слотов {@link WalletShard}, на которые разбит баланс. 0 — баланс хранится только в {@code amount}.
+   */
+  @Column(name = "shard_count", nullable = false)
+  int shardCount;
+
+  /**
+   * Версия строки для оптимистичной блокировки. Увеличивается при каждом изменении баланса.
+   */
+  @Version
+  @Column(name = "version", nullable = false)
+  long version;
+
+  public BigDecimal getAmount() {
+    return MinorUnits.toDecimal(amountMinor);
+  }
+
+  public void setAmount(BigDecimal amount) {
+    this.amountMinor = MinorUnits.toMinor(amount);
+  }
 }
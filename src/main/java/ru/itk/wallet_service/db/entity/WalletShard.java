@@ -0,0 +1,31 @@
+package ru.itk.wallet_service.db.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.EmbeddedId;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Слот баланса шардированного кошелька. Итоговый баланс кошелька —
+ * {@link Wallet#getAmount()} плюс сумма всех его слотов.
+ */
+@Entity
+@Table(name = "wallet_shard")
+@Getter
+@Setter
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WalletShard {
+
+  @EmbeddedId
+  WalletShardId id;
+
+  /**
+   * Сумма слота в минорных единицах
+   */
+  @Column(name = "amount", nullable = false)
+  long amount;
+}
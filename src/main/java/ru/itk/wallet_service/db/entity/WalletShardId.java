@@ -0,0 +1,25 @@
+package ru.itk.wallet_service.db.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+@Embeddable
+@Getter
+@Setter
+@EqualsAndHashCode
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WalletShardId implements Serializable {
+
+  @Column(name = "wallet_id", nullable = false)
+  UUID walletId;
+
+  @Column(name = "slot", nullable = false)
+  Integer slot;
+}
@@ -12,5 +12,22 @@ public enum OperationType {
   /**
    * Снятие средств со счёта.
    */
-  WITHDRAW
+  WITHDRAW,
+
+  /**
+   * Зачисление перевода с другого счёта. Только для журнала операций.
+   */
+  TRANSFER_IN,
+
+  /**
+   * Списание перевода на другой счёт. Только для журнала операций.
+   */
+  TRANSFER_OUT;
+
+  /**
+   * Можно ли передать тип в запросе на изменение кошелька: типы переводов пишутся только в журнал операций.
+   */
+  public boolean isWalletOperation() {
+    return this == DEPOSIT || this == WITHDRAW;
+  }
 }
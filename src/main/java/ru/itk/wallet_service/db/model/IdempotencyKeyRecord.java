@@ -0,0 +1,17 @@
+package ru.itk.wallet_service.db.model;
+
+import ru.itk.wallet_service.db.enums.OperationType;
+
+/**
+ * Использованный ключ идемпотентности (таблица idempotency_key): операция, с которой ключ был занят,
+ * и баланс после неё. Суммы в минорных единицах. У ключей, занятых до сохранения операции, тип и сумма пустые.
+ */
+public record IdempotencyKeyRecord(OperationType operationType, Long amount, long balance) {
+
+  /**
+   * @return true, если повтор с этим ключом несёт ту же операцию, что и первый запрос
+   */
+  public boolean matches(OperationType operationType, long amount) {
+    return this.operationType == null || this.operationType == operationType && Long.valueOf(amount).equals(this.amount);
+  }
+}
@@ -0,0 +1,39 @@
+package ru.itk.wallet_service.db.model;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import ru.itk.wallet_service.db.enums.OperationType;
+
+import java.time.OffsetDateTime;
+import java.util.UUID;
+
+/**
+ * Неизменяемая запись журнала операций (таблица wallet_operation).
+ * Номер и время операции присваиваются базой данных при вставке, суммы хранятся в минорных единицах.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class WalletOperation {
+  UUID walletId;
+  Long sequenceNumber;
+  OperationType operationType;
+  long amount;
+  long balance;
+  OffsetDateTime createdAt;
+
+  public static WalletOperation of(UUID walletId, OperationType operationType, long amount, long balance) {
+    return WalletOperation.builder()
+      .walletId(walletId)
+      .operationType(operationType)
+      .amount(amount)
+      .balance(balance)
+      .build();
+  }
+}
@@ -0,0 +1,87 @@
+package ru.itk.wallet_service.db.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.db.model.IdempotencyKeyRecord;
+
+import java.sql.PreparedStatement;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.BiConsumer;
+
+/**
+ * Ключи идемпотентности изменений баланса. Ключ уникален в пределах кошелька
+ * и хранит тип и сумму операции, с которой был занят, и баланс в минорных единицах,
+ * возвращённый клиенту при первом выполнении операции.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+  private static final int STREAM_FETCH_SIZE = 10_000;
+
+  private static final String CLAIM_SQL =
+    "INSERT INTO idempotency_key (wallet_id, idempotency_key, operation_type, amount) VALUES (?, ?, ?, ?) "
+      + "ON CONFLICT DO NOTHING";
+  private static final String COMPLETE_SQL =
+    "UPDATE idempotency_key SET balance = ? WHERE wallet_id = ? AND idempotency_key = ?";
+  private static final String FIND_SQL =
+    "SELECT operation_type, amount, balance FROM idempotency_key WHERE wallet_id = ? AND idempotency_key = ?";
+  private static final String FIND_CREATED_AFTER_SQL =
+    "SELECT wallet_id, idempotency_key FROM idempotency_key WHERE created_at > ?";
+  private static final String DELETE_CREATED_BEFORE_SQL = """
+    DELETE FROM idempotency_key WHERE (wallet_id, idempotency_key) IN (
+      SELECT wallet_id, idempotency_key FROM idempotency_key WHERE created_at < ? LIMIT ?)
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Занимает ключ в текущей транзакции для операции с типом и суммой в минорных единицах.
+   * Если ключ занят незавершённой транзакцией, вставка ждёт её завершения.
+   *
+   * @return false, если ключ уже использован
+   */
+  public boolean claim(UUID walletId, String key, OperationType operationType, long amount) {
+    return jdbcTemplate.update(CLAIM_SQL, walletId, key, operationType.name(), amount) > 0;
+  }
+
+  public void complete(UUID walletId, String key, long balance) {
+    jdbcTemplate.update(COMPLETE_SQL, balance, walletId, key);
+  }
+
+  public Optional<IdempotencyKeyRecord> find(UUID walletId, String key) {
+    List<IdempotencyKeyRecord> records = jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> {
+      String operationType = rs.getString(1);
+      return new IdempotencyKeyRecord(operationType != null ? OperationType.valueOf(operationType) : null,
+        rs.getObject(2, Long.class), rs.getLong(3));
+    }, walletId, key);
+    return records.stream().findFirst();
+  }
+
+  /**
+   * Передаёт потребителю все ключи, созданные после указанного момента, не загружая их в память целиком.
+   * Порционная выборка работает только внутри транзакции.
+   */
+  public void forEachCreatedAfter(OffsetDateTime since, BiConsumer<UUID, String> consumer) {
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(FIND_CREATED_AFTER_SQL);
+      statement.setFetchSize(STREAM_FETCH_SIZE);
+      statement.setObject(1, since);
+      return statement;
+    }, (RowCallbackHandler) rs -> consumer.accept(rs.getObject(1, UUID.class), rs.getString(2)));
+  }
+
+  /**
+   * Удаляет не более {@code limit} ключей, созданных раньше указанного момента.
+   *
+   * @return количество удалённых ключей
+   */
+  public int deleteCreatedBefore(OffsetDateTime cutoff, int limit) {
+    return jdbcTemplate.update(DELETE_CREATED_BEFORE_SQL, cutoff, limit);
+  }
+}
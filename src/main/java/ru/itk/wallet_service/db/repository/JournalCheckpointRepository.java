@@ -0,0 +1,59 @@
+package ru.itk.wallet_service.db.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Применение локального журнала к базе. Номер последней применённой записи хранится в journal_checkpoint
+ * и сдвигается в той же транзакции, что и балансы, поэтому повторное применение пропускает записи.
+ */
+@Repository
+@RequiredArgsConstructor
+public class JournalCheckpointRepository {
+  private static final String INIT_SQL =
+    "INSERT INTO journal_checkpoint (journal_id, applied_sequence) VALUES (?, 0) ON CONFLICT (journal_id) DO NOTHING";
+  private static final String FIND_SQL = "SELECT applied_sequence FROM journal_checkpoint WHERE journal_id = ?";
+  private static final String ADVANCE_SQL =
+    "UPDATE journal_checkpoint SET applied_sequence = ? WHERE journal_id = ? AND applied_sequence = ?";
+  private static final String ADD_TO_BALANCES_SQL = """
+    UPDATE wallet w SET amount = w.amount + d.delta, version = w.version + 1
+    FROM unnest(?::uuid[], ?::bigint[]) AS d(wallet_id, delta)
+    WHERE w.wallet_id = d.wallet_id
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public long findAppliedSequence(String journalId) {
+    jdbcTemplate.update(INIT_SQL, journalId);
+    Long applied = jdbcTemplate.queryForObject(FIND_SQL, Long.class, journalId);
+    return applied != null ? applied : 0;
+  }
+
+  /**
+   * Сдвигает номер применённой записи, только если он равен {@code expected}.
+   *
+   * @return {@code false}, если записи уже применены другим процессом
+   */
+  public boolean advance(String journalId, long expected, long applied) {
+    return jdbcTemplate.update(ADVANCE_SQL, applied, journalId, expected) == 1;
+  }
+
+  /**
+   * Прибавляет изменения к балансам кошельков одним запросом.
+   *
+   * @return количество изменённых кошельков
+   */
+  public int addToBalances(List<UUID> walletIds, List<Long> deltas) {
+    return jdbcTemplate.update(connection -> {
+      PreparedStatement statement = connection.prepareStatement(ADD_TO_BALANCES_SQL);
+      statement.setArray(1, connection.createArrayOf("uuid", walletIds.toArray()));
+      statement.setArray(2, connection.createArrayOf("bigint", deltas.toArray()));
+      return statement;
+    });
+  }
+}
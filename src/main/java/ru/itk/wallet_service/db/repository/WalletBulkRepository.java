@@ -0,0 +1,43 @@
+package ru.itk.wallet_service.db.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Массовая вставка кошельков с нулевым балансом. Порция идентификаторов передаётся одним параметром-массивом,
+ * поэтому на порцию приходится один запрос и один обход индекса, а не по запросу на кошелёк.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletBulkRepository {
+  private static final String INSERT_SQL = """
+    INSERT INTO wallet (wallet_id, amount)
+    SELECT id, 0 FROM unnest(?::uuid[]) AS id
+    ON CONFLICT (wallet_id) DO NOTHING
+    RETURNING wallet_id
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Вставляет кошельки с указанными идентификаторами. Уже существующие идентификаторы пропускаются.
+   *
+   * @return идентификаторы созданных кошельков
+   */
+  public List<UUID> insertAll(List<UUID> walletIds) {
+    List<UUID> created = new ArrayList<>(walletIds.size());
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(INSERT_SQL);
+      statement.setArray(1, connection.createArrayOf("uuid", walletIds.toArray()));
+      return statement;
+    }, (RowCallbackHandler) rs -> created.add(rs.getObject(1, UUID.class)));
+    return created;
+  }
+}
@@ -0,0 +1,48 @@
+package ru.itk.wallet_service.db.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.UUID;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Построчное чтение балансов всех кошельков курсором сервера. Строки не попадают в контекст
+ * персистентности и не копятся в памяти: драйвер держит не больше {@code fetchSize} строк за раз.
+ * Курсор PostgreSQL работает только внутри транзакции, вызывать нужно из неё.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletExportRepository {
+  private static final String BALANCES_SQL = """
+    SELECT w.wallet_id, CAST(w.amount + COALESCE(s.amount, 0) AS BIGINT) AS amount
+    FROM wallet w
+    LEFT JOIN (SELECT wallet_id, SUM(amount) AS amount FROM wallet_shard GROUP BY wallet_id) s
+      ON s.wallet_id = w.wallet_id
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Передаёт потребителю идентификатор и баланс каждого кошелька с учётом слотов, в минорных единицах.
+   *
+   * @return количество кошельков
+   */
+  public long forEachBalance(int fetchSize, ObjLongConsumer<UUID> consumer) {
+    long[] count = {0};
+    jdbcTemplate.query(connection -> {
+      PreparedStatement statement = connection.prepareStatement(BALANCES_SQL,
+        ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+      statement.setFetchSize(fetchSize);
+      return statement;
+    }, (RowCallbackHandler) rs -> {
+      consumer.accept(rs.getObject(1, UUID.class), rs.getLong(2));
+      count[0]++;
+    });
+    return count[0];
+  }
+}
@@ -0,0 +1,86 @@
+package ru.itk.wallet_service.db.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.db.model.WalletOperation;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Журнал операций. Записи вставляются пакетом JDBC в текущей транзакции,
+ * номер и время операции заполняются значениями по умолчанию в базе.
+ * История читается по ключу (wallet_id, sequence_number) из покрывающего индекса ix_wallet_operation_history.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletOperationRepository {
+  private static final String INSERT_SQL =
+    "INSERT INTO wallet_operation (wallet_id, operation_type, amount, balance) VALUES (?, ?, ?, ?)";
+  private static final String HISTORY_SQL =
+    "SELECT sequence_number, operation_type, amount, balance, created_at FROM wallet_operation WHERE wallet_id = ?";
+
+  private final JdbcTemplate jdbcTemplate;
+
+  public void saveAll(List<WalletOperation> operations) {
+    if (operations.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.batchUpdate(INSERT_SQL, operations, operations.size(), (ps, operation) -> {
+      ps.setObject(1, operation.getWalletId());
+      ps.setString(2, operation.getOperationType().name());
+      ps.setLong(3, operation.getAmount());
+      ps.setLong(4, operation.getBalance());
+    });
+  }
+
+  /**
+   * Операции кошелька от новых к старым, начиная сразу после {@code beforeSequence}.
+   * Страница продолжается условием по ключу индекса, а не OFFSET, поэтому её стоимость не зависит от её номера.
+   * Период {@code [from, to)} отсекает лишние секции журнала, тип фильтруется по колонкам индекса.
+   *
+   * @param beforeSequence номер последней операции предыдущей страницы или {@code null} для первой страницы
+   */
+  public List<WalletOperation> findHistory(UUID walletId, Long beforeSequence, OperationType type,
+                                           OffsetDateTime from, OffsetDateTime to, int limit) {
+    StringBuilder sql = new StringBuilder(HISTORY_SQL);
+    List<Object> args = new ArrayList<>();
+    args.add(walletId);
+    if (beforeSequence != null) {
+      sql.append(" AND sequence_number < ?");
+      args.add(beforeSequence);
+    }
+    if (type != null) {
+      sql.append(" AND operation_type = ?");
+      args.add(type.name());
+    }
+    if (from != null) {
+      sql.append(" AND created_at >= ?");
+      args.add(from);
+    }
+    if (to != null) {
+      sql.append(" AND created_at < ?");
+      args.add(to);
+    }
+    sql.append(" ORDER BY sequence_number DESC LIMIT ?");
+    args.add(limit);
+    return jdbcTemplate.query(sql.toString(), (rs, rowNum) -> toOperation(walletId, rs), args.toArray());
+  }
+
+  private static WalletOperation toOperation(UUID walletId, ResultSet rs) throws SQLException {
+    return WalletOperation.builder()
+      .walletId(walletId)
+      .sequenceNumber(rs.getLong("sequence_number"))
+      .operationType(OperationType.valueOf(rs.getString("operation_type")))
+      .amount(rs.getLong("amount"))
+      .balance(rs.getLong("balance"))
+      .createdAt(rs.getObject("created_at", OffsetDateTime.class))
+      .build();
+  }
+}
@@ -3,10 +3,13 @@ package ru.itk.wallet_service.db.repository;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import ru.itk.wallet_service.db.entity.Wallet;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
@@ -16,4 +19,112 @@ public interface WalletRepository extends JpaRepository<Wallet, UUID> {
   @Query("SELECT w FROM Wallet w WHERE w.walletId = :walletId")
   Optional<Wallet> findByIdForUpdate(@Param("walletId") UUID walletId);
 
+  /**
+   * Блокирует кошельки в порядке идентификаторов, чтобы конкурирующие пакеты
+   * захватывали строки в одном и том же порядке и не взаимоблокировались.
+   */
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT w FROM Wallet w WHERE w.walletId IN :walletIds ORDER BY w.walletId")
+  List<Wallet> findAllByIdForUpdate(@Param("walletIds") Collection<UUID> walletIds);
+
+  /**
+   * Баланс кошелька в минорных единицах вместе с суммой его слотов. Строка wallet и слоты читаются
+   * одним запросом, то есть из одного снимка, поэтому параллельное сворачивание слотов не учитывается дважды.
+   *
+   * @return баланс или пустой результат, если кошелёк не найден
+   */
+  @Query(value = """
+    SELECT CAST(w.amount + COALESCE(s.amount, 0) AS BIGINT)
+    FROM wallet w
+    LEFT JOIN (SELECT wallet_id, SUM(amount) AS amount FROM wallet_shard WHERE wallet_id = :walletId GROUP BY wallet_id) s
+      ON s.wallet_id = w.wallet_id
+    WHERE w.wallet_id = :walletId
+    """, nativeQuery = true)
+  Optional<Long> findBalanceById(@Param("walletId") UUID walletId);
+
+  /**
+   * Записывает баланс, рассчитанный по строке с версией {@code version}, и добавляет запись в журнал операций
+   * тем же запросом, поэтому изменение баланса на пути с блокировкой и оптимистичном пути — одно обращение к базе.
+   * Суммы в минорных единицах. Контекст сохранения очищается: загруженный кошелёк устарел.
+   *
+   * @return 1, если баланс записан, или 0, если версия строки изменилась после чтения
+   */
+  @Modifying(flushAutomatically = true, clearAutomatically = true)
+  @Query(value = """
+    WITH updated AS (
+      UPDATE wallet SET amount = :amount, version = version + 1
+      WHERE wallet_id = :walletId AND version = :version
+      RETURNING wallet_id, amount
+    )
+    INSERT INTO wallet_operation (wallet_id, operation_type, amount, balance)
+    SELECT wallet_id, :operationType, :operationAmount, amount FROM updated
+    """, nativeQuery = true)
+  int updateBalance(@Param("walletId") UUID walletId,
+                    @Param("version") long version,
+                    @Param("amount") long amount,
+                    @Param("operationType") String operationType,
+                    @Param("operationAmount") long operationAmount);
+
+  /**
+   * Изменяет баланс одним условным UPDATE. Суммы передаются в минорных единицах, для списания — отрицательная дельта.
+   * Условие вычисляется в NUMERIC: оно не даёт балансу уйти в минус или выйти за пределы BIGINT.
+   * Шардированные кошельки не изменяются: их баланс не сводится к одной строке.
+   * Запись в журнал операций добавляется тем же запросом.
+   *
+   * @return новый баланс или пустой результат, если кошелёк не найден, шардирован, средств недостаточно
+   * либо баланс переполнится
+   */
+  @Query(value = """
+    WITH updated AS (
+      UPDATE wallet SET amount = amount + :delta, version = version + 1
+      WHERE wallet_id = :walletId AND shard_count = 0 AND amount::numeric + :delta BETWEEN 0 AND 9223372036854775807
+      RETURNING wallet_id, amount
+    ), logged AS (
+      INSERT INTO wallet_operation (wallet_id, operation_type, amount, balance)
+      SELECT wallet_id, :operationType, abs(:delta), amount FROM updated
+    )
+    SELECT amount FROM updated
+    """, nativeQuery = true)
+  Optional<Long> addToBalance(@Param("walletId") UUID walletId,
+                              @Param("delta") long delta,
+                              @Param("operationType") String operationType);
+
+  /**
+   * Переводит сумму в минорных единицах одним запросом. Обе строки блокируются в порядке идентификаторов,
+   * поэтому встречные переводы не взаимоблокируются. Перевод применяется, только если оба кошелька
+   * существуют и не шардированы, на счёте отправителя достаточно средств, а баланс получателя не переполнится.
+   * Записи TRANSFER_OUT и TRANSFER_IN добавляются в журнал тем же запросом.
+   *
+   * @return балансы отправителя и получателя в этом порядке или пустой список, если перевод не применён
+   */
+  @Query(value = """
+    WITH locked AS (
+      SELECT wallet_id, amount, shard_count FROM wallet
+      WHERE wallet_id IN (:fromWalletId, :toWalletId)
+      ORDER BY wallet_id
+      FOR UPDATE
+    ), checked AS (
+      SELECT count(*) = 2
+        AND bool_and(shard_count = 0)
+        AND bool_and(wallet_id <> :fromWalletId OR amount >= :amount)
+        AND bool_and(wallet_id <> :toWalletId OR amount::numeric + :amount <= 9223372036854775807) AS ok
+      FROM locked
+    ), updated AS (
+      UPDATE wallet w
+      SET amount = w.amount + CASE WHEN w.wallet_id = :fromWalletId THEN -:amount ELSE :amount END,
+          version = w.version + 1
+      FROM checked
+      WHERE checked.ok AND w.wallet_id IN (:fromWalletId, :toWalletId)
+      RETURNING w.wallet_id, w.amount
+    ), logged AS (
+      INSERT INTO wallet_operation (wallet_id, operation_type, amount, balance)
+      SELECT wallet_id, CASE WHEN wallet_id = :fromWalletId THEN 'TRANSFER_OUT' ELSE 'TRANSFER_IN' END, :amount, amount
+      FROM updated
+    )
+    SELECT amount FROM updated ORDER BY wallet_id = :toWalletId
+    """, nativeQuery = true)
+  List<Long> transfer(@Param("fromWalletId") UUID fromWalletId,
+                      @Param("toWalletId") UUID toWalletId,
+                      @Param("amount") long amount);
+
 }
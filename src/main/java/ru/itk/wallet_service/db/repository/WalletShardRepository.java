@@ -0,0 +1,77 @@
+package ru.itk.wallet_service.db.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.itk.wallet_service.db.entity.WalletShard;
+import ru.itk.wallet_service.db.entity.WalletShardId;
+
+import java.util.Optional;
+import java.util.UUID;
+
+public interface WalletShardRepository extends JpaRepository<WalletShard, WalletShardId> {
+
+  /**
+   * Зачисляет сумму в минорных единицах в слот {@code seed mod shard_count} шардированного кошелька,
+   * не блокируя строку wallet на запись. Запись в журнал операций добавляется тем же запросом.
+   * Строка wallet читается под FOR SHARE, остальные слоты — под FOR KEY SHARE: так итог складывается
+   * из последних зафиксированных версий всех строк, а не из снимка начала запроса, и не расходится
+   * с параллельным сворачиванием слотов. Пополнения других слотов этими блокировками не задерживаются.
+   * Итог считается в NUMERIC и приводится к BIGINT: при переполнении запрос завершается ошибкой целиком.
+   *
+   * @return итоговый баланс кошелька после зачисления или пустой результат, если кошелёк не шардирован
+   */
+  @Query(value = """
+    WITH locked AS (
+      SELECT wallet_id, amount, shard_count FROM wallet
+      WHERE wallet_id = :walletId AND shard_count > 0
+      FOR SHARE
+    ), updated AS (
+      UPDATE wallet_shard s SET amount = s.amount + :amount
+      FROM locked w
+      WHERE s.wallet_id = w.wallet_id AND s.slot = mod(:seed, w.shard_count)
+      RETURNING s.slot, s.amount
+    ), others AS (
+      SELECT s.amount FROM wallet_shard s
+      WHERE s.wallet_id = :walletId AND s.slot <> (SELECT slot FROM updated)
+      ORDER BY s.slot
+      FOR KEY SHARE
+    ), totals AS (
+      SELECT CAST(u.amount::numeric + w.amount + (SELECT COALESCE(SUM(o.amount), 0) FROM others o) AS BIGINT) AS balance
+      FROM updated u CROSS JOIN locked w
+    ), logged AS (
+      INSERT INTO wallet_operation (wallet_id, operation_type, amount, balance)
+      SELECT :walletId, 'DEPOSIT', :amount, balance FROM totals
+    )
+    SELECT balance FROM totals
+    """, nativeQuery = true)
+  Optional<Long> depositToShard(@Param("walletId") UUID walletId,
+                                @Param("amount") long amount,
+                                @Param("seed") int seed);
+
+  /**
+   * Блокирует все слоты кошелька и возвращает их сумму.
+   */
+  @Query(value = """
+    SELECT CAST(COALESCE(SUM(locked.amount), 0) AS BIGINT)
+    FROM (SELECT amount FROM wallet_shard WHERE wallet_id = :walletId ORDER BY slot FOR UPDATE) locked
+    """, nativeQuery = true)
+  long lockAndSumByWalletId(@Param("walletId") UUID walletId);
+
+  @Modifying
+  @Query(value = "UPDATE wallet_shard SET amount = 0 WHERE wallet_id = :walletId", nativeQuery = true)
+  int resetByWalletId(@Param("walletId") UUID walletId);
+
+  @Modifying
+  @Query(value = """
+    INSERT INTO wallet_shard (wallet_id, slot, amount)
+    SELECT :walletId, slot, 0 FROM generate_series(0, :shardCount - 1) AS slot
+    """, nativeQuery = true)
+  int createShards(@Param("walletId") UUID walletId, @Param("shardCount") int shardCount);
+
+  @Modifying
+  @Query(value = "DELETE FROM wallet_shard WHERE wallet_id = :walletId", nativeQuery = true)
+  int deleteByWalletId(@Param("walletId") UUID walletId);
+
+}
@@ -0,0 +1,20 @@
+package ru.itk.wallet_service.db.routing;
+
+/**
+ * Пул соединений основной базы, за которым закреплён вид работы. Пулы не делят соединения:
+ * изменения, ждущие блокировку строки, не занимают соединения чтений.
+ */
+public enum Bulkhead {
+  /**
+   * Короткие запросы, не ждущие блокировок строк: чтение баланса и истории, создание кошелька.
+   */
+  READS,
+  /**
+   * Изменения балансов; соединение может быть занято ожиданием блокировки строки.
+   */
+  UPDATES,
+  /**
+   * Массовые и фоновые задачи: массовое создание, выгрузка, применение журнала, обслуживание таблиц.
+   */
+  BULK
+}
@@ -0,0 +1,64 @@
+package ru.itk.wallet_service.db.routing;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itk.wallet_service.config.WalletProperties;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Кошельки, изменённые за последние {@code wallet.replica.read-your-writes-window}. Их баланс читается
+ * из основной базы: реплика могла ещё не применить изменение. Окно отсчитывается от фиксации транзакции
+ * и действует для всех клиентов кошелька, а не только для автора изменения.
+ * <p>
+ * Если чтение с реплики выключено, ничего не запоминается.
+ */
+@Component
+public class RecentWrites {
+  private final Cache<UUID, Boolean> written;
+
+  public RecentWrites(WalletProperties properties) {
+    WalletProperties.Replica settings = properties.getReplica();
+    if (!settings.isEnabled()) {
+      this.written = null;
+      return;
+    }
+    this.written = Caffeine.newBuilder()
+      .maximumSize(settings.getTrackedWallets())
+      .expireAfterWrite(settings.getReadYourWritesWindow())
+      .build();
+  }
+
+  /**
+   * Запоминает изменение кошелька после фиксации текущей транзакции.
+   */
+  public void markAfterCommit(UUID walletId) {
+    if (written == null) {
+      return;
+    }
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      written.put(walletId, Boolean.TRUE);
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        written.put(walletId, Boolean.TRUE);
+      }
+    });
+  }
+
+  /**
+   * Выполняет чтение кошелька из основной базы, если он изменён недавно, иначе — там, куда его направит маршрутизация.
+   */
+  public <T> T read(UUID walletId, Supplier<T> action) {
+    if (written == null || written.getIfPresent(walletId) == null) {
+      return action.get();
+    }
+    return RoutingDataSource.onPrimary(action);
+  }
+}
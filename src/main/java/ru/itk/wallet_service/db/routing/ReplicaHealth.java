@@ -0,0 +1,104 @@
+package ru.itk.wallet_service.db.routing;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Доступность реплики для чтения. Собственный поток раз в {@code health-check-interval} запрашивает отставание
+ * применения WAL; реплика доступна, если запрос выполнен и отставание не больше {@code max-lag}.
+ * До первой проверки чтение идёт в основную базу.
+ */
+@Slf4j
+public class ReplicaHealth implements Closeable {
+  public static final String AVAILABLE = "wallet.replica.available";
+  public static final String LAG = "wallet.replica.lag";
+
+  /**
+   * Отставание в миллисекундах. Реплика, которая применила всё полученное, не отстаёт, даже если
+   * последняя транзакция была давно; вне режима восстановления (не реплика) отставание нулевое.
+   */
+  private static final String LAG_SQL = """
+    SELECT CASE
+             WHEN NOT pg_is_in_recovery() OR pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+             ELSE COALESCE(CAST(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 AS BIGINT), 0)
+           END
+    """;
+
+  private final DataSource replica;
+  private final Duration maxLag;
+  private final int queryTimeoutSeconds;
+  private final ScheduledExecutorService executor;
+  private volatile boolean available;
+  private volatile long lagMillis;
+
+  public ReplicaHealth(DataSource replica, Duration maxLag, Duration interval, MeterRegistry meterRegistry) {
+    this.replica = replica;
+    this.maxLag = maxLag;
+    this.queryTimeoutSeconds = (int) Math.max(1, interval.toSeconds());
+    Gauge.builder(AVAILABLE, this, health -> health.available ? 1 : 0).register(meterRegistry);
+    Gauge.builder(LAG, this, health -> health.lagMillis).baseUnit("milliseconds").register(meterRegistry);
+    this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "wallet-replica-health");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long period = Math.max(1, interval.toMillis());
+    executor.scheduleWithFixedDelay(this::check, 0, period, TimeUnit.MILLISECONDS);
+  }
+
+  public boolean isAvailable() {
+    return available;
+  }
+
+  /**
+   * Снимает реплику с чтения до следующей успешной проверки.
+   */
+  public void markUnavailable(SQLException cause) {
+    if (available) {
+      log.warn("Replica is unavailable, reading from primary: {}", cause.getMessage());
+    }
+    available = false;
+  }
+
+  void check() {
+    boolean healthy;
+    try (Connection connection = replica.getConnection();
+         Statement statement = connection.createStatement()) {
+      statement.setQueryTimeout(queryTimeoutSeconds);
+      try (ResultSet resultSet = statement.executeQuery(LAG_SQL)) {
+        resultSet.next();
+        lagMillis = resultSet.getLong(1);
+      }
+      healthy = lagMillis <= maxLag.toMillis();
+      if (!healthy && available) {
+        log.warn("Replica lag {} ms exceeds {}, reading from primary", lagMillis, maxLag);
+      }
+    } catch (SQLException | RuntimeException e) {
+      healthy = false;
+      if (available) {
+        log.warn("Replica health check failed, reading from primary: {}", e.getMessage());
+      }
+    }
+    if (healthy && !available) {
+      log.info("Replica is available for reads, lag {} ms", lagMillis);
+    }
+    available = healthy;
+  }
+
+  @Override
+  public void close() {
+    executor.shutdownNow();
+  }
+}
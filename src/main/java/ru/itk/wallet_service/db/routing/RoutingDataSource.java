@@ -0,0 +1,134 @@
+package ru.itk.wallet_service.db.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Распределяет соединения между пулами основной базы ({@link Bulkhead}) и пулом реплики.
+ * <p>
+ * Используется за {@link LazyConnectionDataSourceProxy}: соединение берётся при первом запросе транзакции,
+ * когда признак read-only и перегородка уже известны. Перегородка задаётся {@link #inBulkhead(Bulkhead, Supplier)},
+ * иначе read-only транзакции получают {@link Bulkhead#READS}, остальные — {@link Bulkhead#UPDATES}.
+ * <p>
+ * Read-only транзакции идут в реплику, если она подключена и доступна ({@link ReplicaHealth}), а поток
+ * не закреплён за основной базой ({@link #onPrimary(Supplier)}). Если реплика не выдала соединение,
+ * оно берётся из пула перегородки, а реплика считается недоступной до следующей успешной проверки.
+ */
+public class RoutingDataSource extends AbstractDataSource implements Closeable {
+  private static final ThreadLocal<Bulkhead> BULKHEAD = new ThreadLocal<>();
+  private static final ThreadLocal<Boolean> PRIMARY_PINNED = new ThreadLocal<>();
+
+  private final Map<Bulkhead, HikariDataSource> pools;
+  private final HikariDataSource replica;
+  private final ReplicaHealth health;
+
+  /**
+   * @param pools   пул основной базы для каждой перегородки; перегородки могут делить один пул
+   * @param replica пул реплики или {@code null}, если чтение с реплики выключено
+   * @param health  доступность реплики или {@code null} вместе с {@code replica}
+   */
+  public RoutingDataSource(Map<Bulkhead, HikariDataSource> pools, HikariDataSource replica, ReplicaHealth health) {
+    this.pools = new EnumMap<>(pools);
+    this.replica = replica;
+    this.health = health;
+  }
+
+  /**
+   * Выполняет {@code action} так, что его read-only транзакции читают из основной базы.
+   */
+  public static <T> T onPrimary(Supplier<T> action) {
+    return with(PRIMARY_PINNED, Boolean.TRUE, action);
+  }
+
+  /**
+   * Выполняет {@code action} на соединениях пула {@code bulkhead}. Транзакция должна начаться внутри {@code action}
+   * или ещё не выполнить ни одного запроса.
+   */
+  public static <T> T inBulkhead(Bulkhead bulkhead, Supplier<T> action) {
+    return with(BULKHEAD, bulkhead, action);
+  }
+
+  public static void runInBulkhead(Bulkhead bulkhead, Runnable action) {
+    inBulkhead(bulkhead, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  @Override
+  public Connection getConnection() throws SQLException {
+    HikariDataSource pool = pools.get(currentBulkhead());
+    if (!readsFromReplica()) {
+      return pool.getConnection();
+    }
+    try {
+      return replica.getConnection();
+    } catch (SQLException e) {
+      health.markUnavailable(e);
+      return pool.getConnection();
+    }
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) throws SQLException {
+    HikariDataSource pool = pools.get(currentBulkhead());
+    if (!readsFromReplica()) {
+      return pool.getConnection(username, password);
+    }
+    try {
+      return replica.getConnection(username, password);
+    } catch (SQLException e) {
+      health.markUnavailable(e);
+      return pool.getConnection(username, password);
+    }
+  }
+
+  @Override
+  public void close() {
+    if (health != null) {
+      health.close();
+    }
+    if (replica != null) {
+      replica.close();
+    }
+    pools.values().stream().distinct().forEach(HikariDataSource::close);
+  }
+
+  private static Bulkhead currentBulkhead() {
+    Bulkhead bulkhead = BULKHEAD.get();
+    if (bulkhead != null) {
+      return bulkhead;
+    }
+    return TransactionSynchronizationManager.isCurrentTransactionReadOnly() ? Bulkhead.READS : Bulkhead.UPDATES;
+  }
+
+  private boolean readsFromReplica() {
+    return replica != null
+      && TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+      && PRIMARY_PINNED.get() == null
+      && health.isAvailable();
+  }
+
+  private static <V, T> T with(ThreadLocal<V> holder, V value, Supplier<T> action) {
+    V previous = holder.get();
+    holder.set(value);
+    try {
+      return action.get();
+    } finally {
+      if (previous == null) {
+        holder.remove();
+      } else {
+        holder.set(previous);
+      }
+    }
+  }
+}
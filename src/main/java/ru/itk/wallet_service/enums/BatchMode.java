@@ -0,0 +1,16 @@
+package ru.itk.wallet_service.enums;
+
+/**
+ * Режим применения пакета операций.
+ */
+public enum BatchMode {
+  /**
+   * Все операции применяются в одной транзакции; при любой ошибке пакет откатывается целиком.
+   */
+  ALL_OR_NOTHING,
+
+  /**
+   * Операции применяются частями; неуспешные операции пропускаются, остальные фиксируются.
+   */
+  BEST_EFFORT
+}
@@ -0,0 +1,31 @@
+package ru.itk.wallet_service.enums;
+
+/**
+ * Итог выполнения операции из пакета.
+ */
+public enum OperationStatus {
+  /**
+   * Операция применена и зафиксирована.
+   */
+  APPLIED,
+
+  /**
+   * Операция отклонена: кошелёк не найден, недостаточно средств и т.п.
+   */
+  REJECTED,
+
+  /**
+   * Операция не применена: строки кошельков заблокированы другой транзакцией. Операцию можно повторить.
+   */
+  BUSY,
+
+  /**
+   * Операция не применена из-за внутренней ошибки сервиса.
+   */
+  FAILED,
+
+  /**
+   * Операция была выполнима, но откачена вместе с пакетом из-за ошибки другой операции.
+   */
+  ROLLED_BACK
+}
@@ -0,0 +1,28 @@
+package ru.itk.wallet_service.enums;
+
+/**
+ * Стратегия изменения баланса кошелька.
+ */
+public enum UpdateMode {
+  /**
+   * Чтение строки с блокировкой SELECT ... FOR UPDATE, расчёт в Java и сохранение сущности.
+   */
+  PESSIMISTIC,
+
+  /**
+   * Один условный UPDATE ... RETURNING без удержания блокировки между запросами.
+   */
+  ATOMIC,
+
+  /**
+   * Чтение строки без блокировки и сохранение с проверкой версии. При конфликте версий
+   * операция повторяется в новой транзакции с экспоненциальной задержкой.
+   */
+  OPTIMISTIC,
+
+  /**
+   * OPTIMISTIC для кошельков без конкуренции и PESSIMISTIC для кошельков,
+   * на которых недавно были конфликты версий.
+   */
+  ADAPTIVE
+}
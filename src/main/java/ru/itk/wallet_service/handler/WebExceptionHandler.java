@@ -5,10 +5,14 @@ import jakarta.persistence.PessimisticLockException;
 import lombok.RequiredArgsConstructor;
 import lombok.SneakyThrows;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.validation.ObjectError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -16,9 +20,18 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.ServletWebRequest;
 import org.springframework.web.context.request.WebRequest;
+import ru.itk.wallet_service.handler.exception.BalanceOverflowException;
+import ru.itk.wallet_service.handler.exception.ConcurrencyLimitExceededException;
 import ru.itk.wallet_service.handler.exception.EntityNotFoundException;
+import ru.itk.wallet_service.handler.exception.IdempotencyKeyMismatchException;
 import ru.itk.wallet_service.handler.exception.InsufficientFundsException;
+import ru.itk.wallet_service.handler.exception.InvalidIdempotencyKeyException;
 import ru.itk.wallet_service.handler.exception.InvalidOperationTypeException;
+import ru.itk.wallet_service.handler.exception.JournalModeException;
+import ru.itk.wallet_service.handler.exception.WalletLockTimeoutException;
+import ru.itk.wallet_service.handler.exception.WalletOperationTimeoutException;
+import ru.itk.wallet_service.handler.exception.WalletUpdateConflictException;
+import ru.itk.wallet_service.service.metrics.WalletMetrics;
 
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -29,31 +42,98 @@ import java.util.stream.Collectors;
 @RestControllerAdvice
 @RequiredArgsConstructor
 public class WebExceptionHandler {
-  private static final String DEFAULT_MESSAGE = "Внутренняя ошибка сервиса";
+  public static final String DEFAULT_MESSAGE = "Внутренняя ошибка сервиса";
+  public static final String LOCK_MESSAGE = "Ресурс занят. Повторите запрос позже";
+
+  private final WalletMetrics metrics;
 
   @SneakyThrows
-  @ExceptionHandler({PessimisticLockException.class, LockTimeoutException.class})
+  @ExceptionHandler({PessimisticLockException.class, LockTimeoutException.class, PessimisticLockingFailureException.class,
+    WalletLockTimeoutException.class})
   public ResponseEntity<Object> handleLockExceptions(Exception exception, ServletWebRequest webRequest) {
-    return handleException("Ресурс занят. Повторите запрос позже", HttpStatus.CONFLICT, webRequest);
+    metrics.countError("lock_timeout");
+    return handleRejection(LOCK_MESSAGE, HttpStatus.CONFLICT, webRequest);
   }
 
 
   @SneakyThrows
   @ExceptionHandler(EntityNotFoundException.class)
   public ResponseEntity<Object> handleEntityNotFoundException(EntityNotFoundException exception, ServletWebRequest webRequest) {
-    return handleException(exception.getMessage(), HttpStatus.NOT_FOUND, webRequest);
+    metrics.countError("not_found");
+    return handleRejection(exception.getMessage(), HttpStatus.NOT_FOUND, webRequest);
   }
 
   @SneakyThrows
   @ExceptionHandler(InsufficientFundsException.class)
   public ResponseEntity<Object> handleInsufficientFundsException(InsufficientFundsException exception, ServletWebRequest webRequest) {
-    return handleException(exception.getMessage(), HttpStatus.CONFLICT, webRequest);
+    metrics.countError("insufficient_funds");
+    return handleRejection(exception.getMessage(), HttpStatus.CONFLICT, webRequest);
+  }
+
+  @SneakyThrows
+  @ExceptionHandler(BalanceOverflowException.class)
+  public ResponseEntity<Object> handleBalanceOverflowException(BalanceOverflowException exception, ServletWebRequest webRequest) {
+    metrics.countError("balance_overflow");
+    return handleRejection(exception.getMessage(), HttpStatus.CONFLICT, webRequest);
+  }
+
+  @SneakyThrows
+  @ExceptionHandler(WalletUpdateConflictException.class)
+  public ResponseEntity<Object> handleWalletUpdateConflictException(WalletUpdateConflictException exception, ServletWebRequest webRequest) {
+    metrics.countError("update_conflict");
+    return handleRejection(exception.getMessage(), HttpStatus.CONFLICT, webRequest);
+  }
+
+  @SneakyThrows
+  @ExceptionHandler(JournalModeException.class)
+  public ResponseEntity<Object> handleJournalModeException(JournalModeException exception, ServletWebRequest webRequest) {
+    metrics.countError("journal_mode");
+    return handleRejection(exception.getMessage(), HttpStatus.CONFLICT, webRequest);
+  }
+
+  @SneakyThrows
+  @ExceptionHandler(WalletOperationTimeoutException.class)
+  public ResponseEntity<Object> handleWalletOperationTimeoutException(WalletOperationTimeoutException exception, ServletWebRequest webRequest) {
+    return handleException(exception.getMessage(), HttpStatus.SERVICE_UNAVAILABLE, webRequest);
+  }
+
+  @SneakyThrows
+  @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+  public ResponseEntity<Object> handleConnectionUnavailable(Exception exception, ServletWebRequest webRequest) {
+    metrics.countError("connection_unavailable");
+    ResponseEntity<Object> response = handleException("Сервис перегружен. Повторите запрос позже",
+      HttpStatus.SERVICE_UNAVAILABLE, webRequest);
+    log.warn(exception.getMessage());
+    return response;
+  }
+
+  @SneakyThrows
+  @ExceptionHandler(ConcurrencyLimitExceededException.class)
+  public ResponseEntity<Object> handleConcurrencyLimitExceededException(ConcurrencyLimitExceededException exception, ServletWebRequest webRequest) {
+    metrics.countError("concurrency_limit");
+    ErrorDto errorDto = buildErrorDto(exception.getMessage(), HttpStatus.TOO_MANY_REQUESTS, webRequest);
+    return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+      .header(HttpHeaders.RETRY_AFTER, String.valueOf(exception.getRetryAfterSeconds()))
+      .body(errorDto);
   }
 
   @SneakyThrows
   @ExceptionHandler(InvalidOperationTypeException.class)
   public ResponseEntity<Object> handleInvalidOperationTypeException(InvalidOperationTypeException exception, ServletWebRequest webRequest) {
-    return handleException(exception.getMessage(), HttpStatus.BAD_REQUEST, webRequest);
+    return handleRejection(exception.getMessage(), HttpStatus.BAD_REQUEST, webRequest);
+  }
+
+  @SneakyThrows
+  @ExceptionHandler(InvalidIdempotencyKeyException.class)
+  public ResponseEntity<Object> handleInvalidIdempotencyKeyException(InvalidIdempotencyKeyException exception, ServletWebRequest webRequest) {
+    return handleRejection(exception.getMessage(), HttpStatus.BAD_REQUEST, webRequest);
+  }
+
+  @SneakyThrows
+  @ExceptionHandler(IdempotencyKeyMismatchException.class)
+  public ResponseEntity<Object> handleIdempotencyKeyMismatchException(IdempotencyKeyMismatchException exception, ServletWebRequest webRequest) {
+    metrics.countError("idempotency_mismatch");
+    return handleRejection(exception.getMessage(), HttpStatus.UNPROCESSABLE_ENTITY, webRequest);
   }
 
   @SneakyThrows
@@ -111,6 +191,15 @@ public class WebExceptionHandler {
     return ResponseEntity.status(status).body(errorDto);
   }
 
+  /**
+   * Ответ на ожидаемый отказ: недостаточно средств, кошелёк не найден, блокировка занята и т.п.
+   * Под нагрузкой это обычный исход операции, поэтому он пишется в лог только на уровне debug.
+   */
+  private ResponseEntity<Object> handleRejection(String message, HttpStatus status, WebRequest request) {
+    log.debug(message);
+    return ResponseEntity.status(status).body(buildErrorDto(message, status, request));
+  }
+
   private ErrorDto buildErrorDto(String message, HttpStatus status, WebRequest request) {
     return ErrorDto.builder()
       .message(message)
@@ -0,0 +1,24 @@
+package ru.itk.wallet_service.handler.exception;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Исключение выбрасывается, когда после пополнения баланс кошелька
+ * не помещается в диапазон минорных единиц.
+ */
+@Getter
+public class BalanceOverflowException extends BusinessException {
+
+  private static final String MESSAGE_FORMAT = "Пополнение счёта %s на сумму %s превышает максимально допустимый баланс";
+
+  private final UUID walletId;
+  private final Number attemptedAmount;
+
+  public BalanceOverflowException(UUID walletId, Number attemptedAmount) {
+    super(String.format(MESSAGE_FORMAT, walletId, attemptedAmount));
+    this.walletId = walletId;
+    this.attemptedAmount = attemptedAmount;
+  }
+}
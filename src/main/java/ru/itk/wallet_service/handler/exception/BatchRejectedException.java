@@ -0,0 +1,23 @@
+package ru.itk.wallet_service.handler.exception;
+
+import lombok.Getter;
+import ru.itk.wallet_service.service.model.OperationResult;
+
+import java.util.List;
+
+/**
+ * Исключение выбрасывается, чтобы откатить транзакцию пакета в режиме «всё или ничего»,
+ * если хотя бы одна операция отклонена. Содержит результаты всех операций пакета.
+ */
+@Getter
+public class BatchRejectedException extends BusinessException {
+
+  private static final String MESSAGE = "Пакет операций отклонён";
+
+  private final transient List<OperationResult> results;
+
+  public BatchRejectedException(List<OperationResult> results) {
+    super(MESSAGE);
+    this.results = results;
+  }
+}
@@ -0,0 +1,16 @@
+package ru.itk.wallet_service.handler.exception;
+
+/**
+ * Базовое исключение для ожидаемых отказов бизнес-логики, которые обработчик превращает в ответ 4xx/5xx.
+ * <p>
+ * Исключение создаётся без стека вызовов и без подавленных исключений: под нагрузкой такие отказы
+ * (недостаточно средств, кошелёк не найден, блокировка занята) составляют заметную долю ответов,
+ * а заполнение стека — основная часть стоимости исключения. Стек ничего не говорит о причине отказа:
+ * она целиком описана сообщением и полями исключения.
+ */
+public abstract class BusinessException extends RuntimeException {
+
+  protected BusinessException(String message) {
+    super(message, null, false, false);
+  }
+}
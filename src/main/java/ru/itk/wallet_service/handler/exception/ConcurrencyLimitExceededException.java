@@ -0,0 +1,31 @@
+package ru.itk.wallet_service.handler.exception;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Исключение выбрасывается, когда запрос превышает предел одновременных запросов сервиса
+ * или одного кошелька и отклоняется до начала выполнения.
+ */
+@Getter
+public class ConcurrencyLimitExceededException extends BusinessException {
+
+  private static final String MESSAGE = "Сервис перегружен. Повторите запрос позже";
+  private static final String WALLET_MESSAGE_FORMAT = "Слишком много одновременных запросов к кошельку %s. Повторите запрос позже";
+
+  private final UUID walletId;
+  private final long retryAfterSeconds;
+
+  public ConcurrencyLimitExceededException(long retryAfterSeconds) {
+    super(MESSAGE);
+    this.walletId = null;
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public ConcurrencyLimitExceededException(UUID walletId, long retryAfterSeconds) {
+    super(String.format(WALLET_MESSAGE_FORMAT, walletId));
+    this.walletId = walletId;
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+}
@@ -2,7 +2,7 @@ package ru.itk.wallet_service.handler.exception;
 
 import ru.itk.wallet_service.enums.EntityType;
 
-public class EntityNotFoundException extends RuntimeException {
+public class EntityNotFoundException extends BusinessException {
 
   private static final String MESSAGE_BY_ID_FORMAT = "%s с id %s не существует";
 
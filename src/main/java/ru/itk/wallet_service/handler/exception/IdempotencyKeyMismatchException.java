@@ -0,0 +1,23 @@
+package ru.itk.wallet_service.handler.exception;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Исключение выбрасывается, когда ключ идемпотентности повторно передан с другим типом или суммой операции.
+ */
+@Getter
+public class IdempotencyKeyMismatchException extends BusinessException {
+
+  private static final String MESSAGE_FORMAT = "Ключ идемпотентности %s уже использован для другой операции над кошельком %s";
+
+  private final UUID walletId;
+  private final String idempotencyKey;
+
+  public IdempotencyKeyMismatchException(UUID walletId, String idempotencyKey) {
+    super(String.format(MESSAGE_FORMAT, idempotencyKey, walletId));
+    this.walletId = walletId;
+    this.idempotencyKey = idempotencyKey;
+  }
+}
@@ -9,7 +9,7 @@ import java.util.UUID;
  * на счёте недостаточно средств для проведения операции.
  */
 @Getter
-public class InsufficientFundsException extends RuntimeException {
+public class InsufficientFundsException extends BusinessException {
 
   private static final String MESSAGE_FORMAT = "Недостаточно средств на счёте %s для списания суммы %s";
 
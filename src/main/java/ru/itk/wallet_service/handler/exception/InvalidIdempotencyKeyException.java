@@ -0,0 +1,19 @@
+package ru.itk.wallet_service.handler.exception;
+
+import lombok.Getter;
+
+/**
+ * Исключение выбрасывается, когда заголовок Idempotency-Key пустой или слишком длинный.
+ */
+@Getter
+public class InvalidIdempotencyKeyException extends BusinessException {
+
+  private static final String MESSAGE_FORMAT = "Ключ идемпотентности должен содержать от 1 до %d символов";
+
+  private final String idempotencyKey;
+
+  public InvalidIdempotencyKeyException(String idempotencyKey, int maxLength) {
+    super(String.format(MESSAGE_FORMAT, maxLength));
+    this.idempotencyKey = idempotencyKey;
+  }
+}
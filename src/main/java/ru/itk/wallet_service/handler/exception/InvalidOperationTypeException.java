@@ -7,7 +7,7 @@ import ru.itk.wallet_service.db.enums.OperationType;
  * Исключение выбрасывается, когда передан неизвестный или неподдерживаемый тип операции.
  */
 @Getter
-public class InvalidOperationTypeException extends RuntimeException {
+public class InvalidOperationTypeException extends BusinessException {
 
   private static final String MESSAGE_FORMAT = "Неизвестный тип операции: %s";
 
@@ -0,0 +1,14 @@
+package ru.itk.wallet_service.handler.exception;
+
+/**
+ * Исключение выбрасывается, когда в режиме локального журнала вызвана операция транзакционного пути.
+ * В этом режиме балансы ведутся в памяти журнала, и запись в базу в обход него разошлась бы с ними.
+ */
+public class JournalModeException extends BusinessException {
+
+  private static final String MESSAGE = "Операция недоступна в режиме локального журнала";
+
+  public JournalModeException() {
+    super(MESSAGE);
+  }
+}
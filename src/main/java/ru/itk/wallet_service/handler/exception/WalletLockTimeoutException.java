@@ -0,0 +1,22 @@
+package ru.itk.wallet_service.handler.exception;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Исключение выбрасывается, когда за отведённое время не удалось
+ * дождаться очереди на изменение кошелька внутри приложения.
+ */
+@Getter
+public class WalletLockTimeoutException extends BusinessException {
+
+  private static final String MESSAGE_FORMAT = "Не удалось дождаться блокировки кошелька %s";
+
+  private final UUID walletId;
+
+  public WalletLockTimeoutException(UUID walletId) {
+    super(String.format(MESSAGE_FORMAT, walletId));
+    this.walletId = walletId;
+  }
+}
@@ -0,0 +1,23 @@
+package ru.itk.wallet_service.handler.exception;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Исключение выбрасывается, когда асинхронная операция над кошельком уже начала выполняться,
+ * но не завершилась за отведённое время. Операция может быть применена позже.
+ */
+@Getter
+public class WalletOperationTimeoutException extends BusinessException {
+
+  private static final String MESSAGE_FORMAT =
+    "Операция над кошельком %s не завершилась за отведённое время, проверьте баланс перед повтором";
+
+  private final UUID walletId;
+
+  public WalletOperationTimeoutException(UUID walletId) {
+    super(String.format(MESSAGE_FORMAT, walletId));
+    this.walletId = walletId;
+  }
+}
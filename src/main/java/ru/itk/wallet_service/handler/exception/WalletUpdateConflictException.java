@@ -0,0 +1,24 @@
+package ru.itk.wallet_service.handler.exception;
+
+import lombok.Getter;
+
+import java.util.UUID;
+
+/**
+ * Исключение выбрасывается, когда оптимистичное обновление кошелька
+ * не удалось из-за конфликтов версий за отведённое количество попыток.
+ */
+@Getter
+public class WalletUpdateConflictException extends BusinessException {
+
+  private static final String MESSAGE_FORMAT = "Кошелёк %s изменяется конкурентно, операция не применена за %d попыток";
+
+  private final UUID walletId;
+  private final int attempts;
+
+  public WalletUpdateConflictException(UUID walletId, int attempts) {
+    super(String.format(MESSAGE_FORMAT, walletId, attempts));
+    this.walletId = walletId;
+    this.attempts = attempts;
+  }
+}
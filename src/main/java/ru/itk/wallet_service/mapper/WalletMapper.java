@@ -4,9 +4,13 @@ import org.mapstruct.Mapper;
 import ru.itk.wallet_service.db.entity.Wallet;
 import ru.itk.wallet_service.web.dto.WalletDto;
 
+import java.util.List;
+
 @Mapper(componentModel = "spring")
 public interface WalletMapper {
 
   WalletDto toDto(Wallet entity);
 
+  List<WalletDto> toDto(List<Wallet> entities);
+
 }
@@ -0,0 +1,20 @@
+package ru.itk.wallet_service.mapper;
+
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import ru.itk.wallet_service.db.model.WalletOperation;
+import ru.itk.wallet_service.money.MinorUnits;
+import ru.itk.wallet_service.service.model.OperationPage;
+import ru.itk.wallet_service.web.dto.OperationDto;
+import ru.itk.wallet_service.web.dto.OperationPageDto;
+
+@Mapper(componentModel = "spring", imports = MinorUnits.class)
+public interface WalletOperationMapper {
+
+  @Mapping(target = "amount", expression = "java(MinorUnits.toDecimal(entity.getAmount()))")
+  @Mapping(target = "balance", expression = "java(MinorUnits.toDecimal(entity.getBalance()))")
+  OperationDto toDto(WalletOperation entity);
+
+  OperationPageDto toDto(OperationPage page);
+
+}
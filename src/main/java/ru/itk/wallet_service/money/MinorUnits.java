@@ -0,0 +1,23 @@
+package ru.itk.wallet_service.money;
+
+import lombok.experimental.UtilityClass;
+
+import java.math.BigDecimal;
+
+/**
+ * Перевод сумм между десятичным представлением API и целыми минорными единицами (копейками),
+ * в которых баланс хранится и считается. Оба перевода точные: лишние знаки после запятой
+ * и выход за пределы {@code long} приводят к {@link ArithmeticException}, а не к округлению.
+ */
+@UtilityClass
+public class MinorUnits {
+  public static final int SCALE = 2;
+
+  public static long toMinor(BigDecimal amount) {
+    return amount.movePointRight(SCALE).longValueExact();
+  }
+
+  public static BigDecimal toDecimal(long minor) {
+    return BigDecimal.valueOf(minor, SCALE);
+  }
+}
@@ -0,0 +1,118 @@
+package ru.itk.wallet_service.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.db.routing.RecentWrites;
+import ru.itk.wallet_service.service.cache.WalletBalanceCache;
+import ru.itk.wallet_service.service.combiner.WalletOperationCombiner;
+import ru.itk.wallet_service.service.hot.HotWalletDetector;
+import ru.itk.wallet_service.service.idempotency.IdempotencyKeyStore;
+import ru.itk.wallet_service.service.journal.WalletJournal;
+import ru.itk.wallet_service.service.lock.WalletStripedLock;
+import ru.itk.wallet_service.service.optimistic.OptimisticWalletUpdater;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Точка входа для изменения и чтения баланса. Выбирает путь выполнения операции
+ * до открытия транзакции в {@link WalletService}.
+ */
+@Service
+@RequiredArgsConstructor
+public class WalletOperationDispatcher {
+  private final WalletService service;
+  private final WalletOperationCombiner combiner;
+  private final WalletStripedLock stripedLock;
+  private final WalletBalanceCache balanceCache;
+  private final RecentWrites recentWrites;
+  private final IdempotencyKeyStore idempotencyKeys;
+  private final OptimisticWalletUpdater optimisticUpdater;
+  private final HotWalletDetector hotWallets;
+  private final WalletJournal journal;
+  private final WalletProperties properties;
+
+  /**
+   * Горячие кошельки ({@link HotWalletDetector}) изменяются через комбайнер, даже если он выключен
+   * для всех кошельков: конкурирующие операции над ними применяются общей транзакцией.
+   * Пополнения шардированных кошельков зачисляются в слоты до комбайнера: пакет комбайнера блокирует
+   * строку кошелька и сворачивает слоты, а шардирование нужно как раз для того, чтобы этого избежать.
+   * В режиме локального журнала операция только записывается в журнал ({@link WalletJournal}).
+   */
+  public Wallet updateWallet(SaveWalletDto dto) {
+    if (journal.isEnabled()) {
+      return journal.update(dto);
+    }
+    hotWallets.recordWrite(dto.getWalletId());
+    if (properties.getCombiner().isEnabled() || hotWallets.isHot(dto.getWalletId())) {
+      return depositToShard(dto).orElseGet(() -> combiner.update(dto));
+    }
+    if (properties.getLock().isEnabled()) {
+      return stripedLock.executeLocked(dto.getWalletId(), () -> apply(dto));
+    }
+    return apply(dto);
+  }
+
+  /**
+   * Изменяет баланс не более одного раза для пары кошелёк и ключ идемпотентности.
+   * Повтор с той же операцией возвращает сохранённый результат первого выполнения, повтор с другим типом
+   * или суммой отклоняется. Такие операции не объединяются комбайнером: ключ занимается в транзакции
+   * каждой операции отдельно.
+   */
+  public Wallet updateWallet(SaveWalletDto dto, String idempotencyKey) {
+    if (idempotencyKey == null) {
+      return updateWallet(dto);
+    }
+    IdempotencyKeyStore.validate(idempotencyKey);
+    return idempotencyKeys.find(dto, idempotencyKey)
+      .orElseGet(() -> updateOnce(dto, idempotencyKey));
+  }
+
+  private Wallet updateOnce(SaveWalletDto dto, String idempotencyKey) {
+    UUID walletId = dto.getWalletId();
+    Supplier<Optional<Wallet>> update = () -> service.updateWalletOnce(dto, idempotencyKey);
+    Optional<Wallet> applied = properties.getLock().isEnabled()
+      ? stripedLock.executeLocked(walletId, update)
+      : update.get();
+    if (applied.isEmpty()) {
+      return idempotencyKeys.load(dto, idempotencyKey)
+        .orElseThrow(() -> new IllegalStateException("Idempotency key disappeared: " + idempotencyKey));
+    }
+    idempotencyKeys.remember(dto, idempotencyKey, applied.get().getAmountMinor());
+    return applied.get();
+  }
+
+  private Optional<Wallet> depositToShard(SaveWalletDto dto) {
+    if (!properties.getSharding().isEnabled() || dto.getOperationType() != OperationType.DEPOSIT) {
+      return Optional.empty();
+    }
+    return service.depositToShard(dto);
+  }
+
+  /**
+   * Повторы оптимистичного обновления выполняются здесь, вне транзакции: каждая попытка открывает новую.
+   */
+  private Wallet apply(SaveWalletDto dto) {
+    if (optimisticUpdater.appliesTo(dto.getWalletId())) {
+      return optimisticUpdater.update(dto);
+    }
+    return service.updateWallet(dto);
+  }
+
+  /**
+   * Баланс из кэша; транзакция открывается только при промахе. В режиме локального журнала —
+   * из памяти журнала: база отстаёт от него на неприменённые записи. При чтении с реплики
+   * недавно изменённый кошелёк читается из основной базы ({@link RecentWrites}).
+   */
+  public Wallet getBalance(UUID walletId) {
+    if (journal.isEnabled()) {
+      return journal.getBalance(walletId);
+    }
+    return balanceCache.get(walletId, id -> recentWrites.read(id, () -> service.getBalance(id)));
+  }
+}
@@ -1,8 +1,12 @@
 package ru.itk.wallet_service.service;
 
 import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.service.model.OperationResult;
 import ru.itk.wallet_service.web.dto.SaveWalletDto;
+import ru.itk.wallet_service.web.dto.TransferDto;
 
+import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
 
 public interface WalletService {
@@ -10,5 +14,71 @@ public interface WalletService {
 
   Wallet updateWallet(SaveWalletDto dto);
 
+  /**
+   * Изменяет баланс и сохраняет результат под ключом идемпотентности в той же транзакции.
+   *
+   * @return пустой результат, если ключ уже использован для этого кошелька; строка кошелька при этом не изменяется
+   */
+  Optional<Wallet> updateWalletOnce(SaveWalletDto dto, String idempotencyKey);
+
+  /**
+   * Изменяет баланс без блокировки строки кошелька, проверяя версию при сохранении.
+   *
+   * @throws org.springframework.dao.OptimisticLockingFailureException если кошелёк изменён другой транзакцией
+   */
+  Wallet updateWalletOptimistically(SaveWalletDto dto);
+
+  /**
+   * Применяет операции над одним кошельком по порядку в одной транзакции
+   * с однократной блокировкой строки.
+   *
+   * @return результат для каждой операции в порядке их передачи
+   */
+  List<OperationResult> updateWalletBatch(UUID walletId, List<SaveWalletDto> operations);
+
+  /**
+   * Применяет операции над многими кошельками в одной транзакции. Все затронутые кошельки
+   * блокируются одним запросом в порядке идентификаторов, поэтому встречные пакеты не взаимоблокируются.
+   *
+   * @param allOrNothing откатить транзакцию, если хотя бы одна операция отклонена
+   * @return результат для каждой операции в порядке их передачи
+   * @throws ru.itk.wallet_service.handler.exception.BatchRejectedException если allOrNothing и есть отклонённые операции
+   */
+  List<OperationResult> updateWallets(List<SaveWalletDto> operations, boolean allOrNothing);
+
+  /**
+   * Списывает сумму с одного кошелька и зачисляет на другой в одной транзакции.
+   * Обе строки блокируются в порядке идентификаторов, поэтому встречные переводы не взаимоблокируются.
+   *
+   * @return кошельки отправителя и получателя после перевода, в этом порядке
+   */
+  List<Wallet> transfer(TransferDto dto);
+
+  /**
+   * Взаимозачитывает переводы и применяет к каждому кошельку одно итоговое изменение в одной транзакции.
+   * Средств должно хватать на итоговое изменение, промежуточные балансы не проверяются.
+   *
+   * @return затронутые кошельки после применения в порядке первого упоминания
+   */
+  List<Wallet> transferBatch(List<TransferDto> transfers);
+
+  /**
+   * Переводит кошелёк в шардированный режим с указанным количеством слотов
+   * (или меняет их количество), перенося текущие остатки слотов в основной баланс.
+   */
+  Wallet shardWallet(UUID walletId, int shardCount);
+
+  /**
+   * Возвращает кошелёк в режим одной строки, перенося остатки слотов в основной баланс.
+   */
+  Wallet unshardWallet(UUID walletId);
+
+  /**
+   * Зачисляет пополнение в случайный слот шардированного кошелька, не блокируя основную строку.
+   *
+   * @return пустой результат, если шардирование выключено, операция не пополнение или кошелёк не шардирован
+   */
+  Optional<Wallet> depositToShard(SaveWalletDto dto);
+
   Wallet getBalance(UUID walletId);
 }
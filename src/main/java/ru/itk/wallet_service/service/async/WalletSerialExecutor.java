@@ -0,0 +1,168 @@
+package ru.itk.wallet_service.service.async;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.handler.exception.WalletLockTimeoutException;
+import ru.itk.wallet_service.handler.exception.WalletOperationTimeoutException;
+
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Выполняет операции над кошельками на собственном пуле потоков, последовательно для каждого кошелька.
+ * <p>
+ * У каждого кошелька с незавершёнными операциями есть очередь. Очередь обрабатывается одним потоком пула
+ * за раз, поэтому горячий кошелёк занимает не больше одного потока и одного соединения, а поток Tomcat
+ * освобождается сразу после постановки операции в очередь. Пустая очередь удаляется.
+ * <p>
+ * Операция, не начавшая выполняться до истечения таймаута или до разрыва соединения клиентом, отменяется
+ * и не применяется. Уже начавшаяся операция доводится до конца, а клиент получает ответ о неизвестном результате.
+ */
+@Slf4j
+@Component
+public class WalletSerialExecutor {
+  private static final int DRAIN_BATCH = 64;
+
+  private final ExecutorService pool;
+  private final Map<UUID, WalletQueue> queues = new ConcurrentHashMap<>();
+  private final AtomicInteger pending = new AtomicInteger();
+  private final long timeoutMillis;
+  private final int maxPending;
+
+  public WalletSerialExecutor(WalletProperties properties) {
+    WalletProperties.Async settings = properties.getAsync();
+    this.timeoutMillis = settings.getTimeout().toMillis();
+    this.maxPending = Math.max(1, settings.getMaxPending());
+    AtomicInteger threadNumber = new AtomicInteger();
+    this.pool = Executors.newFixedThreadPool(Math.max(1, settings.getPoolSize()), runnable -> {
+      Thread thread = new Thread(runnable, "wallet-async-" + threadNumber.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Ставит операцию в очередь кошелька. Результат или исключение операции передаются в {@link DeferredResult},
+   * исключения обрабатываются так же, как в синхронных методах контроллера.
+   */
+  public <T> DeferredResult<T> submit(UUID walletId, Supplier<T> operation) {
+    DeferredResult<T> result = new DeferredResult<>(timeoutMillis);
+    if (pending.incrementAndGet() > maxPending) {
+      pending.decrementAndGet();
+      result.setErrorResult(new WalletLockTimeoutException(walletId));
+      return result;
+    }
+
+    Task<T> task = new Task<>(operation, result);
+    result.onTimeout(() -> result.setErrorResult(task.cancel()
+      ? new WalletLockTimeoutException(walletId)
+      : new WalletOperationTimeoutException(walletId)));
+    result.onError(error -> task.cancel());
+
+    WalletQueue queue = queues.compute(walletId, (id, current) -> {
+      WalletQueue target = current == null ? new WalletQueue() : current;
+      target.tasks.add(task);
+      return target;
+    });
+    if (queue.scheduled.compareAndSet(false, true)) {
+      pool.execute(() -> drain(walletId, queue));
+    }
+    return result;
+  }
+
+  /**
+   * Выполняет до {@link #DRAIN_BATCH} задач кошелька. Очередь снимается или перепланируется в finally,
+   * поэтому даже {@link Error} из операции не оставляет кошелёк с навсегда занятой очередью.
+   */
+  private void drain(UUID walletId, WalletQueue queue) {
+    try {
+      for (int i = 0; i < DRAIN_BATCH; i++) {
+        Task<?> task = queue.tasks.poll();
+        if (task == null) {
+          break;
+        }
+        pending.decrementAndGet();
+        task.run();
+      }
+    } finally {
+      // очередь удаляется под тем же ключом, под которым в неё добавляются задачи,
+      // поэтому новая задача либо попадёт в эту очередь до удаления, либо создаст новую
+      WalletQueue remaining = queues.compute(walletId, (id, current) -> {
+        if (current == queue && queue.tasks.isEmpty()) {
+          queue.scheduled.set(false);
+          return null;
+        }
+        return current;
+      });
+      if (remaining == queue) {
+        // ставим продолжение в конец очереди пула, чтобы не задерживать другие кошельки
+        pool.execute(() -> drain(walletId, queue));
+      }
+    }
+  }
+
+  @PreDestroy
+  public void shutdown() throws InterruptedException {
+    pool.shutdown();
+    if (!pool.awaitTermination(timeoutMillis, TimeUnit.MILLISECONDS)) {
+      log.warn("Wallet async executor did not finish queued operations in {} ms", timeoutMillis);
+      pool.shutdownNow();
+    }
+  }
+
+  private static final class WalletQueue {
+    final Queue<Task<?>> tasks = new ConcurrentLinkedQueue<>();
+    final AtomicBoolean scheduled = new AtomicBoolean();
+  }
+
+  private static final class Task<T> {
+    private static final int PENDING = 0;
+    private static final int RUNNING = 1;
+    private static final int CANCELLED = 2;
+
+    private final Supplier<T> operation;
+    private final DeferredResult<T> result;
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    Task(Supplier<T> operation, DeferredResult<T> result) {
+      this.operation = operation;
+      this.result = result;
+    }
+
+    /**
+     * @return true, если операция ещё не начиналась и теперь не будет выполнена
+     */
+    boolean cancel() {
+      return state.compareAndSet(PENDING, CANCELLED) || state.get() == CANCELLED;
+    }
+
+    /**
+     * Любая ошибка операции передаётся клиенту. {@link Error} после этого пробрасывается дальше.
+     */
+    void run() {
+      if (!state.compareAndSet(PENDING, RUNNING)) {
+        return;
+      }
+      try {
+        result.setResult(operation.get());
+      } catch (Throwable e) {
+        result.setErrorResult(e);
+        if (e instanceof Error error) {
+          throw error;
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,58 @@
+package ru.itk.wallet_service.service.batch;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.enums.BatchMode;
+import ru.itk.wallet_service.handler.exception.BatchRejectedException;
+import ru.itk.wallet_service.service.WalletService;
+import ru.itk.wallet_service.service.model.OperationResult;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Применяет пакет операций над многими кошельками.
+ * <p>
+ * В режиме {@link BatchMode#ALL_OR_NOTHING} весь пакет выполняется одной транзакцией.
+ * В режиме {@link BatchMode#BEST_EFFORT} пакет делится на части по {@code chunk-size} операций,
+ * каждая часть фиксируется отдельной транзакцией.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WalletBatchProcessor {
+  private final WalletService service;
+  private final WalletProperties properties;
+
+  public List<OperationResult> process(List<SaveWalletDto> operations, BatchMode mode) {
+    if (mode == BatchMode.ALL_OR_NOTHING) {
+      return processAtomically(operations);
+    }
+
+    int chunkSize = Math.max(1, properties.getBatch().getChunkSize());
+    List<OperationResult> results = new ArrayList<>(operations.size());
+    for (int from = 0; from < operations.size(); from += chunkSize) {
+      List<SaveWalletDto> chunk = operations.subList(from, Math.min(from + chunkSize, operations.size()));
+      try {
+        results.addAll(service.updateWallets(chunk, false));
+      } catch (RuntimeException e) {
+        log.warn("Batch chunk of {} operations failed", chunk.size(), e);
+        chunk.forEach(operation -> results.add(OperationResult.failure(e)));
+      }
+    }
+    return results;
+  }
+
+  private List<OperationResult> processAtomically(List<SaveWalletDto> operations) {
+    try {
+      return service.updateWallets(operations, true);
+    } catch (BatchRejectedException e) {
+      return e.getResults().stream()
+        .map(result -> result.isSuccess() ? OperationResult.rolledBack() : result)
+        .toList();
+    }
+  }
+}
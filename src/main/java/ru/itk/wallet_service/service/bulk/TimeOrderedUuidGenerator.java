@@ -0,0 +1,73 @@
+package ru.itk.wallet_service.service.bulk;
+
+import org.springframework.stereotype.Component;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Генератор UUID версии 7 (RFC 9562): старшие 48 бит — время в миллисекундах,
+ * поэтому новые идентификаторы попадают в правый край B-дерева первичного ключа, а не в случайные страницы.
+ * <p>
+ * Внутри одной миллисекунды 12 бит {@code rand_a} используются как счётчик, и идентификаторы одного
+ * экземпляра строго возрастают. При исчерпании счётчика время сдвигается на миллисекунду вперёд.
+ * Младшие 62 бита случайные, из {@link SecureRandom}.
+ */
+@Component
+public class TimeOrderedUuidGenerator {
+  private static final int SEQUENCE_MASK = 0xFFF;
+  private static final long VERSION = 0x7000L;
+  private static final long VARIANT = 0x8000_0000_0000_0000L;
+  private static final long RANDOM_MASK = 0x3FFF_FFFF_FFFF_FFFFL;
+
+  private final SecureRandom random = new SecureRandom();
+  private final Clock clock;
+
+  private long lastMillis;
+  private int sequence;
+
+  public TimeOrderedUuidGenerator() {
+    this(Clock.systemUTC());
+  }
+
+  TimeOrderedUuidGenerator(Clock clock) {
+    this.clock = clock;
+  }
+
+  public UUID next() {
+    return next(1).get(0);
+  }
+
+  /**
+   * Возвращает {@code count} возрастающих идентификаторов. Случайные биты берутся одним обращением к генератору.
+   */
+  public List<UUID> next(int count) {
+    ByteBuffer randomBits = ByteBuffer.allocate(count * Long.BYTES);
+    random.nextBytes(randomBits.array());
+
+    List<UUID> ids = new ArrayList<>(count);
+    synchronized (this) {
+      for (int i = 0; i < count; i++) {
+        ids.add(new UUID(nextTimestampAndSequence(), (randomBits.getLong() & RANDOM_MASK) | VARIANT));
+      }
+    }
+    return ids;
+  }
+
+  private long nextTimestampAndSequence() {
+    long now = clock.millis();
+    if (now > lastMillis) {
+      lastMillis = now;
+      // Случайный старт в младшей половине счётчика оставляет запас для идентификаторов этой миллисекунды
+      sequence = random.nextInt(SEQUENCE_MASK / 2);
+    } else if (++sequence > SEQUENCE_MASK) {
+      lastMillis++;
+      sequence = 0;
+    }
+    return (lastMillis << 16) | VERSION | sequence;
+  }
+}
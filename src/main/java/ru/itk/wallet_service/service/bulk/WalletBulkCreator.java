@@ -0,0 +1,61 @@
+package ru.itk.wallet_service.service.bulk;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.repository.WalletBulkRepository;
+import ru.itk.wallet_service.db.routing.Bulkhead;
+import ru.itk.wallet_service.db.routing.RoutingDataSource;
+import ru.itk.wallet_service.service.metrics.WalletMetrics;
+import ru.itk.wallet_service.web.dto.BulkCreateWalletDto;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Массовое создание кошельков порциями по {@code chunk-size}.
+ * <p>
+ * Каждая порция вставляется одним запросом и фиксируется сразу, после чего её идентификаторы
+ * передаются потребителю. При ошибке уже созданные кошельки остаются, а клиент успевает получить их идентификаторы.
+ * Вставки выполняются в пуле массовых задач ({@link Bulkhead#BULK}).
+ */
+@Service
+@RequiredArgsConstructor
+public class WalletBulkCreator {
+  private static final String METRIC = "bulk_create";
+
+  private final WalletBulkRepository repository;
+  private final TimeOrderedUuidGenerator idGenerator;
+  private final WalletMetrics metrics;
+  private final WalletProperties properties;
+
+  /**
+   * @return количество созданных кошельков
+   */
+  public long create(BulkCreateWalletDto request, Consumer<List<UUID>> consumer) {
+    return RoutingDataSource.inBulkhead(Bulkhead.BULK, () -> createAll(request, consumer));
+  }
+
+  private long createAll(BulkCreateWalletDto request, Consumer<List<UUID>> consumer) {
+    int chunkSize = Math.max(1, properties.getBulk().getChunkSize());
+    long created = 0;
+    List<UUID> walletIds = request.getWalletIds();
+    if (walletIds != null) {
+      for (int from = 0; from < walletIds.size(); from += chunkSize) {
+        created += insert(walletIds.subList(from, Math.min(from + chunkSize, walletIds.size())), consumer);
+      }
+      return created;
+    }
+    for (int remaining = request.getCount(); remaining > 0; remaining -= chunkSize) {
+      created += insert(idGenerator.next(Math.min(chunkSize, remaining)), consumer);
+    }
+    return created;
+  }
+
+  private int insert(List<UUID> chunk, Consumer<List<UUID>> consumer) {
+    List<UUID> created = metrics.recordUpdate(METRIC, () -> repository.insertAll(chunk));
+    consumer.accept(created);
+    return created.size();
+  }
+}
@@ -0,0 +1,103 @@
+package ru.itk.wallet_service.service.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Ограниченный кэш балансов кошельков (W-TinyLFU вытеснение Caffeine и TTL).
+ * <p>
+ * Записи попадают в кэш только после фиксации транзакции. Метка записи снимается,
+ * пока транзакция удерживает блокировку строки кошелька, поэтому метки одного кошелька
+ * возрастают в порядке фиксаций, и запоздавшая запись старой транзакции не затирает более новую.
+ * Значения, прочитанные из базы при промахе, имеют наименьшую метку и уступают любой записи.
+ */
+@Component
+public class WalletBalanceCache {
+  public static final String NAME = "walletBalance";
+  private static final long LOADED_STAMP = Long.MIN_VALUE;
+
+  private final Cache<UUID, CachedBalance> cache;
+
+  public WalletBalanceCache(WalletProperties properties, MeterRegistry meterRegistry) {
+    WalletProperties.Cache settings = properties.getCache();
+    if (!settings.isEnabled()) {
+      this.cache = null;
+      return;
+    }
+    this.cache = Caffeine.newBuilder()
+      .maximumSize(settings.getMaximumSize())
+      .expireAfterWrite(settings.getTtl())
+      .recordStats()
+      .build();
+    CaffeineCacheMetrics.monitor(meterRegistry, cache, NAME);
+  }
+
+  /**
+   * Возвращает баланс из кэша. Конкурентные промахи по одному кошельку
+   * объединяются в один вызов {@code loader}.
+   */
+  public Wallet get(UUID walletId, Function<UUID, Wallet> loader) {
+    if (cache == null) {
+      return loader.apply(walletId);
+    }
+    return cache.get(walletId, id -> new CachedBalance(copyOf(loader.apply(id)), LOADED_STAMP)).wallet();
+  }
+
+  /**
+   * Запоминает состояние кошелька после фиксации текущей транзакции.
+   * Вызывается, пока транзакция удерживает блокировку строки кошелька.
+   */
+  public void putAfterCommit(Wallet wallet) {
+    if (cache == null) {
+      return;
+    }
+    CachedBalance update = new CachedBalance(copyOf(wallet), System.nanoTime());
+    afterCommit(() -> cache.asMap().merge(wallet.getWalletId(), update,
+      (current, candidate) -> candidate.stamp() >= current.stamp() ? candidate : current));
+  }
+
+  /**
+   * Удаляет кошелёк из кэша после фиксации текущей транзакции. Используется там,
+   * где изменение не упорядочено блокировкой строки кошелька.
+   */
+  public void evictAfterCommit(UUID walletId) {
+    if (cache == null) {
+      return;
+    }
+    afterCommit(() -> cache.invalidate(walletId));
+  }
+
+  private static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  private static Wallet copyOf(Wallet wallet) {
+    Wallet copy = new Wallet();
+    copy.setWalletId(wallet.getWalletId());
+    copy.setAmountMinor(wallet.getAmountMinor());
+    copy.setShardCount(wallet.getShardCount());
+    return copy;
+  }
+
+  private record CachedBalance(Wallet wallet, long stamp) {
+  }
+}
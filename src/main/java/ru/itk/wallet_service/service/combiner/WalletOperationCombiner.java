@@ -0,0 +1,184 @@
+package ru.itk.wallet_service.service.combiner;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.service.WalletService;
+import ru.itk.wallet_service.service.model.OperationResult;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Объединяет конкурентные операции над одним кошельком в общую транзакцию.
+ * <p>
+ * Операции попадают в очередь своей полосы (stripe). Поток, первым захвативший полосу,
+ * становится комбайнером: забирает из очереди до {@code maxBatchSize} операций,
+ * применяет их одной транзакцией на каждый кошелёк и раздаёт результаты ожидающим потокам.
+ * Освободив полосу, комбайнер будит владельца следующей операции в очереди,
+ * и тот продолжает обработку.
+ */
+@Slf4j
+@Component
+public class WalletOperationCombiner {
+  private static final long PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+  private final WalletService service;
+  private final int maxBatchSize;
+  private final long lingerNanos;
+  private final Stripe[] stripes;
+
+  public WalletOperationCombiner(WalletService service, WalletProperties properties) {
+    WalletProperties.Combiner settings = properties.getCombiner();
+    this.service = service;
+    this.maxBatchSize = Math.max(1, settings.getMaxBatchSize());
+    this.lingerNanos = settings.getLinger().toNanos();
+    this.stripes = new Stripe[Math.max(1, settings.getStripes())];
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new Stripe();
+    }
+  }
+
+  /**
+   * Ставит операцию в очередь и возвращает состояние кошелька после неё.
+   * Бизнес-ошибка операции выбрасывается в вызывающем потоке.
+   */
+  public Wallet update(SaveWalletDto dto) {
+    Stripe stripe = stripes[Math.floorMod(dto.getWalletId().hashCode(), stripes.length)];
+    PendingOperation operation = new PendingOperation(dto, Thread.currentThread());
+    stripe.enqueue(operation);
+
+    while (!operation.isDone()) {
+      if (stripe.combining.compareAndSet(false, true)) {
+        try {
+          combine(stripe, operation);
+        } finally {
+          stripe.combining.set(false);
+          stripe.wakeUpNext();
+        }
+      } else {
+        LockSupport.parkNanos(this, PARK_NANOS);
+      }
+    }
+    return operation.result();
+  }
+
+  /**
+   * Обрабатывает пакеты, пока не будет выполнена операция самого комбайнера
+   */
+  private void combine(Stripe stripe, PendingOperation own) {
+    while (!own.isDone()) {
+      if (lingerNanos > 0 && stripe.size.get() < maxBatchSize) {
+        LockSupport.parkNanos(this, lingerNanos);
+      }
+      List<PendingOperation> batch = stripe.poll(maxBatchSize);
+      if (batch.isEmpty()) {
+        return;
+      }
+      execute(batch);
+    }
+  }
+
+  /**
+   * Применяет пакет и завершает каждую операцию из него. Если пакет прерван {@link Error}, незавершённые
+   * операции получают {@link CompletionException} с этой ошибкой, иначе их потоки ждали бы результата вечно.
+   */
+  private void execute(List<PendingOperation> batch) {
+    Map<UUID, List<PendingOperation>> byWallet = new LinkedHashMap<>();
+    for (PendingOperation operation : batch) {
+      byWallet.computeIfAbsent(operation.dto.getWalletId(), id -> new ArrayList<>()).add(operation);
+    }
+
+    try {
+      byWallet.forEach((walletId, operations) -> {
+        try {
+          List<OperationResult> results = service.updateWalletBatch(walletId,
+            operations.stream().map(PendingOperation::dto).toList());
+          for (int i = 0; i < operations.size(); i++) {
+            operations.get(i).complete(results.get(i));
+          }
+        } catch (RuntimeException e) {
+          log.debug("Batch of {} operations for wallet {} failed: {}", operations.size(), walletId, e.getMessage());
+          operations.forEach(operation -> operation.complete(OperationResult.failure(e)));
+        }
+      });
+    } catch (Throwable e) {
+      OperationResult failure = OperationResult.failure(new CompletionException(e));
+      batch.stream()
+        .filter(operation -> !operation.isDone())
+        .forEach(operation -> operation.complete(failure));
+      throw e;
+    }
+  }
+
+  private static class Stripe {
+    final Queue<PendingOperation> queue = new ConcurrentLinkedQueue<>();
+    final AtomicInteger size = new AtomicInteger();
+    final AtomicBoolean combining = new AtomicBoolean();
+
+    void enqueue(PendingOperation operation) {
+      queue.add(operation);
+      size.incrementAndGet();
+    }
+
+    List<PendingOperation> poll(int limit) {
+      List<PendingOperation> batch = new ArrayList<>(Math.min(limit, Math.max(size.get(), 1)));
+      PendingOperation operation;
+      while (batch.size() < limit && (operation = queue.poll()) != null) {
+        size.decrementAndGet();
+        batch.add(operation);
+      }
+      return batch;
+    }
+
+    void wakeUpNext() {
+      PendingOperation next = queue.peek();
+      if (next != null) {
+        LockSupport.unpark(next.owner);
+      }
+    }
+  }
+
+  private static final class PendingOperation {
+    final SaveWalletDto dto;
+    final Thread owner;
+    volatile OperationResult outcome;
+
+    PendingOperation(SaveWalletDto dto, Thread owner) {
+      this.dto = dto;
+      this.owner = owner;
+    }
+
+    SaveWalletDto dto() {
+      return dto;
+    }
+
+    boolean isDone() {
+      return outcome != null;
+    }
+
+    void complete(OperationResult result) {
+      outcome = result;
+      LockSupport.unpark(owner);
+    }
+
+    Wallet result() {
+      if (!outcome.isSuccess()) {
+        throw outcome.getError();
+      }
+      return outcome.getWallet();
+    }
+  }
+}
@@ -0,0 +1,36 @@
+package ru.itk.wallet_service.service.export;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.repository.WalletExportRepository;
+import ru.itk.wallet_service.db.routing.Bulkhead;
+import ru.itk.wallet_service.db.routing.RoutingDataSource;
+
+import java.util.UUID;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Выгрузка балансов всех кошельков для сверки.
+ * <p>
+ * Выгрузка читает один снимок базы (REPEATABLE READ): все балансы согласованы на момент её начала.
+ * Обычное чтение в PostgreSQL не блокирует строки, поэтому изменения балансов во время выгрузки не ждут её.
+ * Соединение берётся из пула массовых задач ({@link Bulkhead#BULK}) или реплики.
+ */
+@Service
+@RequiredArgsConstructor
+public class WalletExporter {
+  private final WalletExportRepository repository;
+  private final WalletProperties properties;
+
+  /**
+   * @return количество выгруженных кошельков
+   */
+  @Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+  public long export(ObjLongConsumer<UUID> consumer) {
+    return RoutingDataSource.inBulkhead(Bulkhead.BULK,
+      () -> repository.forEachBalance(Math.max(1, properties.getExport().getFetchSize()), consumer));
+  }
+}
@@ -0,0 +1,50 @@
+package ru.itk.wallet_service.service.history;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.model.WalletOperation;
+import ru.itk.wallet_service.db.repository.WalletOperationRepository;
+import ru.itk.wallet_service.db.repository.WalletRepository;
+import ru.itk.wallet_service.db.routing.Bulkhead;
+import ru.itk.wallet_service.db.routing.RoutingDataSource;
+import ru.itk.wallet_service.enums.EntityType;
+import ru.itk.wallet_service.handler.exception.EntityNotFoundException;
+import ru.itk.wallet_service.service.model.OperationPage;
+import ru.itk.wallet_service.web.dto.OperationHistoryQueryDto;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * История операций кошелька постранично по курсору.
+ * <p>
+ * Курсор — номер последней операции страницы; следующая страница начинается строго после него.
+ * Запрашивается на одну запись больше размера страницы: так без отдельного COUNT известно, есть ли продолжение.
+ * Запросы выполняются в пуле чтений ({@link Bulkhead#READS}).
+ */
+@Service
+@RequiredArgsConstructor
+public class OperationHistoryService {
+  private final WalletOperationRepository operationRepository;
+  private final WalletRepository walletRepository;
+  private final WalletProperties properties;
+
+  public OperationPage getHistory(UUID walletId, OperationHistoryQueryDto query) {
+    return RoutingDataSource.inBulkhead(Bulkhead.READS, () -> findPage(walletId, query));
+  }
+
+  private OperationPage findPage(UUID walletId, OperationHistoryQueryDto query) {
+    int limit = query.getLimit() != null ? query.getLimit() : Math.max(1, properties.getHistory().getPageSize());
+    List<WalletOperation> operations = operationRepository.findHistory(walletId, query.getCursor(), query.getType(),
+      query.getFrom(), query.getTo(), limit + 1);
+    if (operations.isEmpty() && query.getCursor() == null && !walletRepository.existsById(walletId)) {
+      throw new EntityNotFoundException(EntityType.WALLET, walletId);
+    }
+    if (operations.size() <= limit) {
+      return new OperationPage(operations, null);
+    }
+    List<WalletOperation> page = operations.subList(0, limit);
+    return new OperationPage(page, page.get(limit - 1).getSequenceNumber());
+  }
+}
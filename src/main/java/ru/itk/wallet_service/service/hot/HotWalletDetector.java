@@ -0,0 +1,163 @@
+package ru.itk.wallet_service.service.hot;
+
+import org.springframework.stereotype.Component;
+import ru.itk.wallet_service.config.WalletProperties;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Находит горячие кошельки по частоте записей и времени ожидания блокировки строки.
+ * <p>
+ * Статистика ведётся в двух окнах {@link SpaceSavingSketch} длиной {@code window}: текущем и предыдущем.
+ * Частота оценивается по скользящему окну — вклад предыдущего окна убывает пропорционально прошедшей
+ * доле текущего. Кошелёк становится горячим, когда частота записей или ожидание блокировки превышают
+ * пороги повышения, и перестаёт быть горячим при смене окна, когда обе оценки опускаются ниже порогов понижения.
+ * Разные пороги не дают кошельку переключаться туда и обратно на границе.
+ * <p>
+ * Кошельки распределены по {@value #STRIPES} полосам по хешу идентификатора, у каждой полосы свои окна и своя
+ * блокировка, поэтому записи в разные кошельки не ждут друг друга. Вся статистика кошелька лежит в одной полосе,
+ * так что решения о повышении и понижении принимаются внутри неё, а снимок объединяет полосы при чтении.
+ */
+@Component
+public class HotWalletDetector {
+  private static final double NANOS_PER_SECOND = 1_000_000_000.0;
+  private static final int STRIPES = 16;
+
+  private final WalletProperties.Hot settings;
+  private final long windowNanos;
+  private final Stripe[] stripes = new Stripe[STRIPES];
+
+  public HotWalletDetector(WalletProperties properties) {
+    this.settings = properties.getHot();
+    this.windowNanos = Math.max(1, settings.getWindow().toNanos());
+    int capacity = Math.max(1, settings.getCapacity() / STRIPES);
+    long now = System.nanoTime();
+    for (int i = 0; i < STRIPES; i++) {
+      stripes[i] = new Stripe(capacity, now);
+    }
+  }
+
+  public boolean isEnabled() {
+    return settings.isEnabled();
+  }
+
+  public boolean isHot(UUID walletId) {
+    return settings.isEnabled() && stripeOf(walletId).hot.contains(walletId);
+  }
+
+  public void recordWrite(UUID walletId) {
+    if (!settings.isEnabled()) {
+      return;
+    }
+    stripeOf(walletId).recordWrite(walletId, System.nanoTime());
+  }
+
+  public void recordLockWait(UUID walletId, long nanos) {
+    if (!settings.isEnabled()) {
+      return;
+    }
+    stripeOf(walletId).recordLockWait(walletId, nanos);
+  }
+
+  /**
+   * Снимок самых активных кошельков по убыванию частоты записей.
+   */
+  public List<HotWalletStats> snapshot() {
+    long now = System.nanoTime();
+    List<HotWalletStats> stats = new ArrayList<>();
+    for (Stripe stripe : stripes) {
+      stripe.snapshot(now, stats);
+    }
+    stats.sort(Comparator.comparingDouble(HotWalletStats::writesPerSecond).reversed());
+    return stats;
+  }
+
+  private Stripe stripeOf(UUID walletId) {
+    int hash = walletId.hashCode();
+    return stripes[(hash ^ (hash >>> 16)) & (STRIPES - 1)];
+  }
+
+  /**
+   * Окна статистики кошельков одной полосы. Все поля, кроме множества горячих кошельков, меняются
+   * под блокировкой полосы; множество читается без неё.
+   */
+  private final class Stripe {
+    private final int capacity;
+    private final Set<UUID> hot = ConcurrentHashMap.newKeySet();
+
+    private SpaceSavingSketch current;
+    private SpaceSavingSketch previous;
+    private long windowStart;
+
+    Stripe(int capacity, long now) {
+      this.capacity = capacity;
+      this.current = new SpaceSavingSketch(capacity);
+      this.previous = new SpaceSavingSketch(capacity);
+      this.windowStart = now;
+    }
+
+    synchronized void recordWrite(UUID walletId, long now) {
+      rotateIfNeeded(now);
+      current.recordWrite(walletId);
+      if (!hot.contains(walletId) && shouldPromote(walletId, now)) {
+        hot.add(walletId);
+      }
+    }
+
+    synchronized void recordLockWait(UUID walletId, long nanos) {
+      current.recordLockWait(walletId, nanos);
+    }
+
+    synchronized void snapshot(long now, List<HotWalletStats> stats) {
+      rotateIfNeeded(now);
+      Set<UUID> walletIds = new HashSet<>();
+      previous.entries().forEach(entry -> walletIds.add(entry.walletId()));
+      current.entries().forEach(entry -> walletIds.add(entry.walletId()));
+      walletIds.forEach(walletId -> stats.add(new HotWalletStats(walletId, writesPerSecond(walletId, now),
+        lockWaitPerSecond(walletId, now) / 1_000_000.0, hot.contains(walletId))));
+    }
+
+    private boolean shouldPromote(UUID walletId, long now) {
+      return writesPerSecond(walletId, now) >= settings.getPromoteWritesPerSecond()
+        || lockWaitPerSecond(walletId, now) >= settings.getPromoteLockWaitPerSecond().toNanos();
+    }
+
+    private boolean shouldDemote(UUID walletId, long now) {
+      return writesPerSecond(walletId, now) < settings.getDemoteWritesPerSecond()
+        && lockWaitPerSecond(walletId, now) < settings.getDemoteLockWaitPerSecond().toNanos();
+    }
+
+    private double writesPerSecond(UUID walletId, long now) {
+      return slidingSum(previous.count(walletId), current.count(walletId), now);
+    }
+
+    private double lockWaitPerSecond(UUID walletId, long now) {
+      return slidingSum(previous.lockWaitNanos(walletId), current.lockWaitNanos(walletId), now);
+    }
+
+    /**
+     * Оценка суммы за последнее окно, приведённая к одной секунде.
+     */
+    private double slidingSum(long previousValue, long currentValue, long now) {
+      double elapsed = Math.min(1.0, (now - windowStart) / (double) windowNanos);
+      return (previousValue * (1 - elapsed) + currentValue) * NANOS_PER_SECOND / windowNanos;
+    }
+
+    private void rotateIfNeeded(long now) {
+      if (now - windowStart < windowNanos) {
+        return;
+      }
+      // окно без записей целиком обнуляет статистику
+      previous = now - windowStart < 2 * windowNanos ? current : new SpaceSavingSketch(capacity);
+      current = new SpaceSavingSketch(capacity);
+      windowStart = now;
+      hot.removeIf(walletId -> shouldDemote(walletId, now));
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package ru.itk.wallet_service.service.hot;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/hotwallets} — самые активные кошельки и признак горячего кошелька.
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "hotwallets")
+public class HotWalletEndpoint {
+  private final HotWalletDetector detector;
+
+  @ReadOperation
+  public List<HotWalletStats> hotWallets() {
+    return detector.snapshot();
+  }
+}
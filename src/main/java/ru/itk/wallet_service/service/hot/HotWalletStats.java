@@ -0,0 +1,13 @@
+package ru.itk.wallet_service.service.hot;
+
+import java.util.UUID;
+
+/**
+ * Оценка нагрузки на кошелёк за последнее окно.
+ *
+ * @param writesPerSecond          записей в секунду
+ * @param lockWaitMillisPerSecond  суммарное ожидание блокировки строки, миллисекунд в секунду
+ * @param hot                      кошелёк переведён на путь для горячих кошельков
+ */
+public record HotWalletStats(UUID walletId, double writesPerSecond, double lockWaitMillisPerSecond, boolean hot) {
+}
@@ -0,0 +1,138 @@
+package ru.itk.wallet_service.service.hot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Алгоритм Space-Saving: приблизительный подсчёт самых частых кошельков в фиксированной памяти.
+ * <p>
+ * Хранится не больше {@code capacity} счётчиков в min-куче по количеству записей. Новый кошелёк
+ * при заполненной таблице вытесняет кошелёк с наименьшим счётчиком и наследует его значение как погрешность,
+ * поэтому кошелёк с реальной долей записей больше {@code 1 / capacity} гарантированно остаётся в таблице.
+ * Счётчик с унаследованной погрешностью нужен только для порядка в куче: наружу отдаётся
+ * гарантированная нижняя граница {@code count - error}, иначе при потоке новых кошельков каждый из них
+ * сразу получал бы минимум кучи. Не потокобезопасен.
+ */
+final class SpaceSavingSketch {
+  private final UUID[] keys;
+  private final long[] counts;
+  private final long[] errors;
+  private final long[] lockWaitNanos;
+  private final Map<UUID, Integer> positions;
+  private int size;
+
+  SpaceSavingSketch(int capacity) {
+    this.keys = new UUID[capacity];
+    this.counts = new long[capacity];
+    this.errors = new long[capacity];
+    this.lockWaitNanos = new long[capacity];
+    this.positions = new HashMap<>(capacity * 2);
+  }
+
+  void recordWrite(UUID walletId) {
+    int position = positionOf(walletId);
+    counts[position]++;
+    siftDown(position);
+  }
+
+  void recordLockWait(UUID walletId, long nanos) {
+    Integer position = positions.get(walletId);
+    if (position != null) {
+      lockWaitNanos[position] += nanos;
+    }
+  }
+
+  /**
+   * Гарантированная нижняя граница количества записей кошелька, без погрешности, унаследованной при вытеснении.
+   */
+  long count(UUID walletId) {
+    Integer position = positions.get(walletId);
+    return position == null ? 0 : counts[position] - errors[position];
+  }
+
+  long lockWaitNanos(UUID walletId) {
+    Integer position = positions.get(walletId);
+    return position == null ? 0 : lockWaitNanos[position];
+  }
+
+  List<Entry> entries() {
+    List<Entry> entries = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      entries.add(new Entry(keys[i], counts[i], errors[i], lockWaitNanos[i]));
+    }
+    return entries;
+  }
+
+  private int positionOf(UUID walletId) {
+    Integer position = positions.get(walletId);
+    if (position != null) {
+      return position;
+    }
+    if (size < keys.length) {
+      int last = size++;
+      keys[last] = walletId;
+      positions.put(walletId, last);
+      siftUp(last);
+      return positions.get(walletId);
+    }
+    // вытесняется кошелёк с наименьшим счётчиком (корень кучи)
+    positions.remove(keys[0]);
+    keys[0] = walletId;
+    errors[0] = counts[0];
+    lockWaitNanos[0] = 0;
+    positions.put(walletId, 0);
+    return 0;
+  }
+
+  private void siftUp(int position) {
+    while (position > 0) {
+      int parent = (position - 1) / 2;
+      if (counts[parent] <= counts[position]) {
+        return;
+      }
+      swap(position, parent);
+      position = parent;
+    }
+  }
+
+  private void siftDown(int position) {
+    while (true) {
+      int left = 2 * position + 1;
+      if (left >= size) {
+        return;
+      }
+      int smallest = left + 1 < size && counts[left + 1] < counts[left] ? left + 1 : left;
+      if (counts[position] <= counts[smallest]) {
+        return;
+      }
+      swap(position, smallest);
+      position = smallest;
+    }
+  }
+
+  private void swap(int a, int b) {
+    UUID key = keys[a];
+    keys[a] = keys[b];
+    keys[b] = key;
+    long count = counts[a];
+    counts[a] = counts[b];
+    counts[b] = count;
+    long error = errors[a];
+    errors[a] = errors[b];
+    errors[b] = error;
+    long wait = lockWaitNanos[a];
+    lockWaitNanos[a] = lockWaitNanos[b];
+    lockWaitNanos[b] = wait;
+    positions.put(keys[a], a);
+    positions.put(keys[b], b);
+  }
+
+  /**
+   * Счётчик кошелька: {@code count - error} — гарантированная нижняя граница количества записей.
+   */
+  record Entry(UUID walletId, long count, long error, long lockWaitNanos) {
+  }
+}
@@ -0,0 +1,62 @@
+package ru.itk.wallet_service.service.idempotency;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Потокобезопасный фильтр Блума для строковых ключей. Ложноотрицательных ответов не бывает,
+ * доля ложноположительных при заполнении до {@code expectedInsertions} не превышает {@code falsePositiveRate}.
+ */
+final class BloomFilter {
+  private static final long FNV_PRIME = 0x100000001b3L;
+  private static final long FIRST_SEED = 0xcbf29ce484222325L;
+  private static final long SECOND_SEED = 0x9e3779b97f4a7c15L;
+
+  private final AtomicLongArray words;
+  private final long bitCount;
+  private final int hashCount;
+
+  BloomFilter(int expectedInsertions, double falsePositiveRate) {
+    int insertions = Math.max(1, expectedInsertions);
+    double rate = Math.min(Math.max(falsePositiveRate, 1e-9), 0.5);
+    long bits = (long) Math.ceil(-insertions * Math.log(rate) / (Math.log(2) * Math.log(2)));
+    this.words = new AtomicLongArray(Math.toIntExact((Math.max(bits, Long.SIZE) + Long.SIZE - 1) / Long.SIZE));
+    this.bitCount = (long) words.length() * Long.SIZE;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / insertions * Math.log(2)));
+  }
+
+  void put(String key) {
+    long first = hash(key, FIRST_SEED);
+    long second = hash(key, SECOND_SEED) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(first + i * second, bitCount);
+      long mask = 1L << bit;
+      words.accumulateAndGet((int) (bit >>> 6), mask, (word, m) -> word | m);
+    }
+  }
+
+  boolean mightContain(String key) {
+    long first = hash(key, FIRST_SEED);
+    long second = hash(key, SECOND_SEED) | 1;
+    for (int i = 0; i < hashCount; i++) {
+      long bit = Math.floorMod(first + i * second, bitCount);
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * FNV-1a по символам ключа с финальным перемешиванием из SplitMix64.
+   */
+  private static long hash(String key, long seed) {
+    long h = seed;
+    for (int i = 0; i < key.length(); i++) {
+      h ^= key.charAt(i);
+      h *= FNV_PRIME;
+    }
+    h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+    h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+    return h ^ (h >>> 31);
+  }
+}
@@ -0,0 +1,179 @@
+package ru.itk.wallet_service.service.idempotency;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.db.model.IdempotencyKeyRecord;
+import ru.itk.wallet_service.db.repository.IdempotencyKeyRepository;
+import ru.itk.wallet_service.db.routing.Bulkhead;
+import ru.itk.wallet_service.db.routing.RoutingDataSource;
+import ru.itk.wallet_service.handler.exception.IdempotencyKeyMismatchException;
+import ru.itk.wallet_service.handler.exception.InvalidIdempotencyKeyException;
+import ru.itk.wallet_service.money.MinorUnits;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Быстрый поиск использованных ключей идемпотентности перед обращением к базе.
+ * <p>
+ * Результаты недавних ключей хранятся в памяти, остальные ключи за время хранения отмечены в фильтре Блума:
+ * если фильтр ключа не знает, запрос к базе не выполняется. Фильтр не даёт ложноотрицательных ответов
+ * для ключей этого экземпляра, а ключи других экземпляров отсекаются вставкой ключа в транзакции операции,
+ * поэтому фильтр влияет только на количество запросов, но не на корректность.
+ * <p>
+ * Вместе с результатом хранятся тип и сумма операции: повтор ключа с другой операцией отклоняется
+ * {@link IdempotencyKeyMismatchException}, а не получает результат чужой операции.
+ * <p>
+ * Удалять ключи из фильтра нельзя, поэтому фильтров два: новые ключи попадают в текущий,
+ * а раз в {@code ttl} текущий становится предыдущим, и каждый ключ остаётся в фильтре не меньше {@code ttl}.
+ */
+@Slf4j
+@Component
+public class IdempotencyKeyStore {
+  public static final int MAX_KEY_LENGTH = 128;
+
+  private final IdempotencyKeyRepository repository;
+  private final WalletProperties.Idempotency settings;
+  private final Cache<String, IdempotencyKeyRecord> recent;
+  private final Clock clock = Clock.systemUTC();
+
+  private volatile BloomFilter current;
+  private volatile BloomFilter previous;
+  private volatile Instant rotatedAt;
+  private volatile boolean warmedUp;
+
+  public IdempotencyKeyStore(IdempotencyKeyRepository repository, WalletProperties properties) {
+    this.repository = repository;
+    this.settings = properties.getIdempotency();
+    this.recent = Caffeine.newBuilder()
+      .maximumSize(settings.getRecentKeys())
+      .expireAfterWrite(settings.getTtl())
+      .build();
+    this.current = newFilter();
+    this.previous = newFilter();
+    this.rotatedAt = clock.instant();
+  }
+
+  public static void validate(String key) {
+    if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+      throw new InvalidIdempotencyKeyException(key, MAX_KEY_LENGTH);
+    }
+  }
+
+  /**
+   * Возвращает сохранённый результат операции с этим ключом, если ключ уже использован.
+   *
+   * @throws IdempotencyKeyMismatchException если ключ использован для операции с другим типом или суммой
+   */
+  public Optional<Wallet> find(SaveWalletDto dto, String key) {
+    String id = id(dto.getWalletId(), key);
+    IdempotencyKeyRecord record = recent.getIfPresent(id);
+    if (record != null) {
+      return Optional.of(replay(dto, key, record));
+    }
+    if (warmedUp && !current.mightContain(id) && !previous.mightContain(id)) {
+      return Optional.empty();
+    }
+    return load(dto, key);
+  }
+
+  /**
+   * Читает результат из базы, минуя фильтр.
+   *
+   * @throws IdempotencyKeyMismatchException если ключ использован для операции с другим типом или суммой
+   */
+  public Optional<Wallet> load(SaveWalletDto dto, String key) {
+    return repository.find(dto.getWalletId(), key)
+      .map(record -> {
+        recent.put(id(dto.getWalletId(), key), record);
+        return replay(dto, key, record);
+      });
+  }
+
+  /**
+   * Запоминает результат зафиксированной операции: баланс в минорных единицах.
+   */
+  public void remember(SaveWalletDto dto, String key, long balance) {
+    String id = id(dto.getWalletId(), key);
+    current.put(id);
+    recent.put(id, new IdempotencyKeyRecord(dto.getOperationType(), MinorUnits.toMinor(dto.getAmount()), balance));
+  }
+
+  /**
+   * Заполняет фильтр ключами, сохранёнными до запуска. До окончания заполнения
+   * каждый промах кэша проверяется в базе.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Transactional(readOnly = true)
+  public void warmUp() {
+    BloomFilter filter = current;
+    RoutingDataSource.runInBulkhead(Bulkhead.BULK, () -> repository.forEachCreatedAfter(
+      OffsetDateTime.now(clock).minus(settings.getTtl()), (walletId, key) -> filter.put(id(walletId, key))));
+    warmedUp = true;
+    log.info("Idempotency key filter warmed up");
+  }
+
+  /**
+   * Удаляет просроченные ключи порциями и при необходимости меняет поколение фильтра.
+   */
+  @Scheduled(cron = "${wallet.idempotency.purge-cron:0 */5 * * * *}")
+  public void purgeExpired() {
+    OffsetDateTime cutoff = OffsetDateTime.now(clock).minus(settings.getTtl());
+    int batchSize = Math.max(1, settings.getPurgeBatchSize());
+    int total = RoutingDataSource.inBulkhead(Bulkhead.BULK, () -> deleteCreatedBefore(cutoff, batchSize));
+    if (total > 0) {
+      log.info("Purged {} expired idempotency keys", total);
+    }
+
+    Instant now = clock.instant();
+    if (!now.isBefore(rotatedAt.plus(settings.getTtl()))) {
+      previous = current;
+      current = newFilter();
+      rotatedAt = now;
+    }
+  }
+
+  private int deleteCreatedBefore(OffsetDateTime cutoff, int batchSize) {
+    int total = 0;
+    int deleted;
+    do {
+      deleted = repository.deleteCreatedBefore(cutoff, batchSize);
+      total += deleted;
+    } while (deleted == batchSize);
+    return total;
+  }
+
+  private BloomFilter newFilter() {
+    return new BloomFilter(settings.getExpectedKeys(), settings.getFalsePositiveRate());
+  }
+
+  private static String id(UUID walletId, String key) {
+    return walletId + ":" + key;
+  }
+
+  private static Wallet replay(SaveWalletDto dto, String key, IdempotencyKeyRecord record) {
+    if (!record.matches(dto.getOperationType(), MinorUnits.toMinor(dto.getAmount()))) {
+      throw new IdempotencyKeyMismatchException(dto.getWalletId(), key);
+    }
+    return wallet(dto.getWalletId(), record.balance());
+  }
+
+  private static Wallet wallet(UUID walletId, long balance) {
+    Wallet wallet = new Wallet();
+    wallet.setWalletId(walletId);
+    wallet.setAmountMinor(balance);
+    return wallet;
+  }
+}
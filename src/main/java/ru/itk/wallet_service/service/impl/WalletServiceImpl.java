@@ -1,66 +1,525 @@
 package ru.itk.wallet_service.service.impl;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.itk.wallet_service.config.WalletProperties;
 import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.db.model.WalletOperation;
+import ru.itk.wallet_service.db.repository.IdempotencyKeyRepository;
+import ru.itk.wallet_service.db.repository.WalletOperationRepository;
 import ru.itk.wallet_service.db.repository.WalletRepository;
+import ru.itk.wallet_service.db.repository.WalletShardRepository;
+import ru.itk.wallet_service.db.routing.RecentWrites;
 import ru.itk.wallet_service.enums.EntityType;
+import ru.itk.wallet_service.enums.UpdateMode;
+import ru.itk.wallet_service.handler.exception.BalanceOverflowException;
+import ru.itk.wallet_service.handler.exception.BatchRejectedException;
 import ru.itk.wallet_service.handler.exception.EntityNotFoundException;
 import ru.itk.wallet_service.handler.exception.InsufficientFundsException;
 import ru.itk.wallet_service.handler.exception.InvalidOperationTypeException;
+import ru.itk.wallet_service.handler.exception.JournalModeException;
+import ru.itk.wallet_service.money.MinorUnits;
 import ru.itk.wallet_service.service.WalletService;
+import ru.itk.wallet_service.service.cache.WalletBalanceCache;
+import ru.itk.wallet_service.service.hot.HotWalletDetector;
+import ru.itk.wallet_service.service.metrics.WalletMetrics;
+import ru.itk.wallet_service.service.model.OperationResult;
 import ru.itk.wallet_service.web.dto.SaveWalletDto;
+import ru.itk.wallet_service.web.dto.TransferDto;
 
-import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class WalletServiceImpl implements WalletService {
+  private static final String BATCH_METRIC = "batch";
+  private static final String TRANSFER_METRIC = "transfer";
+
   private final WalletRepository repository;
+  private final WalletShardRepository shardRepository;
+  private final WalletOperationRepository operationRepository;
+  private final IdempotencyKeyRepository idempotencyKeyRepository;
+  private final WalletBalanceCache balanceCache;
+  private final RecentWrites recentWrites;
+  private final WalletMetrics metrics;
+  private final HotWalletDetector hotWallets;
+  private final WalletProperties properties;
 
   @Override
   @Transactional
   public Wallet createWallet() {
     Wallet wallet = new Wallet();
-    wallet.setAmount(BigDecimal.ZERO);
-    return repository.save(wallet);
+    wallet.setAmountMinor(0);
+    Wallet saved = repository.save(wallet);
+    afterWrite(saved);
+    return saved;
   }
 
   @Transactional
   @Override
   public Wallet updateWallet(SaveWalletDto dto) {
-    Wallet wallet = findByIdForUpdate(dto);
+    requireTransactionalMode();
+    Optional<Wallet> deposited = depositToShard(dto);
+    if (deposited.isPresent()) {
+      return deposited.get();
+    }
+
+    return switch (properties.getUpdateMode()) {
+      case PESSIMISTIC, OPTIMISTIC, ADAPTIVE -> updateWithLock(dto);
+      case ATOMIC -> updateAtomically(dto);
+    };
+  }
+
+  @Transactional
+  @Override
+  public Wallet updateWalletOptimistically(SaveWalletDto dto) {
+    requireTransactionalMode();
+    Optional<Wallet> deposited = depositToShard(dto);
+    if (deposited.isPresent()) {
+      return deposited.get();
+    }
+
+    String operation = metricName(dto);
+    Wallet wallet = repository.findById(dto.getWalletId())
+      .orElseThrow(() -> new EntityNotFoundException(EntityType.WALLET, dto.getWalletId()));
+    collapseShardsBeforeWrite(wallet);
+    long amount = applyOperation(wallet, dto);
+    // UPDATE с проверкой версии выполняется сразу: конфликт виден здесь, а строка остаётся
+    // заблокированной до фиксации, как требует метка записи в кэше
+    Wallet saved = metrics.recordUpdate(operation, () -> writeBalance(wallet, dto, amount));
+    metrics.recordCommit(operation);
+    afterWrite(saved);
+    return saved;
+  }
+
+  @Transactional
+  @Override
+  public Optional<Wallet> updateWalletOnce(SaveWalletDto dto, String idempotencyKey) {
+    requireTransactionalMode();
+    if (!idempotencyKeyRepository.claim(dto.getWalletId(), idempotencyKey, dto.getOperationType(),
+      MinorUnits.toMinor(dto.getAmount()))) {
+      return Optional.empty();
+    }
+    Wallet wallet = updateWallet(dto);
+    idempotencyKeyRepository.complete(dto.getWalletId(), idempotencyKey, wallet.getAmountMinor());
+    return Optional.of(wallet);
+  }
+
+  @Transactional
+  @Override
+  public List<OperationResult> updateWalletBatch(UUID walletId, List<SaveWalletDto> operations) {
+    requireTransactionalMode();
+    Wallet wallet = findByIdForUpdate(walletId, BATCH_METRIC);
+    collapseShards(wallet);
+
+    List<OperationResult> results = new ArrayList<>(operations.size());
+    List<WalletOperation> journal = new ArrayList<>(operations.size());
+    for (SaveWalletDto operation : operations) {
+      try {
+        wallet.setAmountMinor(applyOperation(wallet, operation));
+        journal.add(toJournalRecord(operation, wallet.getAmountMinor()));
+        results.add(OperationResult.success(snapshot(walletId, wallet.getAmountMinor())));
+      } catch (InsufficientFundsException | BalanceOverflowException | InvalidOperationTypeException e) {
+        results.add(OperationResult.failure(e));
+      }
+    }
+
+    metrics.recordUpdate(BATCH_METRIC, () -> {
+      operationRepository.saveAll(journal);
+      repository.save(wallet);
+      repository.flush();
+      return wallet;
+    });
+    metrics.recordCommit(BATCH_METRIC);
+    afterWrite(wallet);
+    return results;
+  }
+
+  @Transactional
+  @Override
+  public List<OperationResult> updateWallets(List<SaveWalletDto> operations, boolean allOrNothing) {
+    requireTransactionalMode();
+    Set<UUID> walletIds = operations.stream()
+      .map(SaveWalletDto::getWalletId)
+      .collect(Collectors.toCollection(HashSet::new));
+
+    Map<UUID, Wallet> wallets = new HashMap<>();
+    for (Wallet wallet : metrics.recordLockWait(BATCH_METRIC, () -> repository.findAllByIdForUpdate(walletIds))) {
+      collapseShards(wallet);
+      wallets.put(wallet.getWalletId(), wallet);
+    }
+
+    List<OperationResult> results = new ArrayList<>(operations.size());
+    List<WalletOperation> journal = new ArrayList<>(operations.size());
+    boolean rejected = false;
+    for (SaveWalletDto operation : operations) {
+      Wallet wallet = wallets.get(operation.getWalletId());
+      try {
+        if (wallet == null) {
+          throw new EntityNotFoundException(EntityType.WALLET, operation.getWalletId());
+        }
+        wallet.setAmountMinor(applyOperation(wallet, operation));
+        journal.add(toJournalRecord(operation, wallet.getAmountMinor()));
+        results.add(OperationResult.success(snapshot(wallet.getWalletId(), wallet.getAmountMinor())));
+      } catch (EntityNotFoundException | InsufficientFundsException | BalanceOverflowException
+               | InvalidOperationTypeException e) {
+        rejected = true;
+        results.add(OperationResult.failure(e));
+      }
+    }
+
+    if (allOrNothing && rejected) {
+      throw new BatchRejectedException(results);
+    }
+
+    metrics.recordUpdate(BATCH_METRIC, () -> {
+      operationRepository.saveAll(journal);
+      repository.saveAll(wallets.values());
+      repository.flush();
+      return wallets;
+    });
+    metrics.recordCommit(BATCH_METRIC);
+    wallets.values().forEach(this::afterWrite);
+    return results;
+  }
+
+  @Transactional
+  @Override
+  public List<Wallet> transfer(TransferDto dto) {
+    requireTransactionalMode();
+    if (properties.getUpdateMode() == UpdateMode.ATOMIC) {
+      Optional<List<Wallet>> transferred = transferAtomically(dto);
+      if (transferred.isPresent()) {
+        return transferred.get();
+      }
+    }
+    Map<UUID, Wallet> wallets = settleWithLock(List.of(dto));
+    return List.of(wallets.get(dto.getFromWalletId()), wallets.get(dto.getToWalletId()));
+  }
+
+  @Transactional
+  @Override
+  public List<Wallet> transferBatch(List<TransferDto> transfers) {
+    requireTransactionalMode();
+    return new ArrayList<>(settleWithLock(transfers).values());
+  }
+
+  @Transactional
+  @Override
+  public Wallet shardWallet(UUID walletId, int shardCount) {
+    requireTransactionalMode();
+    Wallet wallet = repository.findByIdForUpdate(walletId)
+      .orElseThrow(() -> new EntityNotFoundException(EntityType.WALLET, walletId));
+    collapseShards(wallet);
+    shardRepository.deleteByWalletId(walletId);
+    shardRepository.createShards(walletId, shardCount);
+    wallet.setShardCount(shardCount);
+    return saveAndCache(wallet);
+  }
+
+  @Transactional
+  @Override
+  public Wallet unshardWallet(UUID walletId) {
+    requireTransactionalMode();
+    Wallet wallet = repository.findByIdForUpdate(walletId)
+      .orElseThrow(() -> new EntityNotFoundException(EntityType.WALLET, walletId));
+    collapseShards(wallet);
+    shardRepository.deleteByWalletId(walletId);
+    wallet.setShardCount(0);
+    return saveAndCache(wallet);
+  }
+
+  private Wallet updateWithLock(SaveWalletDto dto) {
+    String operation = metricName(dto);
+    Wallet wallet = findByIdForUpdate(dto.getWalletId(), operation);
+    collapseShardsBeforeWrite(wallet);
+    long amount = applyOperation(wallet, dto);
+    Wallet saved = metrics.recordUpdate(operation, () -> writeBalance(wallet, dto, amount));
+    metrics.recordCommit(operation);
+    afterWrite(saved);
+    return saved;
+  }
+
+  /**
+   * Записывает новый баланс вместе с записью журнала одним запросом {@link WalletRepository#updateBalance}.
+   * Запрос отсоединяет кошелёк от контекста, поэтому новый баланс и версия переносятся в объект только после него
+   * и больше не сбрасываются Hibernate.
+   *
+   * @throws ObjectOptimisticLockingFailureException если строка изменилась после чтения
+   */
+  private Wallet writeBalance(Wallet wallet, SaveWalletDto dto, long amount) {
+    int updated = repository.updateBalance(wallet.getWalletId(), wallet.getVersion(), amount,
+      dto.getOperationType().name(), MinorUnits.toMinor(dto.getAmount()));
+    if (updated == 0) {
+      throw new ObjectOptimisticLockingFailureException(Wallet.class, wallet.getWalletId());
+    }
+    wallet.setAmountMinor(amount);
+    wallet.setVersion(wallet.getVersion() + 1);
+    return wallet;
+  }
+
+  private static String metricName(SaveWalletDto dto) {
+    return String.valueOf(dto.getOperationType()).toLowerCase(Locale.ROOT);
+  }
+
+  @Transactional
+  @Override
+  public Optional<Wallet> depositToShard(SaveWalletDto dto) {
+    if (!properties.getSharding().isEnabled() || dto.getOperationType() != OperationType.DEPOSIT) {
+      return Optional.empty();
+    }
+    Optional<Long> total = shardRepository.depositToShard(dto.getWalletId(), MinorUnits.toMinor(dto.getAmount()),
+      ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE));
+    total.ifPresent(amount -> {
+      balanceCache.evictAfterCommit(dto.getWalletId());
+      recentWrites.markAfterCommit(dto.getWalletId());
+    });
+    return total.map(amount -> snapshot(dto.getWalletId(), amount));
+  }
+
+  private Wallet saveAndCache(Wallet wallet) {
+    Wallet saved = repository.save(wallet);
+    afterWrite(saved);
+    return saved;
+  }
+
+  /**
+   * После фиксации кэширует состояние кошелька, и в течение окна read-your-writes его баланс читается из основной базы
+   */
+  private void afterWrite(Wallet wallet) {
+    balanceCache.putAfterCommit(wallet);
+    recentWrites.markAfterCommit(wallet.getWalletId());
+  }
+
+  private WalletOperation toJournalRecord(SaveWalletDto dto, long balance) {
+    return WalletOperation.of(dto.getWalletId(), dto.getOperationType(),
+      MinorUnits.toMinor(dto.getAmount()), balance);
+  }
+
+  /**
+   * Переносит баланс слотов шардированного кошелька в основную строку, блокируя слоты.
+   * После этого весь баланс находится в {@code amount}, и списание проверяется обычным образом.
+   *
+   * @return {@code true}, если баланс кошелька изменился
+   */
+  private boolean collapseShards(Wallet wallet) {
+    if (wallet.getShardCount() == 0) {
+      return false;
+    }
+    long shardsTotal = shardRepository.lockAndSumByWalletId(wallet.getWalletId());
+    if (shardsTotal == 0) {
+      return false;
+    }
+    shardRepository.resetByWalletId(wallet.getWalletId());
+    wallet.setAmountMinor(Math.addExact(wallet.getAmountMinor(), shardsTotal));
+    return true;
+  }
+
+  /**
+   * Перенос слотов перед {@link #writeBalance}: изменённый переносом кошелёк сбрасывается сразу,
+   * чтобы запрос записи проверял уже увеличенную версию. Для нешардированного кошелька запросов не добавляется.
+   */
+  private void collapseShardsBeforeWrite(Wallet wallet) {
+    if (collapseShards(wallet)) {
+      repository.flush();
+    }
+  }
 
-    BigDecimal currentAmount = wallet.getAmount();
-    BigDecimal newAmount = switch (dto.getOperationType()) {
-      case DEPOSIT -> currentAmount.add(dto.getAmount());
+  /**
+   * Расчёт нового баланса заблокированного кошелька в минорных единицах
+   */
+  private long applyOperation(Wallet wallet, SaveWalletDto dto) {
+    long currentAmount = wallet.getAmountMinor();
+    long amount = MinorUnits.toMinor(dto.getAmount());
+    return switch (dto.getOperationType()) {
+      case DEPOSIT -> {
+        if (currentAmount > Long.MAX_VALUE - amount) {
+          throw new BalanceOverflowException(wallet.getWalletId(), dto.getAmount());
+        }
+        yield currentAmount + amount;
+      }
       case WITHDRAW -> {
-        if (currentAmount.compareTo(dto.getAmount()) < 0) {
+        if (currentAmount < amount) {
           throw new InsufficientFundsException(wallet.getWalletId(), dto.getAmount());
         }
-        yield currentAmount.subtract(dto.getAmount());
+        yield currentAmount - amount;
       }
       default -> throw new InvalidOperationTypeException(dto.getOperationType());
     };
+  }
 
-    wallet.setAmount(newAmount);
-    return repository.save(wallet);
+  /**
+   * Изменение баланса одним запросом: строка блокируется только на время самого UPDATE.
+   * Условный UPDATE не сообщает причину отказа, поэтому неуспешная операция повторяется
+   * под блокировкой: она различает отсутствие кошелька, нехватку средств, переполнение баланса и шардированный кошелёк.
+   */
+  private Wallet updateAtomically(SaveWalletDto dto) {
+    long amount = MinorUnits.toMinor(dto.getAmount());
+    long delta = switch (dto.getOperationType()) {
+      case DEPOSIT -> amount;
+      case WITHDRAW -> -amount;
+      default -> throw new InvalidOperationTypeException(dto.getOperationType());
+    };
+
+    String operation = metricName(dto);
+    Optional<Long> newAmount = metrics.recordUpdate(operation,
+      () -> repository.addToBalance(dto.getWalletId(), delta, dto.getOperationType().name()));
+    if (newAmount.isEmpty()) {
+      return updateWithLock(dto);
+    }
+    metrics.recordCommit(operation);
+    Wallet wallet = snapshot(dto.getWalletId(), newAmount.get());
+    afterWrite(wallet);
+    return wallet;
   }
 
   /**
-   * Получение кошелька с блокировкой на запись, чтобы избежать race condition
+   * В режиме локального журнала балансы изменённых кошельков ведутся в его памяти,
+   * и запись в базу в обход журнала разошлась бы с ними.
    */
-  private Wallet findByIdForUpdate(SaveWalletDto dto) {
-    return repository.findByIdForUpdate(dto.getWalletId())
-      .orElseThrow(() -> new EntityNotFoundException(EntityType.WALLET, dto.getWalletId()));
+  private void requireTransactionalMode() {
+    if (properties.getJournal().isEnabled()) {
+      throw new JournalModeException();
+    }
+  }
+
+  /**
+   * Перевод одним условным запросом. Если запрос перевод не применил, он повторяется под блокировкой:
+   * она различает отсутствие кошелька, нехватку средств, переполнение и шардированный кошелёк.
+   */
+  private Optional<List<Wallet>> transferAtomically(TransferDto dto) {
+    List<Long> balances = metrics.recordUpdate(TRANSFER_METRIC, () -> repository.transfer(dto.getFromWalletId(),
+      dto.getToWalletId(), MinorUnits.toMinor(dto.getAmount())));
+    if (balances.size() != 2) {
+      return Optional.empty();
+    }
+    metrics.recordCommit(TRANSFER_METRIC);
+    List<Wallet> wallets = List.of(snapshot(dto.getFromWalletId(), balances.get(0)),
+      snapshot(dto.getToWalletId(), balances.get(1)));
+    wallets.forEach(this::afterWrite);
+    return Optional.of(wallets);
+  }
+
+  /**
+   * Блокирует все кошельки переводов одним запросом в порядке идентификаторов и применяет к каждому
+   * итоговое изменение. В журнал пишется одна запись TRANSFER_OUT или TRANSFER_IN на кошелёк.
+   *
+   * @return затронутые кошельки в порядке первого упоминания
+   */
+  private Map<UUID, Wallet> settleWithLock(List<TransferDto> transfers) {
+    Map<UUID, Long> deltas = netDeltas(transfers);
+    Map<UUID, Wallet> locked = new HashMap<>();
+    List<Wallet> lockedWallets = metrics.recordLockWait(TRANSFER_METRIC,
+      () -> repository.findAllByIdForUpdate(deltas.keySet()));
+    for (Wallet wallet : lockedWallets) {
+      collapseShards(wallet);
+      locked.put(wallet.getWalletId(), wallet);
+    }
+
+    Map<UUID, Wallet> wallets = new LinkedHashMap<>();
+    List<WalletOperation> journal = new ArrayList<>(deltas.size());
+    deltas.forEach((walletId, delta) -> {
+      Wallet wallet = locked.get(walletId);
+      if (wallet == null) {
+        throw new EntityNotFoundException(EntityType.WALLET, walletId);
+      }
+      if (delta != 0) {
+        wallet.setAmountMinor(applyDelta(wallet, delta));
+        OperationType type = delta < 0 ? OperationType.TRANSFER_OUT : OperationType.TRANSFER_IN;
+        journal.add(WalletOperation.of(walletId, type, Math.abs(delta), wallet.getAmountMinor()));
+      }
+      wallets.put(walletId, wallet);
+    });
+
+    metrics.recordUpdate(TRANSFER_METRIC, () -> {
+      operationRepository.saveAll(journal);
+      repository.saveAll(wallets.values());
+      repository.flush();
+      return wallets;
+    });
+    metrics.recordCommit(TRANSFER_METRIC);
+    wallets.values().forEach(this::afterWrite);
+    return wallets;
+  }
+
+  /**
+   * Итоговое изменение баланса каждого кошелька по всем переводам, в минорных единицах.
+   */
+  private static Map<UUID, Long> netDeltas(List<TransferDto> transfers) {
+    Map<UUID, Long> deltas = new LinkedHashMap<>();
+    for (TransferDto transfer : transfers) {
+      long amount = MinorUnits.toMinor(transfer.getAmount());
+      addDelta(deltas, transfer.getFromWalletId(), -amount, transfer);
+      addDelta(deltas, transfer.getToWalletId(), amount, transfer);
+    }
+    return deltas;
+  }
+
+  private static void addDelta(Map<UUID, Long> deltas, UUID walletId, long delta, TransferDto transfer) {
+    try {
+      deltas.merge(walletId, delta, Math::addExact);
+    } catch (ArithmeticException e) {
+      throw new BalanceOverflowException(walletId, transfer.getAmount());
+    }
+  }
+
+  /**
+   * Новый баланс заблокированного кошелька после изменения на {@code delta} минорных единиц
+   */
+  private static long applyDelta(Wallet wallet, long delta) {
+    long currentAmount = wallet.getAmountMinor();
+    if (delta < 0 && currentAmount + delta < 0) {
+      throw new InsufficientFundsException(wallet.getWalletId(), MinorUnits.toDecimal(delta).negate());
+    }
+    if (delta > 0 && currentAmount > Long.MAX_VALUE - delta) {
+      throw new BalanceOverflowException(wallet.getWalletId(), MinorUnits.toDecimal(delta));
+    }
+    return currentAmount + delta;
+  }
+
+  /**
+   * Отсоединённая копия состояния кошелька, не связанная с контекстом персистентности
+   */
+  private Wallet snapshot(UUID walletId, long amount) {
+    Wallet wallet = new Wallet();
+    wallet.setWalletId(walletId);
+    wallet.setAmountMinor(amount);
+    return wallet;
+  }
+
+  /**
+   * Получение кошелька с блокировкой на запись, чтобы избежать race condition.
+   * Время ожидания блокировки учитывается в метриках и детекторе горячих кошельков.
+   */
+  private Wallet findByIdForUpdate(UUID walletId, String operation) {
+    long start = System.nanoTime();
+    try {
+      return metrics.recordLockWait(operation, () -> repository.findByIdForUpdate(walletId))
+        .orElseThrow(() -> new EntityNotFoundException(EntityType.WALLET, walletId));
+    } finally {
+      hotWallets.recordLockWait(walletId, System.nanoTime() - start);
+    }
   }
 
   @Transactional(readOnly = true)
   @Override
   public Wallet getBalance(UUID walletId) {
-    return repository.findById(walletId)
+    return repository.findBalanceById(walletId)
+      .map(amount -> snapshot(walletId, amount))
       .orElseThrow(() -> new EntityNotFoundException(EntityType.WALLET, walletId));
   }
 }
@@ -0,0 +1,53 @@
+package ru.itk.wallet_service.service.journal;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.itk.wallet_service.db.repository.JournalCheckpointRepository;
+import ru.itk.wallet_service.db.repository.WalletOperationRepository;
+import ru.itk.wallet_service.db.routing.Bulkhead;
+import ru.itk.wallet_service.db.routing.RoutingDataSource;
+import ru.itk.wallet_service.service.metrics.WalletMetrics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Применяет пачку записей локального журнала к базе одной транзакцией: по одному UPDATE на пачку
+ * с итоговым изменением каждого кошелька, записи журнала операций пакетом JDBC и сдвиг контрольной точки.
+ * Соединение берётся из пула массовых задач ({@link Bulkhead#BULK}).
+ */
+@Service
+@RequiredArgsConstructor
+public class JournalApplier {
+  private static final String METRIC = "journal_apply";
+
+  private final JournalCheckpointRepository checkpointRepository;
+  private final WalletOperationRepository operationRepository;
+  private final WalletMetrics metrics;
+
+  /**
+   * @param appliedSequence номер последней применённой записи; {@code records} продолжают его без пропусков
+   * @throws IllegalStateException если контрольная точка уже сдвинута: пачка не применяется повторно
+   */
+  @Transactional
+  public void apply(String journalId, long appliedSequence, List<JournalRecord> records) {
+    Map<UUID, Long> deltas = new TreeMap<>();
+    for (JournalRecord record : records) {
+      deltas.merge(record.getWalletId(), record.getDelta(), Math::addExact);
+    }
+    long lastSequence = records.get(records.size() - 1).getSequence();
+    metrics.recordUpdate(METRIC, () -> RoutingDataSource.inBulkhead(Bulkhead.BULK, () -> {
+      if (!checkpointRepository.advance(journalId, appliedSequence, lastSequence)) {
+        throw new IllegalStateException("Journal checkpoint %s moved past %d".formatted(journalId, appliedSequence));
+      }
+      checkpointRepository.addToBalances(new ArrayList<>(deltas.keySet()), new ArrayList<>(deltas.values()));
+      operationRepository.saveAll(records.stream().map(JournalRecord::toOperation).toList());
+      return lastSequence;
+    }));
+    metrics.recordCommit(METRIC);
+  }
+}
@@ -0,0 +1,311 @@
+package ru.itk.wallet_service.service.journal;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Журнал из отображённых в память файлов-сегментов с записями фиксированной длины.
+ * <p>
+ * Сегмент называется по номеру первой записи и содержит {@code segmentRecords} записей. Запись:
+ * номер, идентификатор кошелька, изменение, баланс и CRC32C этих полей. При открытии сегменты читаются
+ * до первой повреждённой или непоследовательной записи: это недописанный хвост, он обнуляется,
+ * а более поздние сегменты удаляются.
+ * <p>
+ * Добавление записи — копирование в память без системных вызовов. Долговечность даёт
+ * {@link #awaitDurable(long)}: один сброс на диск покрывает все записи, добавленные к его началу,
+ * поэтому конкурентные писатели делят один fsync (групповая фиксация).
+ */
+@Slf4j
+class JournalFile implements Closeable {
+  static final int RECORD_SIZE = 48;
+  private static final int CRC_OFFSET = 40;
+  private static final String SUFFIX = ".wal";
+
+  private final Path directory;
+  private final int segmentRecords;
+  private final List<Segment> segments = new ArrayList<>();
+  private long lastSequence;
+
+  private final Object syncMonitor = new Object();
+  private long durableSequence;
+  private boolean syncing;
+
+  /**
+   * @param lastAppliedSequence номер последней записи, уже применённой к базе; с него продолжается нумерация,
+   *                            если все сегменты удалены
+   */
+  JournalFile(Path directory, int segmentRecords, long lastAppliedSequence) {
+    this.directory = directory;
+    this.segmentRecords = segmentRecords;
+    this.lastSequence = lastAppliedSequence;
+    try {
+      Files.createDirectories(directory);
+      recover();
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to open journal in " + directory, e);
+    }
+    this.durableSequence = lastSequence;
+  }
+
+  long lastSequence() {
+    synchronized (this) {
+      return lastSequence;
+    }
+  }
+
+  /**
+   * Добавляет запись в память. Запись не долговечна, пока не вызван {@link #awaitDurable(long)}.
+   *
+   * @return номер записи
+   */
+  synchronized long append(UUID walletId, long delta, long balance) {
+    Segment segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    if (segment == null || segment.isFull() || segment.lastSequence() != lastSequence) {
+      if (segment != null) {
+        segment.buffer.force();
+      }
+      segment = openSegment(lastSequence + 1);
+      segments.add(segment);
+    }
+    long sequence = lastSequence + 1;
+    segment.write(sequence, walletId, delta, balance);
+    lastSequence = sequence;
+    return sequence;
+  }
+
+  /**
+   * Возвращает управление, когда запись с номером {@code sequence} и все предыдущие сброшены на диск.
+   * Если сброс уже идёт, поток ждёт его и при необходимости запускает следующий.
+   */
+  void awaitDurable(long sequence) {
+    while (true) {
+      synchronized (syncMonitor) {
+        while (durableSequence < sequence && syncing) {
+          try {
+            syncMonitor.wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for journal sync", e);
+          }
+        }
+        if (durableSequence >= sequence) {
+          return;
+        }
+        syncing = true;
+      }
+      long synced = 0;
+      try {
+        synced = force();
+      } finally {
+        synchronized (syncMonitor) {
+          durableSequence = Math.max(durableSequence, synced);
+          syncing = false;
+          syncMonitor.notifyAll();
+        }
+      }
+    }
+  }
+
+  long durableSequence() {
+    synchronized (syncMonitor) {
+      return durableSequence;
+    }
+  }
+
+  /**
+   * Записи с номерами после {@code afterSequence}, не больше {@code limit} и не дальше сброшенных на диск.
+   */
+  List<JournalRecord> read(long afterSequence, int limit) {
+    long upTo = Math.min(durableSequence(), afterSequence + limit);
+    List<JournalRecord> records = new ArrayList<>((int) Math.max(0, upTo - afterSequence));
+    List<Segment> snapshot;
+    synchronized (this) {
+      snapshot = new ArrayList<>(segments);
+    }
+    for (Segment segment : snapshot) {
+      for (long sequence = Math.max(afterSequence + 1, segment.firstSequence);
+           sequence <= Math.min(upTo, segment.lastSequence()); sequence++) {
+        records.add(segment.read(sequence));
+      }
+    }
+    return records;
+  }
+
+  /**
+   * Удаляет сегменты, все записи которых не новее {@code sequence}. Текущий сегмент не удаляется.
+   */
+  synchronized void deleteUpTo(long sequence) {
+    while (segments.size() > 1 && segments.get(0).lastSequence() <= sequence) {
+      Segment segment = segments.remove(0);
+      try {
+        Files.deleteIfExists(segment.path);
+      } catch (IOException e) {
+        log.warn("Failed to delete journal segment {}: {}", segment.path, e.getMessage());
+      }
+    }
+  }
+
+  /**
+   * Удаляет все сегменты: вызывается, когда все записи применены к базе.
+   */
+  synchronized void deleteAll() {
+    for (Segment segment : segments) {
+      try {
+        Files.deleteIfExists(segment.path);
+      } catch (IOException e) {
+        log.warn("Failed to delete journal segment {}: {}", segment.path, e.getMessage());
+      }
+    }
+    segments.clear();
+  }
+
+  @Override
+  public synchronized void close() {
+    for (Segment segment : segments) {
+      segment.buffer.force();
+    }
+    segments.clear();
+  }
+
+  private long force() {
+    long target;
+    Segment segment;
+    synchronized (this) {
+      target = lastSequence;
+      segment = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+    }
+    if (segment != null) {
+      segment.buffer.force();
+    }
+    return target;
+  }
+
+  private void recover() throws IOException {
+    List<Path> files;
+    try (Stream<Path> list = Files.list(directory)) {
+      files = list.filter(path -> path.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+    }
+    boolean truncated = false;
+    long expectedFirst = -1;
+    for (Path file : files) {
+      long firstSequence = Long.parseLong(file.getFileName().toString().replace(SUFFIX, ""));
+      if (truncated || (expectedFirst > 0 && firstSequence != expectedFirst)) {
+        log.warn("Deleting journal segment {} after a torn tail", file);
+        Files.delete(file);
+        truncated = true;
+        continue;
+      }
+      Segment segment = new Segment(file, firstSequence, map(file));
+      long sequence = firstSequence;
+      while (sequence < firstSequence + segmentRecords && segment.isValid(sequence)) {
+        sequence++;
+      }
+      segment.count = (int) (sequence - firstSequence);
+      if (segment.count == 0) {
+        Files.delete(file);
+        truncated = true;
+        continue;
+      }
+      segments.add(segment);
+      lastSequence = Math.max(lastSequence, segment.lastSequence());
+      expectedFirst = segment.lastSequence() + 1;
+      if (!segment.isFull()) {
+        segment.zeroTail();
+        truncated = true;
+      }
+    }
+  }
+
+  private Segment openSegment(long firstSequence) {
+    Path file = directory.resolve("%020d%s".formatted(firstSequence, SUFFIX));
+    try {
+      return new Segment(file, firstSequence, map(file));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to create journal segment " + file, e);
+    }
+  }
+
+  private MappedByteBuffer map(Path file) throws IOException {
+    try (FileChannel channel = FileChannel.open(file,
+      StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+      return channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) segmentRecords * RECORD_SIZE);
+    }
+  }
+
+  private final class Segment {
+    final Path path;
+    final long firstSequence;
+    final MappedByteBuffer buffer;
+    int count;
+
+    Segment(Path path, long firstSequence, MappedByteBuffer buffer) {
+      this.path = path;
+      this.firstSequence = firstSequence;
+      this.buffer = buffer;
+    }
+
+    boolean isFull() {
+      return count == segmentRecords;
+    }
+
+    long lastSequence() {
+      return firstSequence + count - 1;
+    }
+
+    void write(long sequence, UUID walletId, long delta, long balance) {
+      int offset = count * RECORD_SIZE;
+      buffer.putLong(offset, sequence);
+      buffer.putLong(offset + 8, walletId.getMostSignificantBits());
+      buffer.putLong(offset + 16, walletId.getLeastSignificantBits());
+      buffer.putLong(offset + 24, delta);
+      buffer.putLong(offset + 32, balance);
+      buffer.putInt(offset + CRC_OFFSET, checksum(offset));
+      count++;
+    }
+
+    JournalRecord read(long sequence) {
+      int offset = offsetOf(sequence);
+      return new JournalRecord(sequence,
+        new UUID(buffer.getLong(offset + 8), buffer.getLong(offset + 16)),
+        buffer.getLong(offset + 24),
+        buffer.getLong(offset + 32));
+    }
+
+    boolean isValid(long sequence) {
+      int offset = offsetOf(sequence);
+      return buffer.getLong(offset) == sequence && buffer.getInt(offset + CRC_OFFSET) == checksum(offset);
+    }
+
+    void zeroTail() {
+      ByteBuffer zeros = ByteBuffer.allocate(RECORD_SIZE);
+      for (int offset = count * RECORD_SIZE; offset < segmentRecords * RECORD_SIZE; offset += RECORD_SIZE) {
+        buffer.put(offset, zeros, 0, RECORD_SIZE);
+      }
+      buffer.force();
+    }
+
+    private int offsetOf(long sequence) {
+      return (int) (sequence - firstSequence) * RECORD_SIZE;
+    }
+
+    private int checksum(int offset) {
+      CRC32C crc = new CRC32C();
+      crc.update(buffer.slice(offset, CRC_OFFSET));
+      return (int) crc.getValue();
+    }
+  }
+}
@@ -0,0 +1,24 @@
+package ru.itk.wallet_service.service.journal;
+
+import lombok.Value;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.db.model.WalletOperation;
+
+import java.util.UUID;
+
+/**
+ * Запись локального журнала: изменение баланса кошелька и баланс после него, в минорных единицах.
+ * Номер записи непрерывно возрастает и служит ключом идемпотентного применения к базе.
+ */
+@Value
+public class JournalRecord {
+  long sequence;
+  UUID walletId;
+  long delta;
+  long balance;
+
+  public WalletOperation toOperation() {
+    OperationType type = delta < 0 ? OperationType.WITHDRAW : OperationType.DEPOSIT;
+    return WalletOperation.of(walletId, type, Math.abs(delta), balance);
+  }
+}
@@ -0,0 +1,293 @@
+package ru.itk.wallet_service.service.journal;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.stereotype.Component;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.db.repository.JournalCheckpointRepository;
+import ru.itk.wallet_service.db.routing.RoutingDataSource;
+import ru.itk.wallet_service.handler.exception.BalanceOverflowException;
+import ru.itk.wallet_service.handler.exception.InsufficientFundsException;
+import ru.itk.wallet_service.handler.exception.InvalidOperationTypeException;
+import ru.itk.wallet_service.money.MinorUnits;
+import ru.itk.wallet_service.service.WalletService;
+import ru.itk.wallet_service.service.metrics.WalletMetrics;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Режим локального журнала (wallet.journal.enabled): операция подтверждается после записи в локальный
+ * журнал и сброса его на диск, а в базу журнал применяется фоном пачками ({@link JournalApplier}).
+ * <p>
+ * Балансы кошельков, изменённых через журнал, ведутся в памяти и по ним проверяется достаточность средств.
+ * Баланс загружается из базы при первом изменении кошелька и выгружается из памяти, когда все его записи
+ * применены к базе; чтение баланса кошелька, которого нет в памяти, идёт в базу и в память его не добавляет.
+ * При запуске балансы кошельков с неприменёнными записями восстанавливаются из последних записей журнала.
+ * Пока в памяти есть баланс кошелька, никто, кроме журнала, не должен менять этот кошелёк в базе,
+ * поэтому транзакционные операции в этом режиме отклоняются
+ * ({@link ru.itk.wallet_service.handler.exception.JournalModeException}).
+ * <p>
+ * Если режим выключен, а в каталоге остались сегменты, при запуске они применяются к базе и удаляются.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WalletJournal implements SmartInitializingSingleton {
+  private static final String METRIC = "journal";
+
+  private final JournalApplier applier;
+  private final JournalCheckpointRepository checkpointRepository;
+  private final WalletService service;
+  private final WalletMetrics metrics;
+  private final WalletProperties properties;
+
+  private final Map<UUID, JournaledBalance> balances = new ConcurrentHashMap<>();
+  private final Object applyMonitor = new Object();
+  private volatile JournalFile file;
+  private long appliedSequence;
+  private ScheduledExecutorService applyExecutor;
+
+  public boolean isEnabled() {
+    return properties.getJournal().isEnabled();
+  }
+
+  /**
+   * Журнал открывается до запуска веб-сервера, а не по ApplicationReadyEvent: к первому запросу
+   * балансы неприменённых записей уже восстановлены.
+   */
+  @Override
+  public void afterSingletonsInstantiated() {
+    WalletProperties.Journal settings = properties.getJournal();
+    Path directory = Path.of(settings.getDirectory());
+    if (!settings.isEnabled() && !hasSegments(directory)) {
+      return;
+    }
+    int segmentRecords = (int) Math.max(1, settings.getSegmentSize().toBytes() / JournalFile.RECORD_SIZE);
+    appliedSequence = checkpointRepository.findAppliedSequence(settings.getId());
+    JournalFile opened = new JournalFile(directory, segmentRecords, appliedSequence);
+    restoreBalances(opened);
+    log.info("Journal {} opened: applied up to {}, last record {}", settings.getId(), appliedSequence,
+      opened.lastSequence());
+    file = opened;
+    if (!settings.isEnabled()) {
+      applyPending();
+      if (appliedSequence < opened.lastSequence()) {
+        throw new IllegalStateException("Journal %s has records after %d that are not applied to the database"
+          .formatted(settings.getId(), appliedSequence));
+      }
+      opened.deleteAll();
+      opened.close();
+      file = null;
+      balances.clear();
+      log.info("Journal {} drained and removed: journal mode is disabled", settings.getId());
+      return;
+    }
+    long interval = Math.max(1, settings.getApplyInterval().toMillis());
+    applyExecutor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "wallet-journal-apply");
+      thread.setDaemon(true);
+      return thread;
+    });
+    applyExecutor.scheduleWithFixedDelay(this::applyPending, interval, interval, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Изменяет баланс в памяти, добавляет запись в журнал и возвращает управление после её сброса на диск.
+   */
+  public Wallet update(SaveWalletDto dto) {
+    UUID walletId = dto.getWalletId();
+    long amount = MinorUnits.toMinor(dto.getAmount());
+    long delta = switch (dto.getOperationType()) {
+      case DEPOSIT -> amount;
+      case WITHDRAW -> -amount;
+      default -> throw new InvalidOperationTypeException(dto.getOperationType());
+    };
+    JournalFile journalFile = openFile();
+    long sequence;
+    long updated;
+    while (true) {
+      JournaledBalance balance = balanceOf(walletId);
+      synchronized (balance) {
+        // баланс выгружен после применения записей, пока этот поток ждал блокировку: берём актуальный
+        if (balance.evicted) {
+          continue;
+        }
+        updated = next(walletId, balance.amount, delta, dto);
+        sequence = journalFile.append(walletId, delta, updated);
+        balance.amount = updated;
+        balance.lastSequence = sequence;
+        break;
+      }
+    }
+    metrics.recordUpdate(METRIC, () -> {
+      journalFile.awaitDurable(sequence);
+      return sequence;
+    });
+    return snapshot(walletId, updated);
+  }
+
+  public Wallet getBalance(UUID walletId) {
+    openFile();
+    JournaledBalance balance = balances.get(walletId);
+    return snapshot(walletId, balance != null ? balance.amount : load(walletId));
+  }
+
+  /**
+   * Применяет к базе все сброшенные на диск записи пачками по {@code apply-batch-size}.
+   * Выполняется собственным потоком раз в {@code apply-interval}. При ошибке базы записи остаются
+   * в журнале и применяются в следующий раз, подтверждение операций при этом не замедляется.
+   */
+  public void applyPending() {
+    JournalFile journalFile = file;
+    if (journalFile == null) {
+      return;
+    }
+    WalletProperties.Journal settings = properties.getJournal();
+    synchronized (applyMonitor) {
+      try {
+        List<JournalRecord> records;
+        while (!(records = journalFile.read(appliedSequence, Math.max(1, settings.getApplyBatchSize()))).isEmpty()) {
+          applier.apply(settings.getId(), appliedSequence, records);
+          appliedSequence = records.get(records.size() - 1).getSequence();
+          journalFile.deleteUpTo(appliedSequence);
+        }
+      } catch (RuntimeException e) {
+        log.warn("Failed to apply journal {} after record {}: {}", settings.getId(), appliedSequence, e.getMessage());
+      }
+      evictApplied();
+    }
+  }
+
+  @PreDestroy
+  public void close() {
+    JournalFile journalFile = file;
+    if (journalFile == null) {
+      return;
+    }
+    if (applyExecutor != null) {
+      applyExecutor.shutdown();
+    }
+    applyPending();
+    journalFile.close();
+    file = null;
+  }
+
+  private JournalFile openFile() {
+    JournalFile journalFile = file;
+    if (journalFile == null) {
+      throw new IllegalStateException("Journal is not open");
+    }
+    return journalFile;
+  }
+
+  /**
+   * Баланс кошелька в памяти. Загрузка из базы безопасна вне блокировки: пока кошелька нет в памяти,
+   * у него нет неприменённых записей, и две конкурентные загрузки прочитают одно и то же.
+   */
+  private JournaledBalance balanceOf(UUID walletId) {
+    JournaledBalance balance = balances.get(walletId);
+    if (balance != null) {
+      return balance;
+    }
+    long loaded = load(walletId);
+    return balances.computeIfAbsent(walletId, id -> new JournaledBalance(loaded));
+  }
+
+  /**
+   * Баланс читается из основной базы: отстающая реплика дала бы устаревшую основу для проверки
+   * достаточности средств, которая потом не перечитывается.
+   */
+  private long load(UUID walletId) {
+    return RoutingDataSource.onPrimary(() -> service.getBalance(walletId)).getAmountMinor();
+  }
+
+  /**
+   * Выгружает из памяти балансы, все записи которых уже применены к базе: дальше база содержит тот же баланс.
+   * Выгруженный баланс помечается под его блокировкой, чтобы ждущая его операция загрузила кошелёк заново.
+   */
+  private void evictApplied() {
+    long applied = appliedSequence;
+    balances.forEach((walletId, balance) -> {
+      if (balance.lastSequence > applied) {
+        return;
+      }
+      synchronized (balance) {
+        if (balance.lastSequence <= applied) {
+          balance.evicted = true;
+          balances.remove(walletId, balance);
+        }
+      }
+    });
+  }
+
+  private void restoreBalances(JournalFile journalFile) {
+    int batchSize = Math.max(1, properties.getJournal().getApplyBatchSize());
+    long after = appliedSequence;
+    List<JournalRecord> records;
+    while (!(records = journalFile.read(after, batchSize)).isEmpty()) {
+      for (JournalRecord record : records) {
+        JournaledBalance balance = balances.computeIfAbsent(record.getWalletId(), id -> new JournaledBalance(0));
+        balance.amount = record.getBalance();
+        balance.lastSequence = record.getSequence();
+      }
+      after = records.get(records.size() - 1).getSequence();
+    }
+  }
+
+  private static long next(UUID walletId, long current, long delta, SaveWalletDto dto) {
+    if (delta < 0 && current + delta < 0) {
+      throw new InsufficientFundsException(walletId, dto.getAmount());
+    }
+    try {
+      return Math.addExact(current, delta);
+    } catch (ArithmeticException e) {
+      throw new BalanceOverflowException(walletId, dto.getAmount());
+    }
+  }
+
+  private static Wallet snapshot(UUID walletId, long amountMinor) {
+    Wallet wallet = new Wallet();
+    wallet.setWalletId(walletId);
+    wallet.setAmountMinor(amountMinor);
+    return wallet;
+  }
+
+  private static boolean hasSegments(Path directory) {
+    if (!Files.isDirectory(directory)) {
+      return false;
+    }
+    try (Stream<Path> list = Files.list(directory)) {
+      return list.findAny().isPresent();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static final class JournaledBalance {
+    volatile long amount;
+    /**
+     * Номер последней записи журнала по кошельку; 0, если записей ещё не было.
+     */
+    volatile long lastSequence;
+    volatile boolean evicted;
+
+    JournaledBalance(long amount) {
+      this.amount = amount;
+    }
+  }
+}
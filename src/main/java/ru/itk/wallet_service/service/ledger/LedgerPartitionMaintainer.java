@@ -0,0 +1,103 @@
+package ru.itk.wallet_service.service.ledger;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.routing.Bulkhead;
+import ru.itk.wallet_service.db.routing.RoutingDataSource;
+
+import java.time.Clock;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Обслуживает помесячные секции журнала операций wallet_operation:
+ * заранее создаёт секции на ближайшие месяцы и отсоединяет секции старше срока хранения.
+ * Отсоединённая секция остаётся обычной таблицей и может быть выгружена или удалена отдельно.
+ * Запросы выполняются в пуле массовых задач ({@link Bulkhead#BULK}).
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerPartitionMaintainer {
+  private static final String PARTITION_PREFIX = "wallet_operation_p";
+  private static final Pattern PARTITION_NAME = Pattern.compile(PARTITION_PREFIX + "(\\d{6})");
+  private static final DateTimeFormatter SUFFIX_FORMAT = DateTimeFormatter.ofPattern("yyyyMM");
+
+  private static final String CREATE_PARTITION_SQL =
+    "CREATE TABLE IF NOT EXISTS %s PARTITION OF wallet_operation FOR VALUES FROM ('%s') TO ('%s')";
+  private static final String DETACH_PARTITION_SQL = "ALTER TABLE wallet_operation DETACH PARTITION %s";
+  private static final String LIST_PARTITIONS_SQL = """
+    SELECT c.relname FROM pg_inherits i
+    JOIN pg_class c ON c.oid = i.inhrelid
+    JOIN pg_class p ON p.oid = i.inhparent
+    WHERE p.relname = 'wallet_operation'
+    """;
+
+  private final JdbcTemplate jdbcTemplate;
+  private final WalletProperties properties;
+  private final Clock clock = Clock.systemUTC();
+
+  @EventListener(ApplicationReadyEvent.class)
+  public void onStartup() {
+    maintain();
+  }
+
+  @Scheduled(cron = "${wallet.ledger.maintenance-cron:0 0 * * * *}")
+  public void maintain() {
+    RoutingDataSource.runInBulkhead(Bulkhead.BULK, this::maintainPartitions);
+  }
+
+  private void maintainPartitions() {
+    WalletProperties.Ledger settings = properties.getLedger();
+    YearMonth current = YearMonth.now(clock);
+    for (int i = 0; i <= settings.getPartitionsAhead(); i++) {
+      createPartition(current.plusMonths(i));
+    }
+    if (settings.getRetentionMonths() > 0) {
+      detachPartitionsBefore(current.minusMonths(settings.getRetentionMonths()));
+    }
+  }
+
+  private void createPartition(YearMonth month) {
+    String sql = CREATE_PARTITION_SQL.formatted(partitionName(month), lowerBound(month), lowerBound(month.plusMonths(1)));
+    try {
+      jdbcTemplate.execute(sql);
+    } catch (DataAccessException e) {
+      log.warn("Failed to create ledger partition for {}: {}", month, e.getMostSpecificCause().getMessage());
+    }
+  }
+
+  private void detachPartitionsBefore(YearMonth oldestKept) {
+    List<String> partitions = jdbcTemplate.queryForList(LIST_PARTITIONS_SQL, String.class);
+    for (String partition : partitions) {
+      Matcher matcher = PARTITION_NAME.matcher(partition);
+      if (matcher.matches() && YearMonth.parse(matcher.group(1), SUFFIX_FORMAT).isBefore(oldestKept)) {
+        try {
+          jdbcTemplate.execute(DETACH_PARTITION_SQL.formatted(partition));
+          log.info("Detached ledger partition {}", partition);
+        } catch (DataAccessException e) {
+          log.warn("Failed to detach ledger partition {}: {}", partition, e.getMostSpecificCause().getMessage());
+        }
+      }
+    }
+  }
+
+  private static String partitionName(YearMonth month) {
+    return PARTITION_PREFIX + month.format(SUFFIX_FORMAT);
+  }
+
+  private static String lowerBound(YearMonth month) {
+    return month.atDay(1).atStartOfDay().atOffset(ZoneOffset.UTC).toString();
+  }
+}
@@ -0,0 +1,21 @@
+package ru.itk.wallet_service.service.limit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/concurrency} — текущие пределы одновременных запросов и количество отклонённых запросов.
+ */
+@Component
+@RequiredArgsConstructor
+@Endpoint(id = "concurrency")
+public class ConcurrencyLimitEndpoint {
+  private final ConcurrencyLimiter limiter;
+
+  @ReadOperation
+  public ConcurrencyLimitStats concurrency() {
+    return limiter.stats();
+  }
+}
@@ -0,0 +1,16 @@
+package ru.itk.wallet_service.service.limit;
+
+/**
+ * Состояние ограничения одновременных запросов.
+ *
+ * @param limit          текущий предел одновременных запросов сервиса
+ * @param inflight       запросов в работе
+ * @param walletLimit    предел одновременных запросов к одному кошельку
+ * @param walletsInFlight кошельков с запросами в работе
+ * @param rttMillis      долгая средняя задержка запроса, миллисекунд
+ * @param rejected       отклонено запросов по пределу сервиса
+ * @param walletRejected отклонено запросов по пределу кошелька
+ */
+public record ConcurrencyLimitStats(boolean enabled, int limit, int inflight, int walletLimit, int walletsInFlight,
+                                    double rttMillis, long rejected, long walletRejected) {
+}
@@ -0,0 +1,133 @@
+package ru.itk.wallet_service.service.limit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.handler.exception.ConcurrencyLimitExceededException;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Допуск запросов по адаптивному пределу одновременных запросов ({@link GradientLimit}).
+ * <p>
+ * Сверх предела запрос отклоняется сразу, а не ждёт соединения из пула: клиент получает 429 и
+ * {@code Retry-After} — время, за которое при текущей задержке освободится место, со случайным разбросом,
+ * чтобы повторы не пришли одновременно. Запросы к одному кошельку дополнительно ограничены долей
+ * {@code wallet-share} от предела сервиса: горячий кошелёк, чьи операции ждут блокировку строки,
+ * не занимает весь предел.
+ * <p>
+ * Если ограничение выключено, запросы не считаются и не отклоняются.
+ */
+@Component
+public class ConcurrencyLimiter {
+  public static final String LIMIT = "wallet.limit.current";
+  public static final String INFLIGHT = "wallet.limit.inflight";
+  public static final String REJECTED = "wallet.limit.rejected";
+
+  private final WalletProperties.Limit settings;
+  private final GradientLimit limit;
+  private final AtomicInteger inflight = new AtomicInteger();
+  private final Map<UUID, Integer> walletInflight = new ConcurrentHashMap<>();
+  private final Counter rejected;
+  private final Counter walletRejected;
+
+  public ConcurrencyLimiter(WalletProperties properties, MeterRegistry meterRegistry) {
+    this.settings = properties.getLimit();
+    this.limit = new GradientLimit(settings);
+    this.rejected = Counter.builder(REJECTED).tag("scope", "service").register(meterRegistry);
+    this.walletRejected = Counter.builder(REJECTED).tag("scope", "wallet").register(meterRegistry);
+    Gauge.builder(LIMIT, limit, GradientLimit::getLimit).register(meterRegistry);
+    Gauge.builder(INFLIGHT, inflight, AtomicInteger::get).register(meterRegistry);
+  }
+
+  public boolean isEnabled() {
+    return settings.isEnabled();
+  }
+
+  /**
+   * Занимает место в пределе сервиса. Место освобождает {@link Permit#release()}, он же сообщает задержку пределу.
+   *
+   * @throws ConcurrencyLimitExceededException если предел занят
+   */
+  public Permit acquire() {
+    if (!isEnabled()) {
+      return Permit.NOOP;
+    }
+    int current = inflight.incrementAndGet();
+    int currentLimit = limit.getLimit();
+    if (current > currentLimit) {
+      inflight.decrementAndGet();
+      rejected.increment();
+      throw new ConcurrencyLimitExceededException(retryAfterSeconds(current, currentLimit));
+    }
+    long start = System.nanoTime();
+    return () -> limit.onSample(System.nanoTime() - start, inflight.getAndDecrement());
+  }
+
+  /**
+   * Выполняет {@code action}, если у кошелька меньше одновременных запросов, чем {@link #walletLimit()}.
+   *
+   * @throws ConcurrencyLimitExceededException если предел кошелька занят
+   */
+  public <T> T executeForWallet(UUID walletId, Supplier<T> action) {
+    if (!isEnabled()) {
+      return action.get();
+    }
+    int walletLimit = walletLimit();
+    int current = walletInflight.merge(walletId, 1, Integer::sum);
+    if (current > walletLimit) {
+      releaseWallet(walletId);
+      walletRejected.increment();
+      throw new ConcurrencyLimitExceededException(walletId, retryAfterSeconds(current, walletLimit));
+    }
+    try {
+      return action.get();
+    } finally {
+      releaseWallet(walletId);
+    }
+  }
+
+  /**
+   * Предел одновременных запросов к одному кошельку — доля предела сервиса.
+   */
+  public int walletLimit() {
+    return Math.max(settings.getMinWalletLimit(), (int) Math.ceil(limit.getLimit() * settings.getWalletShare()));
+  }
+
+  public ConcurrencyLimitStats stats() {
+    return new ConcurrencyLimitStats(isEnabled(), limit.getLimit(), inflight.get(), walletLimit(),
+      walletInflight.size(), limit.getLongRtt() / TimeUnit.MILLISECONDS.toNanos(1),
+      (long) rejected.count(), (long) walletRejected.count());
+  }
+
+  private void releaseWallet(UUID walletId) {
+    walletInflight.computeIfPresent(walletId, (id, count) -> count == 1 ? null : count - 1);
+  }
+
+  /**
+   * Время, за которое при текущей задержке завершатся запросы сверх предела, в секундах,
+   * плюс случайный разброс такой же величины; не меньше секунды и не больше {@code max-retry-after}.
+   */
+  private long retryAfterSeconds(int current, int currentLimit) {
+    double rttSeconds = limit.getLongRtt() / TimeUnit.SECONDS.toNanos(1);
+    long base = Math.max(1, (long) Math.ceil(rttSeconds * current / Math.max(1, currentLimit)));
+    long jittered = base + ThreadLocalRandom.current().nextLong(base + 1);
+    return Math.min(Math.max(1, settings.getMaxRetryAfter().toSeconds()), jittered);
+  }
+
+  @FunctionalInterface
+  public interface Permit {
+    Permit NOOP = () -> {
+    };
+
+    void release();
+  }
+}
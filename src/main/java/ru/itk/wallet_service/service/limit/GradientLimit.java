@@ -0,0 +1,76 @@
+package ru.itk.wallet_service.service.limit;
+
+import ru.itk.wallet_service.config.WalletProperties;
+
+/**
+ * Адаптивный предел одновременных запросов по задержке (градиентный алгоритм в духе Gradient2).
+ * <p>
+ * Долгая средняя задержка служит ориентиром задержки без очередей, краткая — текущей задержкой.
+ * Пока они близки, предел растёт на {@code queue-size} за шаг; когда запросы начинают копиться в очереди
+ * пула соединений или на блокировках строк, краткая задержка растёт, и предел уменьшается пропорционально
+ * их отношению, но не больше чем вдвое за шаг. Если занята меньше половины предела, он не растёт:
+ * задержка при малой нагрузке ничего не говорит о пропускной способности.
+ */
+class GradientLimit {
+  private static final double MIN_GRADIENT = 0.5;
+
+  private final int minLimit;
+  private final int maxLimit;
+  private final int queueSize;
+  private final double smoothing;
+  private final double tolerance;
+  private final int longWindow;
+  private final int shortWindow;
+
+  private double estimatedLimit;
+  private double longRtt;
+  private double shortRtt;
+
+  GradientLimit(WalletProperties.Limit settings) {
+    this.minLimit = Math.max(1, settings.getMinLimit());
+    this.maxLimit = Math.max(minLimit, settings.getMaxLimit());
+    this.queueSize = settings.getQueueSize();
+    this.smoothing = settings.getSmoothing();
+    this.tolerance = settings.getRttTolerance();
+    this.longWindow = Math.max(1, settings.getLongWindow());
+    this.shortWindow = Math.max(1, settings.getShortWindow());
+    this.estimatedLimit = Math.min(maxLimit, Math.max(minLimit, settings.getInitialLimit()));
+  }
+
+  synchronized int getLimit() {
+    return (int) estimatedLimit;
+  }
+
+  /**
+   * Долгая средняя задержка в наносекундах, 0 до первого замера.
+   */
+  synchronized double getLongRtt() {
+    return longRtt;
+  }
+
+  /**
+   * @param rttNanos задержка завершившегося запроса
+   * @param inflight запросов в работе, включая завершившийся
+   */
+  synchronized void onSample(long rttNanos, int inflight) {
+    double rtt = Math.max(1, rttNanos);
+    if (longRtt == 0) {
+      longRtt = rtt;
+      shortRtt = rtt;
+    } else {
+      longRtt += (rtt - longRtt) / longWindow;
+      shortRtt += (rtt - shortRtt) / shortWindow;
+    }
+    // после долгой перегрузки ориентир завышен: возвращаем его к текущей задержке быстрее окна
+    if (longRtt / shortRtt > 2) {
+      longRtt *= 0.95;
+    }
+    if (inflight < estimatedLimit / 2) {
+      return;
+    }
+    double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, tolerance * longRtt / shortRtt));
+    double newLimit = estimatedLimit * gradient + queueSize;
+    newLimit = estimatedLimit * (1 - smoothing) + newLimit * smoothing;
+    estimatedLimit = Math.max(minLimit, Math.min(maxLimit, newLimit));
+  }
+}
@@ -0,0 +1,54 @@
+package ru.itk.wallet_service.service.lock;
+
+import org.springframework.stereotype.Component;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.handler.exception.WalletLockTimeoutException;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Блокировки кошельков на стороне приложения, разбитые на фиксированное число полос.
+ * <p>
+ * Запрос захватывает полосу своего кошелька до открытия транзакции, поэтому
+ * остальные запросы к тому же кошельку ждут в памяти, а не на соединении из пула,
+ * заблокированном в Postgres на {@code SELECT ... FOR UPDATE}.
+ */
+@Component
+public class WalletStripedLock {
+  private final ReentrantLock[] stripes;
+  private final long waitTimeoutNanos;
+
+  public WalletStripedLock(WalletProperties properties) {
+    WalletProperties.Lock settings = properties.getLock();
+    this.stripes = new ReentrantLock[Math.max(1, settings.getStripes())];
+    for (int i = 0; i < stripes.length; i++) {
+      stripes[i] = new ReentrantLock(true);
+    }
+    this.waitTimeoutNanos = settings.getWaitTimeout().toNanos();
+  }
+
+  /**
+   * Выполняет действие под блокировкой полосы кошелька.
+   *
+   * @throws WalletLockTimeoutException если блокировку не удалось получить за {@code wait-timeout}
+   */
+  public <T> T executeLocked(UUID walletId, Supplier<T> action) {
+    ReentrantLock lock = stripes[Math.floorMod(walletId.hashCode(), stripes.length)];
+    try {
+      if (!lock.tryLock(waitTimeoutNanos, TimeUnit.NANOSECONDS)) {
+        throw new WalletLockTimeoutException(walletId);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WalletLockTimeoutException(walletId);
+    }
+    try {
+      return action.get();
+    } finally {
+      lock.unlock();
+    }
+  }
+}
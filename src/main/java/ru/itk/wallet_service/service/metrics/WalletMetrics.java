@@ -0,0 +1,103 @@
+package ru.itk.wallet_service.service.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Метрики операций с кошельками. Время запроса раскладывается на этапы:
+ * <ul>
+ *   <li>{@code wallet.operation} — вся операция от контроллера до ответа (теги operation, outcome);</li>
+ *   <li>{@code wallet.lock.wait} — ожидание блокировки строки в SELECT ... FOR UPDATE;</li>
+ *   <li>{@code wallet.db.update} — запись баланса и журнала до фиксации;</li>
+ *   <li>{@code wallet.commit} — фиксация транзакции.</li>
+ * </ul>
+ * Ожидание соединения из пула публикует Hikari ({@code hikaricp.connections.acquire}).
+ */
+@Component
+public class WalletMetrics {
+  public static final String OPERATION = "wallet.operation";
+  public static final String LOCK_WAIT = "wallet.lock.wait";
+  public static final String DB_UPDATE = "wallet.db.update";
+  public static final String COMMIT = "wallet.commit";
+  public static final String ERRORS = "wallet.errors";
+
+  private final MeterRegistry registry;
+
+  public WalletMetrics(MeterRegistry registry) {
+    this.registry = registry;
+  }
+
+  public <T> T recordOperation(String operation, Supplier<T> action) {
+    long start = System.nanoTime();
+    String outcome = "success";
+    try {
+      return action.get();
+    } catch (RuntimeException e) {
+      outcome = e.getClass().getSimpleName();
+      throw e;
+    } finally {
+      timer(OPERATION, operation).tag("outcome", outcome).register(registry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  public <T> T recordLockWait(String operation, Supplier<T> action) {
+    return record(LOCK_WAIT, operation, action);
+  }
+
+  public <T> T recordUpdate(String operation, Supplier<T> action) {
+    return record(DB_UPDATE, operation, action);
+  }
+
+  /**
+   * Измеряет фиксацию текущей транзакции: от начала фиксации до её завершения.
+   */
+  public void recordCommit(String operation) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      return;
+    }
+    Timer timer = timer(COMMIT, operation).register(registry);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      private long start;
+
+      @Override
+      public void beforeCommit(boolean readOnly) {
+        start = System.nanoTime();
+      }
+
+      @Override
+      public void afterCommit() {
+        timer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    });
+  }
+
+  /**
+   * Увеличивает счётчик ошибок, отданных клиенту.
+   *
+   * @param type тип ошибки, например {@code not_found}
+   */
+  public void countError(String type) {
+    registry.counter(ERRORS, "type", type).increment();
+  }
+
+  private <T> T record(String name, String operation, Supplier<T> action) {
+    long start = System.nanoTime();
+    try {
+      return action.get();
+    } finally {
+      timer(name, operation).register(registry)
+        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+  }
+
+  private static Timer.Builder timer(String name, String operation) {
+    return Timer.builder(name).tag("operation", operation);
+  }
+}
@@ -0,0 +1,18 @@
+package ru.itk.wallet_service.service.model;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import ru.itk.wallet_service.db.model.WalletOperation;
+
+import java.util.List;
+
+/**
+ * Страница истории операций кошелька. {@code nextCursor} — номер последней операции страницы,
+ * с которого продолжается следующая; {@code null}, если операций больше нет.
+ */
+@Getter
+@RequiredArgsConstructor
+public class OperationPage {
+  private final List<WalletOperation> operations;
+  private final Long nextCursor;
+}
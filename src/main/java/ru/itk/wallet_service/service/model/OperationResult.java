@@ -0,0 +1,54 @@
+package ru.itk.wallet_service.service.model;
+
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.PessimisticLockException;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.PessimisticLockingFailureException;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.enums.OperationStatus;
+import ru.itk.wallet_service.handler.exception.BusinessException;
+
+/**
+ * Результат одной операции из пакета: состояние кошелька после операции
+ * либо ошибка, из-за которой операция не была применена.
+ */
+@Getter
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class OperationResult {
+  private final OperationStatus status;
+  private final Wallet wallet;
+  private final RuntimeException error;
+
+  public static OperationResult success(Wallet wallet) {
+    return new OperationResult(OperationStatus.APPLIED, wallet, null);
+  }
+
+  /**
+   * Бизнес-отказ ({@link BusinessException}) получает статус {@link OperationStatus#REJECTED},
+   * занятая блокировка — {@link OperationStatus#BUSY}, любая другая ошибка — {@link OperationStatus#FAILED}.
+   */
+  public static OperationResult failure(RuntimeException error) {
+    return new OperationResult(statusOf(error), null, error);
+  }
+
+  public static OperationResult rolledBack() {
+    return new OperationResult(OperationStatus.ROLLED_BACK, null, null);
+  }
+
+  public boolean isSuccess() {
+    return status == OperationStatus.APPLIED;
+  }
+
+  private static OperationStatus statusOf(RuntimeException error) {
+    if (error instanceof BusinessException) {
+      return OperationStatus.REJECTED;
+    }
+    if (error instanceof PessimisticLockException || error instanceof LockTimeoutException
+      || error instanceof PessimisticLockingFailureException) {
+      return OperationStatus.BUSY;
+    }
+    return OperationStatus.FAILED;
+  }
+}
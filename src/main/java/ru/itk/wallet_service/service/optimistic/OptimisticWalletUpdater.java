@@ -0,0 +1,107 @@
+package ru.itk.wallet_service.service.optimistic;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.enums.UpdateMode;
+import ru.itk.wallet_service.handler.exception.WalletUpdateConflictException;
+import ru.itk.wallet_service.service.WalletService;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Оптимистичное изменение баланса с повторами.
+ * <p>
+ * Каждая попытка выполняется в отдельной транзакции {@link WalletService#updateWalletOptimistically}.
+ * Перед повтором поток ждёт случайное время от нуля до {@code initialBackoff * 2^(n-1)}, но не больше {@code maxBackoff},
+ * чтобы конкурирующие запросы не повторялись синхронно.
+ * <p>
+ * В режиме {@link UpdateMode#ADAPTIVE} конфликты версий считаются по кошелькам: кошелёк, набравший
+ * {@code contentionThreshold} конфликтов за {@code contentionWindow}, изменяется с блокировкой строки,
+ * пока конфликты не забудутся.
+ */
+@Slf4j
+@Component
+public class OptimisticWalletUpdater {
+  private final WalletService service;
+  private final WalletProperties properties;
+  private final Cache<UUID, AtomicInteger> conflicts;
+
+  public OptimisticWalletUpdater(WalletService service, WalletProperties properties) {
+    this.service = service;
+    this.properties = properties;
+    WalletProperties.Optimistic settings = properties.getOptimistic();
+    this.conflicts = Caffeine.newBuilder()
+      .maximumSize(settings.getTrackedWallets())
+      .expireAfterWrite(settings.getContentionWindow())
+      .build();
+  }
+
+  /**
+   * Нужно ли изменять кошелёк оптимистично при текущем режиме.
+   */
+  public boolean appliesTo(UUID walletId) {
+    return switch (properties.getUpdateMode()) {
+      case OPTIMISTIC -> true;
+      case ADAPTIVE -> !isContended(walletId);
+      case PESSIMISTIC, ATOMIC -> false;
+    };
+  }
+
+  public Wallet update(SaveWalletDto dto) {
+    WalletProperties.Optimistic settings = properties.getOptimistic();
+    int maxAttempts = Math.max(1, settings.getMaxAttempts());
+    UUID walletId = dto.getWalletId();
+    for (int attempt = 1; ; attempt++) {
+      try {
+        return service.updateWalletOptimistically(dto);
+      } catch (OptimisticLockingFailureException e) {
+        recordConflict(walletId);
+        if (attempt >= maxAttempts) {
+          throw new WalletUpdateConflictException(walletId, attempt);
+        }
+        if (properties.getUpdateMode() == UpdateMode.ADAPTIVE && isContended(walletId)) {
+          log.debug("Wallet {} became contended, switching to pessimistic update", walletId);
+          return service.updateWallet(dto);
+        }
+        backOff(walletId, attempt, settings);
+      }
+    }
+  }
+
+  boolean isContended(UUID walletId) {
+    AtomicInteger count = conflicts.getIfPresent(walletId);
+    return count != null && count.get() >= properties.getOptimistic().getContentionThreshold();
+  }
+
+  private void recordConflict(UUID walletId) {
+    // запись обновляется при каждом конфликте, поэтому счётчик сбрасывается только после окна без конфликтов
+    conflicts.asMap().compute(walletId, (id, count) -> {
+      AtomicInteger updated = count == null ? new AtomicInteger() : count;
+      updated.incrementAndGet();
+      return updated;
+    });
+  }
+
+  private static void backOff(UUID walletId, int attempt, WalletProperties.Optimistic settings) {
+    long ceiling = Math.min(settings.getMaxBackoff().toNanos(),
+      settings.getInitialBackoff().toNanos() << Math.min(attempt - 1, 20));
+    if (ceiling <= 0) {
+      return;
+    }
+    try {
+      TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new WalletUpdateConflictException(walletId, attempt);
+    }
+  }
+}
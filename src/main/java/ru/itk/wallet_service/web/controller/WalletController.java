@@ -1,24 +1,64 @@
 package ru.itk.wallet_service.web.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springdoc.core.annotations.ParameterObject;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.itk.wallet_service.annotation.versioning.ApiVersion;
+import ru.itk.wallet_service.db.routing.Bulkhead;
+import ru.itk.wallet_service.db.routing.RoutingDataSource;
 import ru.itk.wallet_service.mapper.WalletMapper;
+import ru.itk.wallet_service.mapper.WalletOperationMapper;
+import ru.itk.wallet_service.money.MinorUnits;
+import ru.itk.wallet_service.service.WalletOperationDispatcher;
 import ru.itk.wallet_service.service.WalletService;
+import ru.itk.wallet_service.service.async.WalletSerialExecutor;
+import ru.itk.wallet_service.service.batch.WalletBatchProcessor;
+import ru.itk.wallet_service.service.bulk.WalletBulkCreator;
+import ru.itk.wallet_service.service.export.WalletExporter;
+import ru.itk.wallet_service.service.history.OperationHistoryService;
+import ru.itk.wallet_service.service.limit.ConcurrencyLimiter;
+import ru.itk.wallet_service.service.metrics.WalletMetrics;
+import ru.itk.wallet_service.service.model.OperationResult;
+import ru.itk.wallet_service.web.dto.BatchOperationRequestDto;
+import ru.itk.wallet_service.web.dto.BatchOperationResultDto;
+import ru.itk.wallet_service.web.dto.BulkCreateWalletDto;
+import ru.itk.wallet_service.web.dto.OperationHistoryQueryDto;
+import ru.itk.wallet_service.web.dto.OperationPageDto;
 import ru.itk.wallet_service.web.dto.SaveWalletDto;
+import ru.itk.wallet_service.web.dto.ShardWalletDto;
+import ru.itk.wallet_service.web.dto.TransferBatchRequestDto;
+import ru.itk.wallet_service.web.dto.TransferDto;
 import ru.itk.wallet_service.web.dto.WalletDto;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Locale;
 import java.util.UUID;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPOutputStream;
 
 @Slf4j
 @Validated
@@ -26,8 +66,20 @@ import java.util.UUID;
 @RequiredArgsConstructor
 @Tag(name = "Операции с кошельками", description = "API для работы с кошельками")
 public class WalletController {
+  public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
   private final WalletService service;
+  private final WalletOperationDispatcher dispatcher;
+  private final WalletBatchProcessor batchProcessor;
+  private final WalletBulkCreator bulkCreator;
+  private final OperationHistoryService historyService;
+  private final WalletExporter exporter;
+  private final WalletSerialExecutor serialExecutor;
+  private final ConcurrencyLimiter limiter;
   private final WalletMapper mapper;
+  private final WalletOperationMapper operationMapper;
+  private final WalletMetrics metrics;
 
   @ApiVersion("1")
   @Operation(
@@ -44,7 +96,36 @@ public class WalletController {
   @ResponseStatus(HttpStatus.CREATED)
   public WalletDto createWallet() {
     log.debug("Request for POST create Wallet started");
-    return mapper.toDto(service.createWallet());
+    // вставка не ждёт блокировок строк и не должна стоять в очереди пула за изменениями балансов
+    return mapper.toDto(metrics.recordOperation("create",
+      () -> RoutingDataSource.inBulkhead(Bulkhead.READS, service::createWallet)));
+  }
+
+  @ApiVersion("1")
+  @Operation(summary = "Создать кошельки пакетом",
+    description = "Создает кошельки с нулевым балансом: указанное количество с идентификаторами UUIDv7 "
+      + "или по списку идентификаторов клиента, уже существующие пропускаются. Идентификаторы созданных "
+      + "кошельков возвращаются потоком NDJSON по мере вставки порций; оборванный поток означает, "
+      + "что созданы только полученные кошельки.",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Поток идентификаторов созданных кошельков",
+        content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE)),
+      @ApiResponse(responseCode = "400", description = "Некорректный запрос", content = @Content)
+    }
+  )
+  @PostMapping(value = "/wallet/create/bulk", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public ResponseEntity<StreamingResponseBody> createWallets(@Valid @RequestBody BulkCreateWalletDto dto) {
+    log.debug("Request for POST bulk create Wallets started");
+    StreamingResponseBody body = output -> {
+      Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+      long created = metrics.recordOperation("bulk_create",
+        () -> bulkCreator.create(dto, walletIds -> writeWalletIds(writer, walletIds)));
+      writer.flush();
+      log.debug("Bulk create Wallets finished: {} created", created);
+    };
+    return ResponseEntity.ok()
+      .contentType(MediaType.APPLICATION_NDJSON)
+      .body(body);
   }
 
   @ApiVersion("1")
@@ -56,12 +137,102 @@ public class WalletController {
           schema = @Schema(implementation = WalletDto.class))),
       @ApiResponse(responseCode = "400", description = "Некорректный запрос", content = @Content),
       @ApiResponse(responseCode = "404", description = "Кошелек не найден", content = @Content),
-      @ApiResponse(responseCode = "409", description = "Недостаточно средств для снятия", content = @Content)
+      @ApiResponse(responseCode = "409", description = "Недостаточно средств для снятия", content = @Content),
+      @ApiResponse(responseCode = "429", description = "Слишком много одновременных запросов, повторите через Retry-After",
+        content = @Content)
     })
   @PostMapping("/wallet")
-  public WalletDto updateWallet(@Valid @RequestBody SaveWalletDto dto) {
+  public WalletDto updateWallet(@Valid @RequestBody SaveWalletDto dto,
+                                @Parameter(description = "Ключ идемпотентности: повтор запроса с тем же ключом "
+                                  + "для того же кошелька возвращает результат первого выполнения")
+                                @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey) {
     log.debug("Request for POST update Wallet started");
-    return mapper.toDto(service.updateWallet(dto));
+    return mapper.toDto(limiter.executeForWallet(dto.getWalletId(), () -> metrics.recordOperation(operationName(dto),
+      () -> dispatcher.updateWallet(dto, idempotencyKey))));
+  }
+
+  @ApiVersion("1")
+  @Operation(summary = "Изменить баланс кошелька асинхронно",
+    description = "То же, что POST /wallet, но поток сервера освобождается, пока операция ждёт очереди кошелька. "
+      + "Операция, не начавшаяся до истечения таймаута, отменяется.",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Операция выполнена успешно",
+        content = @Content(mediaType = "application/json",
+          schema = @Schema(implementation = WalletDto.class))),
+      @ApiResponse(responseCode = "400", description = "Некорректный запрос", content = @Content),
+      @ApiResponse(responseCode = "404", description = "Кошелек не найден", content = @Content),
+      @ApiResponse(responseCode = "409", description = "Недостаточно средств или операция не дождалась очереди",
+        content = @Content),
+      @ApiResponse(responseCode = "503", description = "Операция не завершилась за отведённое время, результат неизвестен",
+        content = @Content)
+    })
+  @PostMapping("/wallet/async")
+  public DeferredResult<WalletDto> updateWalletAsync(@Valid @RequestBody SaveWalletDto dto,
+                                                     @Parameter(description = "Ключ идемпотентности")
+                                                     @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                     String idempotencyKey) {
+    log.debug("Request for POST async update Wallet started");
+    return serialExecutor.submit(dto.getWalletId(), () -> mapper.toDto(metrics.recordOperation(operationName(dto),
+      () -> dispatcher.updateWallet(dto, idempotencyKey))));
+  }
+
+  @ApiVersion("1")
+  @Operation(summary = "Применить пакет операций",
+    description = "Пополнения и снятия по многим кошелькам за один запрос. В режиме ALL_OR_NOTHING пакет "
+      + "применяется одной транзакцией и откатывается при любой ошибке, в режиме BEST_EFFORT частями, "
+      + "отклонённые операции пропускаются. Возвращает результат для каждой операции.",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Пакет обработан",
+        content = @Content(mediaType = "application/json",
+          schema = @Schema(implementation = BatchOperationResultDto.class))),
+      @ApiResponse(responseCode = "400", description = "Некорректный запрос", content = @Content)
+    })
+  @PostMapping("/wallet/batch")
+  public List<BatchOperationResultDto> updateWallets(@Valid @RequestBody BatchOperationRequestDto dto) {
+    log.debug("Request for POST batch update Wallets started");
+    List<SaveWalletDto> operations = dto.getOperations();
+    List<OperationResult> results = batchProcessor.process(operations, dto.getMode());
+    return IntStream.range(0, operations.size())
+      .mapToObj(i -> BatchOperationResultDto.of(i, operations.get(i), results.get(i)))
+      .toList();
+  }
+
+  @ApiVersion("1")
+  @Operation(summary = "Перевести средства между кошельками",
+    description = "Списывает сумму с кошелька отправителя и зачисляет на кошелёк получателя в одной транзакции. "
+      + "Возвращает оба кошелька после перевода: сначала отправителя, затем получателя.",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Перевод выполнен",
+        content = @Content(mediaType = "application/json",
+          schema = @Schema(implementation = WalletDto.class))),
+      @ApiResponse(responseCode = "400", description = "Некорректный запрос", content = @Content),
+      @ApiResponse(responseCode = "404", description = "Кошелек не найден", content = @Content),
+      @ApiResponse(responseCode = "409", description = "Недостаточно средств у отправителя", content = @Content)
+    })
+  @PostMapping("/wallet/transfer")
+  public List<WalletDto> transfer(@Valid @RequestBody TransferDto dto) {
+    log.debug("Request for POST transfer started");
+    return mapper.toDto(metrics.recordOperation("transfer", () -> service.transfer(dto)));
+  }
+
+  @ApiVersion("1")
+  @Operation(summary = "Применить пакет переводов",
+    description = "Взаимозачитывает переводы и применяет к каждому кошельку одно итоговое изменение в одной "
+      + "транзакции. Средств должно хватать на итоговое списание; при любой ошибке пакет не применяется. "
+      + "Возвращает затронутые кошельки в порядке первого упоминания.",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Пакет применён",
+        content = @Content(mediaType = "application/json",
+          schema = @Schema(implementation = WalletDto.class))),
+      @ApiResponse(responseCode = "400", description = "Некорректный запрос", content = @Content),
+      @ApiResponse(responseCode = "404", description = "Кошелек не найден", content = @Content),
+      @ApiResponse(responseCode = "409", description = "Недостаточно средств для итогового списания",
+        content = @Content)
+    })
+  @PostMapping("/wallet/transfer/batch")
+  public List<WalletDto> transferBatch(@Valid @RequestBody TransferBatchRequestDto dto) {
+    log.debug("Request for POST batch transfer started");
+    return mapper.toDto(metrics.recordOperation("transfer_batch", () -> service.transferBatch(dto.getTransfers())));
   }
 
   @ApiVersion("1")
@@ -71,13 +242,140 @@ public class WalletController {
       @ApiResponse(responseCode = "200", description = "Баланс успешно получен",
         content = @Content(mediaType = "application/json",
           schema = @Schema(implementation = WalletDto.class))),
-      @ApiResponse(responseCode = "404", description = "Кошелек не найден", content = @Content)
+      @ApiResponse(responseCode = "404", description = "Кошелек не найден", content = @Content),
+      @ApiResponse(responseCode = "429", description = "Слишком много одновременных запросов, повторите через Retry-After",
+        content = @Content)
     })
   @GetMapping("/wallets/{walletId}")
   public WalletDto getBalance(@PathVariable @NotNull(message = "{default.valid.notNull}") UUID walletId) {
     log.debug("Request for GET Wallet by id started");
-    return mapper.toDto(service.getBalance(walletId));
+    return mapper.toDto(limiter.executeForWallet(walletId,
+      () -> metrics.recordOperation("get_balance", () -> dispatcher.getBalance(walletId))));
   }
 
-}
+  @ApiVersion("1")
+  @Operation(summary = "Выгрузить балансы всех кошельков",
+    description = "Возвращает поток NDJSON со строками {\"walletId\": ..., \"amount\": ...} по всем кошелькам "
+      + "на момент начала выгрузки. С заголовком Accept-Encoding: gzip поток сжимается. Оборванный поток "
+      + "означает неполную выгрузку.",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Поток балансов кошельков",
+        content = @Content(mediaType = MediaType.APPLICATION_NDJSON_VALUE))
+    })
+  @GetMapping(value = "/wallets/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+  public void exportWallets(@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                            HttpServletResponse response) throws IOException {
+    log.debug("Request for GET Wallets export started");
+    response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    OutputStream output = response.getOutputStream();
+    if (acceptsGzip(acceptEncoding)) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+      output = new GZIPOutputStream(output, EXPORT_BUFFER_SIZE);
+    }
+    try (Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), EXPORT_BUFFER_SIZE)) {
+      long exported = metrics.recordOperation("export",
+        () -> exporter.export((walletId, amount) -> writeBalance(writer, walletId, amount)));
+      log.debug("Wallets export finished: {} exported", exported);
+    }
+  }
 
+  @ApiVersion("1")
+  @Operation(summary = "Получить историю операций кошелька",
+    description = "Возвращает операции от новых к старым страницами по курсору. Для следующей страницы передайте "
+      + "nextCursor из ответа; nextCursor = null означает последнюю страницу. Фильтры по типу и периоду "
+      + "нужно повторять на каждой странице.",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Страница истории получена",
+        content = @Content(mediaType = "application/json",
+          schema = @Schema(implementation = OperationPageDto.class))),
+      @ApiResponse(responseCode = "400", description = "Некорректный запрос", content = @Content),
+      @ApiResponse(responseCode = "404", description = "Кошелек не найден", content = @Content)
+    })
+  @GetMapping("/wallets/{walletId}/operations")
+  public OperationPageDto getOperations(@PathVariable @NotNull(message = "{default.valid.notNull}") UUID walletId,
+                                        @Valid @ParameterObject OperationHistoryQueryDto query) {
+    log.debug("Request for GET Wallet operations started");
+    return operationMapper.toDto(metrics.recordOperation("get_operations",
+      () -> historyService.getHistory(walletId, query)));
+  }
+
+  @ApiVersion("1")
+  @Operation(summary = "Шардировать баланс кошелька",
+    description = "Разбивает баланс на указанное количество слотов, чтобы пополнения не конкурировали за одну строку. "
+      + "Текущие остатки слотов переносятся в основной баланс.",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Кошелек переведён в шардированный режим",
+        content = @Content(mediaType = "application/json",
+          schema = @Schema(implementation = WalletDto.class))),
+      @ApiResponse(responseCode = "400", description = "Некорректный запрос", content = @Content),
+      @ApiResponse(responseCode = "404", description = "Кошелек не найден", content = @Content)
+    })
+  @PutMapping("/wallets/{walletId}/shards")
+  public WalletDto shardWallet(@PathVariable @NotNull(message = "{default.valid.notNull}") UUID walletId,
+                               @Valid @RequestBody ShardWalletDto dto) {
+    log.debug("Request for PUT Wallet shards started");
+    return mapper.toDto(service.shardWallet(walletId, dto.getShards()));
+  }
+
+  @ApiVersion("1")
+  @Operation(summary = "Отменить шардирование баланса кошелька",
+    description = "Переносит остатки всех слотов в основной баланс и возвращает кошелек в режим одной строки.",
+    responses = {
+      @ApiResponse(responseCode = "200", description = "Кошелек возвращён в режим одной строки",
+        content = @Content(mediaType = "application/json",
+          schema = @Schema(implementation = WalletDto.class))),
+      @ApiResponse(responseCode = "404", description = "Кошелек не найден", content = @Content)
+    })
+  @DeleteMapping("/wallets/{walletId}/shards")
+  public WalletDto unshardWallet(@PathVariable @NotNull(message = "{default.valid.notNull}") UUID walletId) {
+    log.debug("Request for DELETE Wallet shards started");
+    return mapper.toDto(service.unshardWallet(walletId));
+  }
+
+  /**
+   * Порция идентификаторов отправляется клиенту сразу, не дожидаясь остальных.
+   */
+  private static void writeWalletIds(Writer writer, List<UUID> walletIds) {
+    try {
+      for (UUID walletId : walletIds) {
+        writer.write("{\"walletId\":\"");
+        writer.write(walletId.toString());
+        writer.write("\"}\n");
+      }
+      writer.flush();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void writeBalance(Writer writer, UUID walletId, long amountMinor) {
+    try {
+      writer.write("{\"walletId\":\"");
+      writer.write(walletId.toString());
+      writer.write("\",\"amount\":");
+      writer.write(MinorUnits.toDecimal(amountMinor).toPlainString());
+      writer.write("}\n");
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static boolean acceptsGzip(String acceptEncoding) {
+    if (acceptEncoding == null) {
+      return false;
+    }
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      if (parts[0].trim().equalsIgnoreCase("gzip")) {
+        return parts.length < 2 || !parts[1].replace(" ", "").matches("(?i)q=0(\\.0*)?");
+      }
+    }
+    return false;
+  }
+
+  private static String operationName(SaveWalletDto dto) {
+    return String.valueOf(dto.getOperationType()).toLowerCase(Locale.ROOT);
+  }
+
+}
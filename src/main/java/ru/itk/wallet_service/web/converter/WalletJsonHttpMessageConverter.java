@@ -0,0 +1,220 @@
+package ru.itk.wallet_service.web.converter;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.util.StreamUtils;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+import ru.itk.wallet_service.web.dto.WalletDto;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Чтение {@link SaveWalletDto} и запись {@link WalletDto} потоковым парсером и генератором Jackson
+ * без databind: поля известны заранее, поэтому не нужны ни дерево, ни рефлексия по свойствам класса.
+ * <p>
+ * Быстрый путь разбирает только канонический вид тела: объект с полями {@code walletId} (строка UUID из 36 символов),
+ * {@code operationType} (DEPOSIT или WITHDRAW) и {@code amount} (число) или {@code null} в них. Всё остальное — неизвестные
+ * поля, сумма строкой, типы переводов, синтаксические ошибки, тело больше {@link #MAX_BODY_SIZE} — передаётся стандартному
+ * конвертеру Jackson вместе с уже прочитанными байтами, поэтому допустимые и отклоняемые запросы и тексты ошибок не меняются.
+ * Запись {@link WalletDto} с пустыми полями и форматированный вывод тоже отдаются стандартному конвертеру.
+ */
+public class WalletJsonHttpMessageConverter extends AbstractHttpMessageConverter<Object> {
+  static final int MAX_BODY_SIZE = 1024;
+  private static final int UUID_LENGTH = 36;
+
+  private final MappingJackson2HttpMessageConverter delegate;
+  private final ObjectMapper objectMapper;
+
+  public WalletJsonHttpMessageConverter(MappingJackson2HttpMessageConverter delegate) {
+    super(MediaType.APPLICATION_JSON, new MediaType("application", "*+json"));
+    this.delegate = delegate;
+    this.objectMapper = delegate.getObjectMapper();
+  }
+
+  @Override
+  protected boolean supports(Class<?> clazz) {
+    return clazz == SaveWalletDto.class || clazz == WalletDto.class;
+  }
+
+  @Override
+  public boolean canRead(Class<?> clazz, MediaType mediaType) {
+    return clazz == SaveWalletDto.class && canRead(mediaType);
+  }
+
+  @Override
+  public boolean canWrite(Class<?> clazz, MediaType mediaType) {
+    return clazz == WalletDto.class && canWrite(mediaType);
+  }
+
+  @Override
+  protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+    InputStream body = inputMessage.getBody();
+    byte[] buffer = new byte[MAX_BODY_SIZE];
+    int length = readUpTo(body, buffer);
+    if (length < MAX_BODY_SIZE && isUtf8(inputMessage.getHeaders())) {
+      SaveWalletDto dto = readSaveWalletDto(buffer, length);
+      if (dto != null) {
+        return dto;
+      }
+    }
+    InputStream replay = new SequenceInputStream(new ByteArrayInputStream(buffer, 0, length), body);
+    return delegate.read(clazz, new ReplayedInputMessage(inputMessage.getHeaders(), replay));
+  }
+
+  @Override
+  protected void writeInternal(Object value, HttpOutputMessage outputMessage) throws IOException {
+    WalletDto dto = (WalletDto) value;
+    if (dto.getWalletId() == null || dto.getAmount() == null || objectMapper.isEnabled(SerializationFeature.INDENT_OUTPUT)) {
+      delegate.write(dto, outputMessage.getHeaders().getContentType(), outputMessage);
+      return;
+    }
+    OutputStream output = StreamUtils.nonClosing(outputMessage.getBody());
+    try (JsonGenerator generator = objectMapper.createGenerator(output, JsonEncoding.UTF8)) {
+      generator.writeStartObject();
+      generator.writeStringField("walletId", dto.getWalletId().toString());
+      generator.writeFieldName("amount");
+      generator.writeNumber(dto.getAmount());
+      generator.writeEndObject();
+    }
+  }
+
+  /**
+   * @return разобранный запрос или {@code null}, если тело не в каноническом виде
+   */
+  private SaveWalletDto readSaveWalletDto(byte[] body, int length) {
+    try (JsonParser parser = objectMapper.createParser(body, 0, length)) {
+      if (parser.nextToken() != JsonToken.START_OBJECT) {
+        return null;
+      }
+      SaveWalletDto dto = new SaveWalletDto();
+      JsonToken token;
+      while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+        String field = parser.currentName();
+        JsonToken value = parser.nextToken();
+        boolean read = switch (field) {
+          case "walletId" -> readWalletId(parser, value, dto);
+          case "operationType" -> readOperationType(parser, value, dto);
+          case "amount" -> readAmount(parser, value, dto);
+          default -> false;
+        };
+        if (!read) {
+          return null;
+        }
+      }
+      return token == JsonToken.END_OBJECT && parser.nextToken() == null ? dto : null;
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  private static boolean readWalletId(JsonParser parser, JsonToken value, SaveWalletDto dto) throws IOException {
+    if (value == JsonToken.VALUE_NULL) {
+      dto.setWalletId(null);
+      return true;
+    }
+    if (value != JsonToken.VALUE_STRING) {
+      return false;
+    }
+    String text = parser.getText();
+    if (!isCanonicalUuid(text)) {
+      return false;
+    }
+    dto.setWalletId(UUID.fromString(text));
+    return true;
+  }
+
+  private static boolean readOperationType(JsonParser parser, JsonToken value, SaveWalletDto dto) throws IOException {
+    if (value == JsonToken.VALUE_NULL) {
+      dto.setOperationType(null);
+      return true;
+    }
+    if (value != JsonToken.VALUE_STRING) {
+      return false;
+    }
+    String text = parser.getText();
+    for (OperationType type : OperationType.values()) {
+      if (type.isWalletOperation() && type.name().equals(text)) {
+        dto.setOperationType(type);
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static boolean readAmount(JsonParser parser, JsonToken value, SaveWalletDto dto) throws IOException {
+    if (value == JsonToken.VALUE_NULL) {
+      dto.setAmount(null);
+      return true;
+    }
+    if (value != JsonToken.VALUE_NUMBER_INT && value != JsonToken.VALUE_NUMBER_FLOAT) {
+      return false;
+    }
+    dto.setAmount(parser.getDecimalValue());
+    return true;
+  }
+
+  /**
+   * UUID в виде 8-4-4-4-12 шестнадцатеричных цифр: другие записи, которые допускает {@link UUID#fromString(String)},
+   * Jackson отклоняет, а строки другой длины читает как base64.
+   */
+  private static boolean isCanonicalUuid(String text) {
+    if (text.length() != UUID_LENGTH) {
+      return false;
+    }
+    for (int i = 0; i < UUID_LENGTH; i++) {
+      char c = text.charAt(i);
+      boolean valid = (i == 8 || i == 13 || i == 18 || i == 23)
+        ? c == '-'
+        : (c >= '0' && c <= '9') || (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+      if (!valid) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean isUtf8(HttpHeaders headers) {
+    MediaType contentType = headers.getContentType();
+    Charset charset = contentType != null ? contentType.getCharset() : null;
+    return charset == null || charset.equals(StandardCharsets.UTF_8);
+  }
+
+  private static int readUpTo(InputStream input, byte[] buffer) throws IOException {
+    int length = 0;
+    int read;
+    while (length < buffer.length && (read = input.read(buffer, length, buffer.length - length)) > 0) {
+      length += read;
+    }
+    return length;
+  }
+
+  private record ReplayedInputMessage(HttpHeaders headers, InputStream body) implements HttpInputMessage {
+    @Override
+    public InputStream getBody() {
+      return body;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return headers;
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package ru.itk.wallet_service.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import ru.itk.wallet_service.enums.BatchMode;
+
+import java.util.List;
+
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BatchOperationRequestDto {
+
+  @Schema(description = "Режим применения пакета")
+  @NotNull(message = "{default.valid.notNull}")
+  BatchMode mode;
+
+  @Schema(description = "Операции над кошельками в порядке применения")
+  @NotEmpty(message = "{wallet.valid.batchNotEmpty}")
+  @Size(max = 10000, message = "{wallet.valid.batchSize}")
+  List<@Valid @NotNull(message = "{default.valid.notNull}") SaveWalletDto> operations;
+}
@@ -0,0 +1,59 @@
+package ru.itk.wallet_service.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.*;
+import lombok.experimental.FieldDefaults;
+import ru.itk.wallet_service.enums.OperationStatus;
+import ru.itk.wallet_service.handler.WebExceptionHandler;
+import ru.itk.wallet_service.service.model.OperationResult;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@FieldDefaults(level = AccessLevel.PRIVATE)
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchOperationResultDto {
+
+  @Schema(description = "Порядковый номер операции в пакете")
+  Integer index;
+
+  @Schema(description = "Идентификатор кошелька")
+  UUID walletId;
+
+  @Schema(description = "Итог операции")
+  OperationStatus status;
+
+  @Schema(description = "Баланс кошелька после операции")
+  BigDecimal amount;
+
+  @Schema(description = "Причина отклонения операции")
+  String message;
+
+  public static BatchOperationResultDto of(int index, SaveWalletDto operation, OperationResult result) {
+    return BatchOperationResultDto.builder()
+      .index(index)
+      .walletId(operation.getWalletId())
+      .status(result.getStatus())
+      .amount(result.isSuccess() ? result.getWallet().getAmount() : null)
+      .message(messageOf(result))
+      .build();
+  }
+
+  /**
+   * Наружу отдаётся только текст бизнес-отказа. Для остальных ошибок — те же общие сообщения,
+   * что и в {@link WebExceptionHandler}: текст исключения может раскрывать SQL и внутреннее устройство сервиса.
+   */
+  private static String messageOf(OperationResult result) {
+    return switch (result.getStatus()) {
+      case REJECTED -> result.getError().getMessage();
+      case BUSY -> WebExceptionHandler.LOCK_MESSAGE;
+      case FAILED -> WebExceptionHandler.DEFAULT_MESSAGE;
+      default -> null;
+    };
+  }
+}
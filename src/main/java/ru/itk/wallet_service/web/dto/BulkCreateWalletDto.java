@@ -0,0 +1,37 @@
+package ru.itk.wallet_service.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BulkCreateWalletDto {
+  public static final int MAX_WALLETS = 1_000_000;
+
+  @Schema(description = "Количество кошельков; идентификаторы генерирует сервис")
+  @Min(value = 1, message = "{wallet.valid.bulkCountMin}")
+  @Max(value = MAX_WALLETS, message = "{wallet.valid.bulkCountMax}")
+  Integer count;
+
+  @Schema(description = "Идентификаторы кошельков, заданные клиентом; уже существующие пропускаются")
+  @Size(min = 1, max = MAX_WALLETS, message = "{wallet.valid.bulkSize}")
+  List<@NotNull(message = "{default.valid.notNull}") UUID> walletIds;
+
+  @JsonIgnore
+  @Schema(hidden = true)
+  @AssertTrue(message = "{wallet.valid.bulkSource}")
+  public boolean isSourceSpecified() {
+    return (count == null) != (walletIds == null);
+  }
+}
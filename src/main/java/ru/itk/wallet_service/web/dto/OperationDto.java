@@ -0,0 +1,30 @@
+package ru.itk.wallet_service.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import ru.itk.wallet_service.db.enums.OperationType;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OperationDto {
+
+  @Schema(description = "Номер операции, возрастает со временем")
+  Long sequenceNumber;
+
+  @Schema(description = "Тип операции")
+  OperationType operationType;
+
+  @Schema(description = "Сумма операции")
+  BigDecimal amount;
+
+  @Schema(description = "Баланс кошелька после операции")
+  BigDecimal balance;
+
+  @Schema(description = "Время операции")
+  OffsetDateTime createdAt;
+}
@@ -0,0 +1,45 @@
+package ru.itk.wallet_service.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+import org.springframework.format.annotation.DateTimeFormat;
+import ru.itk.wallet_service.db.enums.OperationType;
+
+import java.time.OffsetDateTime;
+
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OperationHistoryQueryDto {
+  public static final int MAX_LIMIT = 1000;
+
+  @Schema(description = "Курсор: nextCursor предыдущей страницы. Без курсора возвращается первая страница")
+  @Min(value = 1, message = "{wallet.valid.historyCursor}")
+  Long cursor;
+
+  @Schema(description = "Размер страницы. По умолчанию — wallet.history.page-size")
+  @Min(value = 1, message = "{wallet.valid.historyLimit}")
+  @Max(value = MAX_LIMIT, message = "{wallet.valid.historyLimit}")
+  Integer limit;
+
+  @Schema(description = "Тип операции")
+  OperationType type;
+
+  @Schema(description = "Начало периода включительно, ISO-8601")
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  OffsetDateTime from;
+
+  @Schema(description = "Конец периода не включительно, ISO-8601")
+  @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+  OffsetDateTime to;
+
+  @Schema(hidden = true)
+  @AssertTrue(message = "{wallet.valid.historyRange}")
+  public boolean isRangeValid() {
+    return from == null || to == null || from.isBefore(to);
+  }
+}
@@ -0,0 +1,19 @@
+package ru.itk.wallet_service.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+import java.util.List;
+
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class OperationPageDto {
+
+  @Schema(description = "Операции страницы, от новых к старым")
+  List<OperationDto> operations;
+
+  @Schema(description = "Курсор следующей страницы; null, если страница последняя")
+  Long nextCursor;
+}
@@ -1,7 +1,10 @@
 package ru.itk.wallet_service.web.dto;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import lombok.AccessLevel;
 import lombok.Data;
@@ -19,12 +22,20 @@ public class SaveWalletDto {
   @NotNull(message = "{default.valid.notNull}")
   UUID walletId;
 
-  @Schema(description = "Тип операции")
+  @Schema(description = "Тип операции", allowableValues = {"DEPOSIT", "WITHDRAW"})
   @NotNull(message = "{default.valid.notNull}")
   OperationType operationType;
 
   @Schema(description = "Сумма операции")
   @NotNull(message = "{default.valid.notNull}")
   @DecimalMin(value = "0.01", message = "{wallet.valid.amountMin}")
+  @Digits(integer = 16, fraction = 2, message = "{wallet.valid.amountDigits}")
   BigDecimal amount;
+
+  @JsonIgnore
+  @Schema(hidden = true)
+  @AssertTrue(message = "{wallet.valid.operationType}")
+  public boolean isWalletOperation() {
+    return operationType == null || operationType.isWalletOperation();
+  }
 }
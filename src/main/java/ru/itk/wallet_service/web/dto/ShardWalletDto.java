@@ -0,0 +1,20 @@
+package ru.itk.wallet_service.web.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ShardWalletDto {
+
+  @Schema(description = "Количество слотов баланса")
+  @NotNull(message = "{default.valid.notNull}")
+  @Min(value = 1, message = "{wallet.valid.shardsMin}")
+  @Max(value = 64, message = "{wallet.valid.shardsMax}")
+  Integer shards;
+}
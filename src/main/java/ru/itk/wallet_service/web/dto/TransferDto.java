@@ -0,0 +1,40 @@
+package ru.itk.wallet_service.web.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotNull;
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+@Data
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class TransferDto {
+
+  @Schema(description = "Идентификатор кошелька отправителя")
+  @NotNull(message = "{default.valid.notNull}")
+  UUID fromWalletId;
+
+  @Schema(description = "Идентификатор кошелька получателя")
+  @NotNull(message = "{default.valid.notNull}")
+  UUID toWalletId;
+
+  @Schema(description = "Сумма перевода")
+  @NotNull(message = "{default.valid.notNull}")
+  @DecimalMin(value = "0.01", message = "{wallet.valid.amountMin}")
+  @Digits(integer = 16, fraction = 2, message = "{wallet.valid.amountDigits}")
+  BigDecimal amount;
+
+  @JsonIgnore
+  @Schema(hidden = true)
+  @AssertTrue(message = "{wallet.valid.transferSameWallet}")
+  public boolean isDistinctWallets() {
+    return fromWalletId == null || !fromWalletId.equals(toWalletId);
+  }
+}
@@ -0,0 +1,36 @@
+package ru.itk.wallet_service.web.limit;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import ru.itk.wallet_service.service.limit.ConcurrencyLimiter;
+
+/**
+ * Допускает запрос к API кошельков по пределу {@link ConcurrencyLimiter} до разбора тела и обращения к базе.
+ * <p>
+ * Место занимается на всё время запроса: у асинхронных запросов — до завершения повторной обработки,
+ * а не до освобождения потока сервера, иначе ожидающие очереди кошелька операции не учитывались бы в пределе.
+ */
+@RequiredArgsConstructor
+public class ConcurrencyLimitInterceptor implements AsyncHandlerInterceptor {
+  private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+  private final ConcurrencyLimiter limiter;
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+    if (request.getAttribute(PERMIT_ATTRIBUTE) == null) {
+      request.setAttribute(PERMIT_ATTRIBUTE, limiter.acquire());
+    }
+    return true;
+  }
+
+  @Override
+  public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+    if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof ConcurrencyLimiter.Permit permit) {
+      request.removeAttribute(PERMIT_ATTRIBUTE);
+      permit.release();
+    }
+  }
+}
@@ -7,6 +7,7 @@ import org.springframework.test.web.servlet.MockMvc;
 import ru.itk.wallet_service.db.entity.Wallet;
 import ru.itk.wallet_service.db.enums.OperationType;
 import ru.itk.wallet_service.web.dto.SaveWalletDto;
+import ru.itk.wallet_service.web.dto.TransferDto;
 import ru.itk.wallet_service.web.dto.WalletDto;
 
 import java.math.BigDecimal;
@@ -41,4 +42,12 @@ public class AbstractApplicationTest {
     saveDto.setOperationType(type);
     return saveDto;
   }
+
+  protected TransferDto buildTransferDto(UUID fromWalletId, UUID toWalletId, BigDecimal amount) {
+    TransferDto transferDto = new TransferDto();
+    transferDto.setFromWalletId(fromWalletId);
+    transferDto.setToWalletId(toWalletId);
+    transferDto.setAmount(amount);
+    return transferDto;
+  }
 }
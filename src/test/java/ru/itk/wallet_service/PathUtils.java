@@ -5,6 +5,14 @@ import lombok.experimental.UtilityClass;
 @UtilityClass
 public class PathUtils {
   public static final String CREATE = "wallet/create";
+  public static final String BULK_CREATE = "wallet/create/bulk";
   public static final String UPDATE = "wallet";
+  public static final String ASYNC = "wallet/async";
+  public static final String BATCH = "wallet/batch";
+  public static final String TRANSFER = "wallet/transfer";
+  public static final String TRANSFER_BATCH = "wallet/transfer/batch";
   public static final String GET_BALANCE = "wallets/{walletId}";
+  public static final String EXPORT = "wallets/export";
+  public static final String SHARDS = "wallets/{walletId}/shards";
+  public static final String OPERATIONS = "wallets/{walletId}/operations";
 }
@@ -0,0 +1,112 @@
+package ru.itk.wallet_service.db.repository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.service.WalletService;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Пополнение слота на Postgres в Testcontainers, пока параллельная транзакция сворачивает слоты кошелька.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = "wallet.sharding.enabled=true")
+class WalletShardRepositoryTest {
+
+  @Container
+  @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+  @Autowired
+  private WalletService service;
+  @Autowired
+  private WalletRepository walletRepository;
+  @Autowired
+  private WalletShardRepository shardRepository;
+  @Autowired
+  private TransactionTemplate transactionTemplate;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  @AfterEach
+  void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  void depositToShard_shouldCountCollapsedShardsOnce_whenCollapseCommitsFirst() throws Exception {
+    UUID walletId = service.createWallet().getWalletId();
+    service.updateWallet(buildDeposit(walletId, new BigDecimal("100.00")));
+    service.shardWallet(walletId, 4);
+    jdbcTemplate.update("UPDATE wallet_shard SET amount = 1000 WHERE wallet_id = ?", walletId);
+
+    CountDownLatch collapsed = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    Future<?> collapse = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+      Wallet wallet = walletRepository.findByIdForUpdate(walletId).orElseThrow();
+      long shardsTotal = shardRepository.lockAndSumByWalletId(walletId);
+      shardRepository.resetByWalletId(walletId);
+      wallet.setAmountMinor(wallet.getAmountMinor() + shardsTotal);
+      walletRepository.saveAndFlush(wallet);
+      collapsed.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }));
+    assertThat(collapsed.await(10, TimeUnit.SECONDS)).isTrue();
+
+    Future<Wallet> deposit = executor.submit(() -> service.updateWallet(buildDeposit(walletId, new BigDecimal("5.00"))));
+    awaitBlockedStatement();
+    assertThat(deposit.isDone()).isFalse();
+
+    release.countDown();
+    collapse.get(10, TimeUnit.SECONDS);
+
+    BigDecimal expected = new BigDecimal("145.00");
+    assertThat(deposit.get(10, TimeUnit.SECONDS).getAmount()).isEqualByComparingTo(expected);
+    assertThat(jdbcTemplate.queryForObject(
+      "SELECT balance FROM wallet_operation WHERE wallet_id = ? AND operation_type = 'DEPOSIT' AND amount = 500",
+      Long.class, walletId)).isEqualTo(14500L);
+    assertThat(service.getBalance(walletId).getAmount()).isEqualByComparingTo(expected);
+  }
+
+  private void awaitBlockedStatement() throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+    while (jdbcTemplate.queryForObject("SELECT count(*) FROM pg_locks WHERE NOT granted", Integer.class) == 0) {
+      assertThat(System.nanoTime()).isLessThan(deadline);
+      Thread.sleep(10);
+    }
+  }
+
+  private SaveWalletDto buildDeposit(UUID walletId, BigDecimal amount) {
+    SaveWalletDto dto = new SaveWalletDto();
+    dto.setWalletId(walletId);
+    dto.setAmount(amount);
+    dto.setOperationType(OperationType.DEPOSIT);
+    return dto;
+  }
+}
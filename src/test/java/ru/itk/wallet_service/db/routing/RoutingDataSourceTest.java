@@ -0,0 +1,159 @@
+package ru.itk.wallet_service.db.routing;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itk.wallet_service.config.WalletProperties;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RoutingDataSourceTest {
+  private final HikariDataSource reads = mock(HikariDataSource.class);
+  private final HikariDataSource updates = mock(HikariDataSource.class);
+  private final HikariDataSource bulk = mock(HikariDataSource.class);
+  private final HikariDataSource replica = mock(HikariDataSource.class);
+  private final ReplicaHealth health = mock(ReplicaHealth.class);
+  private final Connection readsConnection = mock(Connection.class);
+  private final Connection updatesConnection = mock(Connection.class);
+  private final Connection bulkConnection = mock(Connection.class);
+  private final Connection replicaConnection = mock(Connection.class);
+  private final RoutingDataSource dataSource = new RoutingDataSource(
+    Map.of(Bulkhead.READS, reads, Bulkhead.UPDATES, updates, Bulkhead.BULK, bulk), replica, health);
+
+  @BeforeEach
+  void setUp() throws SQLException {
+    when(reads.getConnection()).thenReturn(readsConnection);
+    when(updates.getConnection()).thenReturn(updatesConnection);
+    when(bulk.getConnection()).thenReturn(bulkConnection);
+    when(replica.getConnection()).thenReturn(replicaConnection);
+    when(health.isAvailable()).thenReturn(true);
+  }
+
+  @AfterEach
+  void tearDown() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  void getConnection_shouldUseReplica_forReadOnlyTransaction() throws SQLException {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertThat(dataSource.getConnection()).isSameAs(replicaConnection);
+  }
+
+  @Test
+  void getConnection_shouldUseUpdatesPool_forReadWriteTransaction() throws SQLException {
+    assertThat(dataSource.getConnection()).isSameAs(updatesConnection);
+    verify(replica, never()).getConnection();
+  }
+
+  @Test
+  void getConnection_shouldUsePrimary_whenReplicaIsUnavailable() throws SQLException {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    when(health.isAvailable()).thenReturn(false);
+
+    assertThat(dataSource.getConnection()).isSameAs(readsConnection);
+  }
+
+  @Test
+  void getConnection_shouldFallBackToPrimary_whenReplicaRefusesConnection() throws SQLException {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    SQLException failure = new SQLTransientConnectionException("replica - Connection is not available");
+    when(replica.getConnection()).thenThrow(failure);
+
+    assertThat(dataSource.getConnection()).isSameAs(readsConnection);
+    verify(health).markUnavailable(failure);
+  }
+
+  @Test
+  void inBulkhead_shouldUseBulkheadPool() throws SQLException {
+    assertThat(RoutingDataSource.inBulkhead(Bulkhead.BULK, this::connection)).isSameAs(bulkConnection);
+    assertThat(RoutingDataSource.inBulkhead(Bulkhead.READS, this::connection)).isSameAs(readsConnection);
+    assertThat(dataSource.getConnection()).isSameAs(updatesConnection);
+  }
+
+  @Test
+  void inBulkhead_shouldStillReadFromReplica_forReadOnlyTransaction() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertThat(RoutingDataSource.inBulkhead(Bulkhead.BULK, this::connection)).isSameAs(replicaConnection);
+    when(health.isAvailable()).thenReturn(false);
+    assertThat(RoutingDataSource.inBulkhead(Bulkhead.BULK, this::connection)).isSameAs(bulkConnection);
+  }
+
+  @Test
+  void getConnection_shouldUseBulkheadPools_whenReplicaIsDisabled() throws SQLException {
+    RoutingDataSource withoutReplica = new RoutingDataSource(
+      Map.of(Bulkhead.READS, reads, Bulkhead.UPDATES, updates, Bulkhead.BULK, bulk), null, null);
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    assertThat(withoutReplica.getConnection()).isSameAs(readsConnection);
+    verify(replica, never()).getConnection();
+  }
+
+  @Test
+  void onPrimary_shouldPinReadOnlyTransactionToPrimary() throws SQLException {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+    Connection pinned = RoutingDataSource.onPrimary(this::connection);
+
+    assertThat(pinned).isSameAs(readsConnection);
+    assertThat(dataSource.getConnection()).isSameAs(replicaConnection);
+  }
+
+  @Test
+  void recentWrites_shouldReadWalletFromPrimaryOnlyAfterCommit() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    RecentWrites recentWrites = new RecentWrites(replicaProperties());
+    UUID walletId = UUID.randomUUID();
+    TransactionSynchronizationManager.initSynchronization();
+
+    recentWrites.markAfterCommit(walletId);
+
+    assertThat(recentWrites.read(walletId, this::connection)).isSameAs(replicaConnection);
+    TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    assertThat(recentWrites.read(walletId, this::connection)).isSameAs(readsConnection);
+    assertThat(recentWrites.read(UUID.randomUUID(), this::connection)).isSameAs(replicaConnection);
+  }
+
+  @Test
+  void recentWrites_shouldNotPinReads_whenReplicaIsDisabled() {
+    TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    RecentWrites recentWrites = new RecentWrites(new WalletProperties());
+    UUID walletId = UUID.randomUUID();
+
+    recentWrites.markAfterCommit(walletId);
+
+    assertThat(recentWrites.read(walletId, this::connection)).isSameAs(replicaConnection);
+  }
+
+  private Connection connection() {
+    try {
+      return dataSource.getConnection();
+    } catch (SQLException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static WalletProperties replicaProperties() {
+    WalletProperties properties = new WalletProperties();
+    properties.getReplica().setEnabled(true);
+    return properties;
+  }
+}
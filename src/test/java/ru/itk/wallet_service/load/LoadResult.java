@@ -0,0 +1,53 @@
+package ru.itk.wallet_service.load;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Итог одного нагрузочного сценария: пропускная способность и перцентили задержки.
+ */
+public record LoadResult(String scenario,
+                         int operations,
+                         int errors,
+                         double throughputPerSecond,
+                         double p50Millis,
+                         double p99Millis,
+                         double p999Millis) {
+
+  public static LoadResult of(String scenario, long[] latencyNanos, int errors, long elapsedNanos) {
+    long[] sorted = latencyNanos.clone();
+    Arrays.sort(sorted);
+    double seconds = elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1);
+    return new LoadResult(scenario, sorted.length, errors, sorted.length / seconds,
+      percentileMillis(sorted, 0.50), percentileMillis(sorted, 0.99), percentileMillis(sorted, 0.999));
+  }
+
+  /**
+   * Сравнивает результат с базовым. Регрессия — падение пропускной способности
+   * или рост p99 больше чем на {@code maxRegression} (доля, 0.2 = 20%).
+   */
+  public List<String> regressionsAgainst(LoadResult baseline, double maxRegression) {
+    List<String> regressions = new ArrayList<>();
+    double minThroughput = baseline.throughputPerSecond() * (1 - maxRegression);
+    if (throughputPerSecond < minThroughput) {
+      regressions.add("%s: throughput %.1f ops/s is below %.1f (baseline %.1f)"
+        .formatted(scenario, throughputPerSecond, minThroughput, baseline.throughputPerSecond()));
+    }
+    double maxP99 = baseline.p99Millis() * (1 + maxRegression);
+    if (p99Millis > maxP99) {
+      regressions.add("%s: p99 %.2f ms is above %.2f (baseline %.2f)"
+        .formatted(scenario, p99Millis, maxP99, baseline.p99Millis()));
+    }
+    return regressions;
+  }
+
+  private static double percentileMillis(long[] sorted, double percentile) {
+    if (sorted.length == 0) {
+      return 0;
+    }
+    int index = (int) Math.ceil(percentile * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1_000_000.0;
+  }
+}
@@ -0,0 +1,264 @@
+package ru.itk.wallet_service.load;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+import ru.itk.wallet_service.web.dto.WalletDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Нагрузочные сценарии на Postgres в Testcontainers вместо ручного прогона JMeter.
+ * <p>
+ * Каждый сценарий выполняет заранее сгенерированный набор пополнений и списаний через HTTP
+ * на локальный порт приложения, после чего сверяет балансы кошельков с ожидаемыми до копейки.
+ * Пропускная способность и перцентили задержки пишутся в {@code load.report} и сравниваются
+ * с {@code load.baseline}; рост задержки или падение пропускной способности больше {@code load.maxRegression}
+ * роняют сборку. Запуск: {@code ./gradlew loadTest}.
+ */
+@Tag("load")
+@Testcontainers
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+class WalletLoadTest {
+  private static final BigDecimal INITIAL_BALANCE = new BigDecimal("100000.00");
+  private static final int OPERATIONS = Integer.getInteger("load.operations", 4000);
+  private static final int THREADS = Integer.getInteger("load.threads", 64);
+  private static final Map<String, LoadResult> RESULTS = new ConcurrentHashMap<>();
+  private static final ObjectMapper JSON = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+  @Container
+  @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+  @LocalServerPort
+  private int port;
+  @Autowired
+  private ObjectMapper objectMapper;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private final HttpClient httpClient = HttpClient.newBuilder()
+    .connectTimeout(Duration.ofSeconds(5))
+    .build();
+
+  /**
+   * Распределение операций по кошелькам.
+   */
+  enum Scenario {
+    /** Все операции над одним кошельком. */
+    HOT(1, 1.0),
+    /** 80% операций над одним кошельком, остальные — по холодным. */
+    MIXED(201, 0.8),
+    /** Операции равномерно распределены по кошелькам. */
+    COLD(200, 0.0);
+
+    final int wallets;
+    final double hotShare;
+
+    Scenario(int wallets, double hotShare) {
+      this.wallets = wallets;
+      this.hotShare = hotShare;
+    }
+  }
+
+  @ParameterizedTest
+  @EnumSource(Scenario.class)
+  void balancesStayExactUnderConcurrentLoad(Scenario scenario) throws Exception {
+    List<UUID> wallets = createFundedWallets(scenario.wallets);
+    List<SaveWalletDto> operations = generateOperations(scenario, wallets);
+    Map<UUID, BigDecimal> expected = expectedBalances(wallets, operations);
+
+    long[] latencies = new long[operations.size()];
+    AtomicInteger next = new AtomicInteger();
+    AtomicInteger errors = new AtomicInteger();
+    ExecutorService clients = Executors.newFixedThreadPool(THREADS);
+    long started = System.nanoTime();
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < THREADS; t++) {
+        futures.add(clients.submit(() -> {
+          for (int i = next.getAndIncrement(); i < operations.size(); i = next.getAndIncrement()) {
+            long start = System.nanoTime();
+            if (post("/api/v1/wallet", operations.get(i)) != 200) {
+              errors.incrementAndGet();
+            }
+            latencies[i] = System.nanoTime() - start;
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(10, TimeUnit.MINUTES);
+      }
+    } finally {
+      clients.shutdownNow();
+    }
+    LoadResult result = LoadResult.of(scenario.name(), latencies, errors.get(), System.nanoTime() - started);
+    RESULTS.put(scenario.name(), result);
+
+    assertThat(errors).as("failed requests").hasValue(0);
+    for (UUID walletId : wallets) {
+      WalletDto wallet = get("/api/v1/wallets/" + walletId);
+      assertThat(wallet.getAmount()).as("balance of %s", walletId).isEqualByComparingTo(expected.get(walletId));
+    }
+    assertThat(ledgerOperations(wallets)).as("ledger records").isEqualTo(operations.size() + wallets.size());
+
+    LoadResult baseline = readBaseline().get(scenario.name());
+    if (baseline != null && !Boolean.getBoolean("load.updateBaseline")) {
+      double maxRegression = Double.parseDouble(System.getProperty("load.maxRegression", "0.2"));
+      assertThat(result.regressionsAgainst(baseline, maxRegression)).as("regressions").isEmpty();
+    }
+  }
+
+  @AfterAll
+  static void writeReport() throws IOException {
+    Map<String, LoadResult> report = new TreeMap<>(RESULTS);
+    String reportPath = System.getProperty("load.report");
+    if (reportPath != null) {
+      write(Path.of(reportPath), report);
+    }
+    String baselinePath = System.getProperty("load.baseline");
+    if (baselinePath != null && Boolean.getBoolean("load.updateBaseline")) {
+      write(Path.of(baselinePath), report);
+    }
+  }
+
+  private List<UUID> createFundedWallets(int count) throws Exception {
+    List<UUID> wallets = new ArrayList<>(count);
+    for (int i = 0; i < count; i++) {
+      UUID walletId = postForWallet("/api/v1/wallet/create", null).getWalletId();
+      assertThat(post("/api/v1/wallet", operation(walletId, OperationType.DEPOSIT, INITIAL_BALANCE))).isEqualTo(200);
+      wallets.add(walletId);
+    }
+    return wallets;
+  }
+
+  private static List<SaveWalletDto> generateOperations(Scenario scenario, List<UUID> wallets) {
+    Random random = new Random(scenario.ordinal());
+    List<SaveWalletDto> operations = new ArrayList<>(OPERATIONS);
+    for (int i = 0; i < OPERATIONS; i++) {
+      UUID walletId = random.nextDouble() < scenario.hotShare || wallets.size() == 1
+        ? wallets.get(0)
+        : wallets.get(1 + random.nextInt(wallets.size() - 1));
+      OperationType type = random.nextBoolean() ? OperationType.DEPOSIT : OperationType.WITHDRAW;
+      operations.add(operation(walletId, type, BigDecimal.valueOf(1 + random.nextInt(1000), 2)));
+    }
+    return operations;
+  }
+
+  private static Map<UUID, BigDecimal> expectedBalances(List<UUID> wallets, List<SaveWalletDto> operations) {
+    Map<UUID, BigDecimal> expected = new HashMap<>();
+    wallets.forEach(walletId -> expected.put(walletId, INITIAL_BALANCE));
+    for (SaveWalletDto operation : operations) {
+      BigDecimal delta = operation.getOperationType() == OperationType.DEPOSIT
+        ? operation.getAmount()
+        : operation.getAmount().negate();
+      expected.merge(operation.getWalletId(), delta, BigDecimal::add);
+    }
+    return expected;
+  }
+
+  private long ledgerOperations(List<UUID> wallets) {
+    return wallets.stream()
+      .mapToLong(walletId -> jdbcTemplate.queryForObject(
+        "SELECT count(*) FROM wallet_operation WHERE wallet_id = ?", Long.class, walletId))
+      .sum();
+  }
+
+  private static SaveWalletDto operation(UUID walletId, OperationType type, BigDecimal amount) {
+    SaveWalletDto dto = new SaveWalletDto();
+    dto.setWalletId(walletId);
+    dto.setOperationType(type);
+    dto.setAmount(amount);
+    return dto;
+  }
+
+  private int post(String path, Object body) {
+    try {
+      return httpClient.send(request(path, body), HttpResponse.BodyHandlers.discarding()).statusCode();
+    } catch (IOException e) {
+      return -1;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return -1;
+    }
+  }
+
+  private WalletDto postForWallet(String path, Object body) throws Exception {
+    HttpResponse<String> response = httpClient.send(request(path, body), HttpResponse.BodyHandlers.ofString());
+    return objectMapper.readValue(response.body(), WalletDto.class);
+  }
+
+  private WalletDto get(String path) throws Exception {
+    HttpRequest request = HttpRequest.newBuilder(uri(path)).GET().build();
+    HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+    return objectMapper.readValue(response.body(), WalletDto.class);
+  }
+
+  private HttpRequest request(String path, Object body) throws IOException {
+    HttpRequest.BodyPublisher publisher = body == null
+      ? HttpRequest.BodyPublishers.noBody()
+      : HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body));
+    return HttpRequest.newBuilder(uri(path))
+      .header("Content-Type", "application/json")
+      .POST(publisher)
+      .build();
+  }
+
+  private URI uri(String path) {
+    return URI.create("http://localhost:" + port + path);
+  }
+
+  private static Map<String, LoadResult> readBaseline() throws IOException {
+    String baselinePath = System.getProperty("load.baseline");
+    if (baselinePath == null || !Files.exists(Path.of(baselinePath))) {
+      return Map.of();
+    }
+    return JSON.readValue(Path.of(baselinePath).toFile(), new TypeReference<>() {
+    });
+  }
+
+  private static void write(Path path, Map<String, LoadResult> report) throws IOException {
+    if (path.getParent() != null) {
+      Files.createDirectories(path.getParent());
+    }
+    JSON.writeValue(path.toFile(), report);
+  }
+}
@@ -0,0 +1,38 @@
+package ru.itk.wallet_service.money;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinorUnitsTest {
+
+  @Test
+  void toMinor_shouldConvertAnyScaleUpToTwoDigits() {
+    assertThat(MinorUnits.toMinor(new BigDecimal("125.5"))).isEqualTo(12550L);
+    assertThat(MinorUnits.toMinor(new BigDecimal("0.01"))).isEqualTo(1L);
+    assertThat(MinorUnits.toMinor(new BigDecimal("1E+3"))).isEqualTo(100_000L);
+    assertThat(MinorUnits.toMinor(new BigDecimal("7.000"))).isEqualTo(700L);
+  }
+
+  @Test
+  void toMinor_shouldRejectFractionOfMinorUnit() {
+    assertThatThrownBy(() -> MinorUnits.toMinor(new BigDecimal("10.001")))
+      .isInstanceOf(ArithmeticException.class);
+  }
+
+  @Test
+  void toMinor_shouldRejectAmountOutsideLongRange() {
+    assertThatThrownBy(() -> MinorUnits.toMinor(new BigDecimal("92233720368547758.08")))
+      .isInstanceOf(ArithmeticException.class);
+    assertThat(MinorUnits.toMinor(new BigDecimal("92233720368547758.07"))).isEqualTo(Long.MAX_VALUE);
+  }
+
+  @Test
+  void toDecimal_shouldKeepTwoFractionDigits() {
+    assertThat(MinorUnits.toDecimal(12550L)).isEqualTo(new BigDecimal("125.50"));
+    assertThat(MinorUnits.toDecimal(0L)).isEqualTo(new BigDecimal("0.00"));
+  }
+}
@@ -0,0 +1,68 @@
+package ru.itk.wallet_service.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.service.hot.HotWalletDetector;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Маршрутизация операций диспетчером на Postgres в Testcontainers.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+  "wallet.sharding.enabled=true",
+  "wallet.hot.enabled=true",
+  "wallet.hot.promote-writes-per-second=1",
+  "wallet.hot.demote-writes-per-second=0"
+})
+class WalletOperationDispatcherTest {
+
+  @Container
+  @ServiceConnection
+  static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:15");
+
+  @Autowired
+  private WalletOperationDispatcher dispatcher;
+  @Autowired
+  private WalletService service;
+  @Autowired
+  private HotWalletDetector hotWallets;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  @Test
+  void updateWallet_shouldDepositToShards_whenShardedWalletIsHot() {
+    UUID walletId = service.createWallet().getWalletId();
+    service.shardWallet(walletId, 4);
+
+    for (int i = 0; i < 50; i++) {
+      dispatcher.updateWallet(buildDeposit(walletId, BigDecimal.ONE));
+    }
+
+    assertThat(hotWallets.isHot(walletId)).isTrue();
+    assertThat(jdbcTemplate.queryForObject("SELECT amount FROM wallet WHERE wallet_id = ?", Long.class, walletId))
+      .isZero();
+    assertThat(jdbcTemplate.queryForObject("SELECT SUM(amount) FROM wallet_shard WHERE wallet_id = ?", Long.class,
+      walletId)).isEqualTo(5000L);
+  }
+
+  private SaveWalletDto buildDeposit(UUID walletId, BigDecimal amount) {
+    SaveWalletDto dto = new SaveWalletDto();
+    dto.setWalletId(walletId);
+    dto.setAmount(amount);
+    dto.setOperationType(OperationType.DEPOSIT);
+    return dto;
+  }
+}
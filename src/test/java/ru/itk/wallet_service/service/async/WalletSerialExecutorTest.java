@@ -0,0 +1,119 @@
+package ru.itk.wallet_service.service.async;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.itk.wallet_service.config.WalletProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WalletSerialExecutorTest {
+  private WalletSerialExecutor executor;
+
+  @AfterEach
+  void tearDown() throws InterruptedException {
+    executor.shutdown();
+  }
+
+  @Test
+  void submit_shouldRunOperationsOfOneWalletSequentially() throws Exception {
+    executor = new WalletSerialExecutor(properties(8));
+    UUID walletId = UUID.randomUUID();
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    List<DeferredResult<Integer>> results = new ArrayList<>();
+
+    for (int i = 0; i < 200; i++) {
+      int value = i;
+      results.add(executor.submit(walletId, () -> {
+        maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+        running.decrementAndGet();
+        return value;
+      }));
+    }
+
+    for (int i = 0; i < results.size(); i++) {
+      assertThat(awaitResult(results.get(i))).isEqualTo(i);
+    }
+    assertThat(maxRunning).hasValue(1);
+  }
+
+  @Test
+  void submit_shouldNotBlockOtherWalletsBehindBusyWallet() throws Exception {
+    executor = new WalletSerialExecutor(properties(2));
+    CountDownLatch release = new CountDownLatch(1);
+    DeferredResult<String> busy = executor.submit(UUID.randomUUID(), () -> {
+      await(release);
+      return "busy";
+    });
+
+    DeferredResult<String> other = executor.submit(UUID.randomUUID(), () -> "other");
+
+    assertThat(awaitResult(other)).isEqualTo("other");
+    assertThat(busy.hasResult()).isFalse();
+    release.countDown();
+    assertThat(awaitResult(busy)).isEqualTo("busy");
+  }
+
+  @Test
+  void submit_shouldPassOperationExceptionAsErrorResult() throws Exception {
+    executor = new WalletSerialExecutor(properties(1));
+    IllegalStateException failure = new IllegalStateException("failed");
+
+    DeferredResult<String> result = executor.submit(UUID.randomUUID(), () -> {
+      throw failure;
+    });
+
+    assertThat(awaitResult(result)).isSameAs(failure);
+  }
+
+  @Test
+  void submit_shouldKeepDrainingWalletQueue_whenOperationThrowsError() throws Exception {
+    executor = new WalletSerialExecutor(properties(1));
+    UUID walletId = UUID.randomUUID();
+    LinkageError failure = new LinkageError("failed");
+    CountDownLatch release = new CountDownLatch(1);
+
+    DeferredResult<String> failed = executor.submit(walletId, () -> {
+      await(release);
+      throw failure;
+    });
+    DeferredResult<String> next = executor.submit(walletId, () -> "next");
+    release.countDown();
+
+    assertThat(awaitResult(failed)).isSameAs(failure);
+    assertThat(awaitResult(next)).isEqualTo("next");
+  }
+
+  private static WalletProperties properties(int poolSize) {
+    WalletProperties properties = new WalletProperties();
+    properties.getAsync().setPoolSize(poolSize);
+    properties.getAsync().setTimeout(Duration.ofSeconds(5));
+    return properties;
+  }
+
+  private static Object awaitResult(DeferredResult<?> result) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+    while (!result.hasResult() && System.nanoTime() < deadline) {
+      Thread.sleep(1);
+    }
+    assertThat(result.hasResult()).isTrue();
+    return result.getResult();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(2, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,41 @@
+package ru.itk.wallet_service.service.bulk;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimeOrderedUuidGeneratorTest {
+
+  @Test
+  void next_shouldSetVersionSevenAndTimestamp() {
+    Instant now = Instant.parse("2025-01-01T00:00:00Z");
+    TimeOrderedUuidGenerator generator = new TimeOrderedUuidGenerator(Clock.fixed(now, ZoneOffset.UTC));
+
+    UUID id = generator.next();
+
+    assertThat(id.version()).isEqualTo(7);
+    assertThat(id.variant()).isEqualTo(2);
+    assertThat(id.getMostSignificantBits() >>> 16).isEqualTo(now.toEpochMilli());
+  }
+
+  @Test
+  void next_shouldIncreaseWithinSameMillisecondBeyondSequenceCapacity() {
+    TimeOrderedUuidGenerator generator = new TimeOrderedUuidGenerator(
+      Clock.fixed(Instant.parse("2025-01-01T00:00:00Z"), ZoneOffset.UTC));
+
+    List<UUID> ids = generator.next(10_000);
+
+    for (int i = 1; i < ids.size(); i++) {
+      assertThat(Long.compareUnsigned(ids.get(i - 1).getMostSignificantBits(), ids.get(i).getMostSignificantBits()))
+        .as("id %d is greater than the previous one", i)
+        .isNegative();
+    }
+    assertThat(ids).doesNotHaveDuplicates();
+  }
+}
@@ -0,0 +1,74 @@
+package ru.itk.wallet_service.service.bulk;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.repository.WalletBulkRepository;
+import ru.itk.wallet_service.service.metrics.WalletMetrics;
+import ru.itk.wallet_service.web.dto.BulkCreateWalletDto;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WalletBulkCreatorTest {
+
+  @Mock
+  private WalletBulkRepository repository;
+  @Spy
+  private TimeOrderedUuidGenerator idGenerator = new TimeOrderedUuidGenerator();
+  @Spy
+  private WalletMetrics metrics = new WalletMetrics(new SimpleMeterRegistry());
+  @Spy
+  private WalletProperties properties = new WalletProperties();
+  @InjectMocks
+  private WalletBulkCreator creator;
+
+  @Test
+  void create_byCount_shouldInsertGeneratedIdsInChunks() {
+    properties.getBulk().setChunkSize(4);
+    when(repository.insertAll(anyList())).thenAnswer(inv -> inv.getArgument(0));
+    BulkCreateWalletDto request = new BulkCreateWalletDto();
+    request.setCount(10);
+
+    List<List<UUID>> chunks = new ArrayList<>();
+    long created = creator.create(request, chunks::add);
+
+    assertThat(created).isEqualTo(10);
+    assertThat(chunks).extracting(List::size).containsExactly(4, 4, 2);
+    assertThat(chunks.stream().flatMap(List::stream)).allMatch(id -> id.version() == 7).doesNotHaveDuplicates();
+    verify(repository, times(3)).insertAll(anyList());
+  }
+
+  @Test
+  void create_byIds_shouldReportOnlyInsertedWallets() {
+    properties.getBulk().setChunkSize(2);
+    UUID existing = UUID.randomUUID();
+    List<UUID> walletIds = List.of(UUID.randomUUID(), existing, UUID.randomUUID());
+    when(repository.insertAll(anyList())).thenAnswer(inv -> inv.<List<UUID>>getArgument(0).stream()
+      .filter(id -> !id.equals(existing))
+      .toList());
+    BulkCreateWalletDto request = new BulkCreateWalletDto();
+    request.setWalletIds(walletIds);
+
+    List<UUID> reported = new ArrayList<>();
+    long created = creator.create(request, reported::addAll);
+
+    assertThat(created).isEqualTo(2);
+    assertThat(reported).containsExactly(walletIds.get(0), walletIds.get(2));
+    verify(repository).insertAll(walletIds.subList(0, 2));
+    verify(repository).insertAll(walletIds.subList(2, 3));
+  }
+}
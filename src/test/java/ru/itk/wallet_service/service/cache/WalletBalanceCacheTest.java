@@ -0,0 +1,107 @@
+package ru.itk.wallet_service.service.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class WalletBalanceCacheTest {
+
+  @Test
+  void get_shouldDelegateToLoaderWhenDisabled() {
+    WalletBalanceCache cache = new WalletBalanceCache(new WalletProperties(), new SimpleMeterRegistry());
+    AtomicInteger loads = new AtomicInteger();
+    UUID walletId = UUID.randomUUID();
+
+    cache.get(walletId, id -> load(loads, id, BigDecimal.TEN));
+    cache.get(walletId, id -> load(loads, id, BigDecimal.TEN));
+
+    assertThat(loads).hasValue(2);
+  }
+
+  @Test
+  void get_shouldLoadConcurrentMissesOnce() throws Exception {
+    WalletBalanceCache cache = enabledCache();
+    UUID walletId = UUID.randomUUID();
+    AtomicInteger loads = new AtomicInteger();
+    CountDownLatch loading = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<Wallet> first = CompletableFuture.supplyAsync(() -> cache.get(walletId, id -> {
+      loading.countDown();
+      await(release);
+      return load(loads, id, BigDecimal.TEN);
+    }));
+    assertThat(loading.await(1, TimeUnit.SECONDS)).isTrue();
+    CompletableFuture<Wallet> second = CompletableFuture.supplyAsync(() ->
+      cache.get(walletId, id -> load(loads, id, BigDecimal.ONE)));
+    release.countDown();
+
+    assertThat(first.get(1, TimeUnit.SECONDS).getAmount()).isEqualByComparingTo(BigDecimal.TEN);
+    assertThat(second.get(1, TimeUnit.SECONDS).getAmount()).isEqualByComparingTo(BigDecimal.TEN);
+    assertThat(loads).hasValue(1);
+  }
+
+  @Test
+  void putAfterCommit_shouldServeLatestWriteWithoutLoading() {
+    WalletBalanceCache cache = enabledCache();
+    UUID walletId = UUID.randomUUID();
+    AtomicInteger loads = new AtomicInteger();
+
+    cache.putAfterCommit(wallet(walletId, BigDecimal.ONE));
+    cache.putAfterCommit(wallet(walletId, BigDecimal.TEN));
+
+    Wallet cached = cache.get(walletId, id -> load(loads, id, BigDecimal.ZERO));
+    assertThat(cached.getAmount()).isEqualByComparingTo(BigDecimal.TEN);
+    assertThat(loads).hasValue(0);
+  }
+
+  @Test
+  void evictAfterCommit_shouldForceReload() {
+    WalletBalanceCache cache = enabledCache();
+    UUID walletId = UUID.randomUUID();
+    AtomicInteger loads = new AtomicInteger();
+
+    cache.putAfterCommit(wallet(walletId, BigDecimal.ONE));
+    cache.evictAfterCommit(walletId);
+
+    Wallet loaded = cache.get(walletId, id -> load(loads, id, BigDecimal.TEN));
+    assertThat(loaded.getAmount()).isEqualByComparingTo(BigDecimal.TEN);
+    assertThat(loads).hasValue(1);
+  }
+
+  private static WalletBalanceCache enabledCache() {
+    WalletProperties properties = new WalletProperties();
+    properties.getCache().setEnabled(true);
+    return new WalletBalanceCache(properties, new SimpleMeterRegistry());
+  }
+
+  private static Wallet load(AtomicInteger loads, UUID walletId, BigDecimal amount) {
+    loads.incrementAndGet();
+    return wallet(walletId, amount);
+  }
+
+  private static Wallet wallet(UUID walletId, BigDecimal amount) {
+    Wallet wallet = new Wallet();
+    wallet.setWalletId(walletId);
+    wallet.setAmount(amount);
+    return wallet;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(1, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,205 @@
+package ru.itk.wallet_service.service.combiner;
+
+import org.junit.jupiter.api.Test;
+import ru.itk.wallet_service.AbstractApplicationTest;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.handler.exception.EntityNotFoundException;
+import ru.itk.wallet_service.handler.exception.InsufficientFundsException;
+import ru.itk.wallet_service.service.WalletService;
+import ru.itk.wallet_service.service.model.OperationResult;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+import ru.itk.wallet_service.web.dto.TransferDto;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class WalletOperationCombinerTest extends AbstractApplicationTest {
+
+  @Test
+  void update_shouldApplyConcurrentOperationsInBatchesWithExactTotal() throws Exception {
+    UUID walletId = UUID.randomUUID();
+    InMemoryWalletService service = new InMemoryWalletService(walletId, BigDecimal.ZERO);
+    WalletOperationCombiner combiner = new WalletOperationCombiner(service, properties(10, Duration.ofMillis(1)));
+
+    ExecutorService executor = Executors.newFixedThreadPool(16);
+    try {
+      List<Future<Wallet>> futures = new ArrayList<>();
+      for (int i = 0; i < 200; i++) {
+        SaveWalletDto dto = buildSaveWalletDto(walletId, BigDecimal.ONE, OperationType.DEPOSIT);
+        futures.add(executor.submit(() -> combiner.update(dto)));
+      }
+      for (Future<Wallet> future : futures) {
+        assertThat(future.get().getWalletId()).isEqualTo(walletId);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+
+    assertThat(service.balance).isEqualByComparingTo(BigDecimal.valueOf(200));
+    assertThat(service.transactions.get()).isLessThanOrEqualTo(200);
+  }
+
+  @Test
+  void update_shouldThrowOwnInsufficientFundsException() {
+    UUID walletId = UUID.randomUUID();
+    InMemoryWalletService service = new InMemoryWalletService(walletId, BigDecimal.TEN);
+    WalletOperationCombiner combiner = new WalletOperationCombiner(service, properties(10, Duration.ZERO));
+
+    SaveWalletDto withdraw = buildSaveWalletDto(walletId, BigDecimal.valueOf(11), OperationType.WITHDRAW);
+
+    assertThatThrownBy(() -> combiner.update(withdraw))
+      .isInstanceOf(InsufficientFundsException.class);
+    assertThat(service.balance).isEqualByComparingTo(BigDecimal.TEN);
+  }
+
+  @Test
+  void update_shouldPropagateBatchFailureToEveryOperation() {
+    WalletService service = mock(WalletService.class);
+    UUID walletId = UUID.randomUUID();
+    when(service.updateWalletBatch(any(), anyList())).thenThrow(new EntityNotFoundException("not found"));
+    WalletOperationCombiner combiner = new WalletOperationCombiner(service, properties(10, Duration.ZERO));
+
+    assertThatThrownBy(() -> combiner.update(buildSaveWalletDto(walletId, BigDecimal.ONE, OperationType.DEPOSIT)))
+      .isInstanceOf(EntityNotFoundException.class);
+  }
+
+  @Test
+  void update_shouldCompleteEveryOperation_whenBatchThrowsError() throws Exception {
+    WalletService service = mock(WalletService.class);
+    UUID walletId = UUID.randomUUID();
+    when(service.updateWalletBatch(any(), anyList())).thenThrow(new LinkageError("failed"));
+    WalletOperationCombiner combiner = new WalletOperationCombiner(service, properties(10, Duration.ofMillis(5)));
+
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Wallet>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        SaveWalletDto dto = buildSaveWalletDto(walletId, BigDecimal.ONE, OperationType.DEPOSIT);
+        futures.add(executor.submit(() -> combiner.update(dto)));
+      }
+      for (Future<Wallet> future : futures) {
+        assertThatThrownBy(() -> future.get(5, TimeUnit.SECONDS))
+          .isInstanceOf(ExecutionException.class)
+          .cause()
+          .isInstanceOfAny(LinkageError.class, CompletionException.class);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  private WalletProperties properties(int maxBatchSize, Duration linger) {
+    WalletProperties properties = new WalletProperties();
+    properties.getCombiner().setEnabled(true);
+    properties.getCombiner().setMaxBatchSize(maxBatchSize);
+    properties.getCombiner().setLinger(linger);
+    properties.getCombiner().setStripes(4);
+    return properties;
+  }
+
+  /**
+   * Однопоточная модель кошелька: пакет применяется целиком, как в одной транзакции
+   */
+  private class InMemoryWalletService implements WalletService {
+    private final UUID walletId;
+    private final AtomicInteger transactions = new AtomicInteger();
+    private BigDecimal balance;
+
+    InMemoryWalletService(UUID walletId, BigDecimal balance) {
+      this.walletId = walletId;
+      this.balance = balance;
+    }
+
+    @Override
+    public synchronized List<OperationResult> updateWalletBatch(UUID id, List<SaveWalletDto> operations) {
+      transactions.incrementAndGet();
+      List<OperationResult> results = new ArrayList<>();
+      for (SaveWalletDto operation : operations) {
+        if (operation.getOperationType() == OperationType.WITHDRAW && balance.compareTo(operation.getAmount()) < 0) {
+          results.add(OperationResult.failure(new InsufficientFundsException(id, operation.getAmount())));
+          continue;
+        }
+        balance = operation.getOperationType() == OperationType.DEPOSIT
+          ? balance.add(operation.getAmount())
+          : balance.subtract(operation.getAmount());
+        results.add(OperationResult.success(buildWallet(walletId, balance)));
+      }
+      return results;
+    }
+
+    @Override
+    public List<OperationResult> updateWallets(List<SaveWalletDto> operations, boolean allOrNothing) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Wallet createWallet() {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Wallet updateWallet(SaveWalletDto dto) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<Wallet> updateWalletOnce(SaveWalletDto dto, String idempotencyKey) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Wallet updateWalletOptimistically(SaveWalletDto dto) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Wallet shardWallet(UUID id, int shardCount) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Wallet unshardWallet(UUID id) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Optional<Wallet> depositToShard(SaveWalletDto dto) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Wallet getBalance(UUID id) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Wallet> transfer(TransferDto dto) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Wallet> transferBatch(List<TransferDto> transfers) {
+      throw new UnsupportedOperationException();
+    }
+  }
+}
@@ -0,0 +1,110 @@
+package ru.itk.wallet_service.service.history;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.db.model.WalletOperation;
+import ru.itk.wallet_service.db.repository.WalletOperationRepository;
+import ru.itk.wallet_service.db.repository.WalletRepository;
+import ru.itk.wallet_service.handler.exception.EntityNotFoundException;
+import ru.itk.wallet_service.service.model.OperationPage;
+import ru.itk.wallet_service.web.dto.OperationHistoryQueryDto;
+
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OperationHistoryServiceTest {
+
+  @Mock
+  private WalletOperationRepository operationRepository;
+  @Mock
+  private WalletRepository walletRepository;
+  @Spy
+  private WalletProperties properties = new WalletProperties();
+  @InjectMocks
+  private OperationHistoryService service;
+
+  @Test
+  void getHistory_shouldReturnCursorOfLastOperation_whenMoreOperationsExist() {
+    UUID walletId = UUID.randomUUID();
+    OperationHistoryQueryDto query = new OperationHistoryQueryDto();
+    query.setLimit(3);
+    when(operationRepository.findHistory(walletId, null, null, null, null, 4))
+      .thenReturn(operations(walletId, 10, 9, 8, 7));
+
+    OperationPage page = service.getHistory(walletId, query);
+
+    assertThat(page.getOperations()).extracting(WalletOperation::getSequenceNumber).containsExactly(10L, 9L, 8L);
+    assertThat(page.getNextCursor()).isEqualTo(8L);
+    verify(walletRepository, never()).existsById(walletId);
+  }
+
+  @Test
+  void getHistory_shouldPassCursorAndFiltersAndUseDefaultPageSize() {
+    UUID walletId = UUID.randomUUID();
+    properties.getHistory().setPageSize(2);
+    OffsetDateTime from = OffsetDateTime.parse("2026-01-01T00:00:00Z");
+    OffsetDateTime to = OffsetDateTime.parse("2026-02-01T00:00:00Z");
+    OperationHistoryQueryDto query = new OperationHistoryQueryDto();
+    query.setCursor(8L);
+    query.setType(OperationType.WITHDRAW);
+    query.setFrom(from);
+    query.setTo(to);
+    when(operationRepository.findHistory(walletId, 8L, OperationType.WITHDRAW, from, to, 3))
+      .thenReturn(operations(walletId, 5, 2));
+
+    OperationPage page = service.getHistory(walletId, query);
+
+    assertThat(page.getOperations()).extracting(WalletOperation::getSequenceNumber).containsExactly(5L, 2L);
+    assertThat(page.getNextCursor()).isNull();
+  }
+
+  @Test
+  void getHistory_shouldReturnEmptyPage_whenWalletHasNoOperations() {
+    UUID walletId = UUID.randomUUID();
+    when(operationRepository.findHistory(walletId, null, null, null, null, 51)).thenReturn(List.of());
+    when(walletRepository.existsById(walletId)).thenReturn(true);
+
+    OperationPage page = service.getHistory(walletId, new OperationHistoryQueryDto());
+
+    assertThat(page.getOperations()).isEmpty();
+    assertThat(page.getNextCursor()).isNull();
+  }
+
+  @Test
+  void getHistory_shouldThrowEntityNotFound_whenWalletDoesNotExist() {
+    UUID walletId = UUID.randomUUID();
+    when(operationRepository.findHistory(walletId, null, null, null, null, 51)).thenReturn(List.of());
+    when(walletRepository.existsById(walletId)).thenReturn(false);
+
+    assertThatThrownBy(() -> service.getHistory(walletId, new OperationHistoryQueryDto()))
+      .isInstanceOf(EntityNotFoundException.class)
+      .hasMessageContaining(walletId.toString());
+  }
+
+  private static List<WalletOperation> operations(UUID walletId, long... sequenceNumbers) {
+    return LongStream.of(sequenceNumbers)
+      .mapToObj(sequence -> WalletOperation.builder()
+        .walletId(walletId)
+        .sequenceNumber(sequence)
+        .operationType(OperationType.DEPOSIT)
+        .amount(100)
+        .balance(100 * sequence)
+        .build())
+      .toList();
+  }
+}
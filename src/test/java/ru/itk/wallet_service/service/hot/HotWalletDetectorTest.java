@@ -0,0 +1,93 @@
+package ru.itk.wallet_service.service.hot;
+
+import org.junit.jupiter.api.Test;
+import ru.itk.wallet_service.config.WalletProperties;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotWalletDetectorTest {
+
+  @Test
+  void recordWrite_shouldPromoteWalletAboveWriteRate() {
+    HotWalletDetector detector = new HotWalletDetector(properties(true));
+    UUID hot = UUID.randomUUID();
+    UUID cold = UUID.randomUUID();
+
+    for (int i = 0; i < 200; i++) {
+      detector.recordWrite(hot);
+    }
+    detector.recordWrite(cold);
+
+    assertThat(detector.isHot(hot)).isTrue();
+    assertThat(detector.isHot(cold)).isFalse();
+    assertThat(detector.snapshot().get(0).walletId()).isEqualTo(hot);
+  }
+
+  @Test
+  void recordWrite_shouldNotPromoteColdWallets_whenDistinctWalletsExceedCapacity() {
+    WalletProperties properties = properties(true);
+    properties.getHot().setCapacity(16);
+    HotWalletDetector detector = new HotWalletDetector(properties);
+    List<UUID> cold = Stream.generate(UUID::randomUUID).limit(5_000).toList();
+
+    // каждый кошелёк получает 20 записей за окно (2 в секунду), а минимум кучи растёт до тысяч
+    for (int round = 0; round < 20; round++) {
+      cold.forEach(detector::recordWrite);
+    }
+
+    assertThat(cold).noneMatch(detector::isHot);
+  }
+
+  @Test
+  void snapshot_shouldMergeWalletsFromAllStripes() {
+    HotWalletDetector detector = new HotWalletDetector(properties(true));
+    List<UUID> hot = Stream.generate(UUID::randomUUID).limit(64).toList();
+
+    for (int i = 0; i < 200; i++) {
+      hot.forEach(detector::recordWrite);
+    }
+
+    assertThat(hot).allMatch(detector::isHot);
+    assertThat(detector.snapshot())
+      .extracting(HotWalletStats::walletId)
+      .containsExactlyInAnyOrderElementsOf(hot);
+  }
+
+  @Test
+  void recordWrite_shouldPromoteWalletWaitingForLock() {
+    HotWalletDetector detector = new HotWalletDetector(properties(true));
+    UUID walletId = UUID.randomUUID();
+
+    detector.recordWrite(walletId);
+    detector.recordLockWait(walletId, Duration.ofSeconds(30).toNanos());
+    detector.recordWrite(walletId);
+
+    assertThat(detector.isHot(walletId)).isTrue();
+  }
+
+  @Test
+  void isHot_shouldBeFalseWhenDisabled() {
+    HotWalletDetector detector = new HotWalletDetector(properties(false));
+    UUID walletId = UUID.randomUUID();
+
+    for (int i = 0; i < 200; i++) {
+      detector.recordWrite(walletId);
+    }
+
+    assertThat(detector.isHot(walletId)).isFalse();
+  }
+
+  private static WalletProperties properties(boolean enabled) {
+    WalletProperties properties = new WalletProperties();
+    properties.getHot().setEnabled(enabled);
+    properties.getHot().setWindow(Duration.ofSeconds(10));
+    properties.getHot().setPromoteWritesPerSecond(10);
+    properties.getHot().setDemoteWritesPerSecond(5);
+    return properties;
+  }
+}
@@ -0,0 +1,60 @@
+package ru.itk.wallet_service.service.hot;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpaceSavingSketchTest {
+
+  @Test
+  void recordWrite_shouldKeepHeavyHitterWhileColdWalletsChurn() {
+    SpaceSavingSketch sketch = new SpaceSavingSketch(16);
+    UUID hot = UUID.randomUUID();
+
+    for (int i = 0; i < 10_000; i++) {
+      sketch.recordWrite(i % 4 == 0 ? hot : UUID.randomUUID());
+    }
+
+    assertThat(sketch.count(hot)).isGreaterThanOrEqualTo(2_500);
+    assertThat(sketch.entries()).hasSize(16);
+  }
+
+  @Test
+  void count_shouldNotIncludeCountTakenOverFromEvictedWallet() {
+    SpaceSavingSketch sketch = new SpaceSavingSketch(4);
+    for (int i = 0; i < 4; i++) {
+      UUID filler = UUID.randomUUID();
+      for (int j = 0; j < 100; j++) {
+        sketch.recordWrite(filler);
+      }
+    }
+    UUID newcomer = UUID.randomUUID();
+
+    sketch.recordWrite(newcomer);
+
+    assertThat(sketch.count(newcomer)).isEqualTo(1);
+    assertThat(sketch.entries()).filteredOn(entry -> entry.walletId().equals(newcomer))
+      .singleElement()
+      .satisfies(entry -> assertThat(entry.count()).isEqualTo(101));
+  }
+
+  @Test
+  void recordWrite_shouldCountExactlyWhileBelowCapacity() {
+    SpaceSavingSketch sketch = new SpaceSavingSketch(8);
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+
+    for (int i = 0; i < 5; i++) {
+      sketch.recordWrite(first);
+    }
+    sketch.recordWrite(second);
+    sketch.recordLockWait(second, 42);
+
+    assertThat(sketch.count(first)).isEqualTo(5);
+    assertThat(sketch.count(second)).isEqualTo(1);
+    assertThat(sketch.lockWaitNanos(second)).isEqualTo(42);
+    assertThat(sketch.count(UUID.randomUUID())).isZero();
+  }
+}
@@ -0,0 +1,35 @@
+package ru.itk.wallet_service.service.idempotency;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+  @Test
+  void mightContain_shouldNeverMissInsertedKeys() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    String[] keys = IntStream.range(0, 10_000).mapToObj(i -> UUID.randomUUID() + ":" + i).toArray(String[]::new);
+
+    for (String key : keys) {
+      filter.put(key);
+    }
+
+    assertThat(keys).allMatch(filter::mightContain);
+  }
+
+  @Test
+  void mightContain_shouldKeepFalsePositiveRateNearConfigured() {
+    BloomFilter filter = new BloomFilter(10_000, 0.01);
+    IntStream.range(0, 10_000).forEach(i -> filter.put("inserted-" + i));
+
+    long falsePositives = IntStream.range(0, 100_000)
+      .filter(i -> filter.mightContain("absent-" + i))
+      .count();
+
+    assertThat(falsePositives).isLessThan(2_000);
+  }
+}
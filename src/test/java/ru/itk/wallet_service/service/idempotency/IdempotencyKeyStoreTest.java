@@ -0,0 +1,77 @@
+package ru.itk.wallet_service.service.idempotency;
+
+import org.junit.jupiter.api.Test;
+import ru.itk.wallet_service.AbstractApplicationTest;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.db.model.IdempotencyKeyRecord;
+import ru.itk.wallet_service.db.repository.IdempotencyKeyRepository;
+import ru.itk.wallet_service.handler.exception.IdempotencyKeyMismatchException;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class IdempotencyKeyStoreTest extends AbstractApplicationTest {
+  private final IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+  private final IdempotencyKeyStore store = new IdempotencyKeyStore(repository, properties());
+
+  @Test
+  void find_shouldReturnStoredResult_whenReplayHasSameOperation() {
+    SaveWalletDto dto = buildSaveWalletDto(UUID.randomUUID(), new BigDecimal("100.00"), OperationType.DEPOSIT);
+    when(repository.find(dto.getWalletId(), "key"))
+      .thenReturn(Optional.of(new IdempotencyKeyRecord(OperationType.DEPOSIT, 10000L, 15000L)));
+
+    Optional<Wallet> replayed = store.find(dto, "key");
+
+    assertThat(replayed).hasValueSatisfying(wallet ->
+      assertThat(wallet.getAmount()).isEqualByComparingTo(new BigDecimal("150.00")));
+  }
+
+  @Test
+  void find_shouldRejectReplay_whenAmountDiffers() {
+    SaveWalletDto dto = buildSaveWalletDto(UUID.randomUUID(), new BigDecimal("50.00"), OperationType.DEPOSIT);
+    when(repository.find(dto.getWalletId(), "key"))
+      .thenReturn(Optional.of(new IdempotencyKeyRecord(OperationType.DEPOSIT, 10000L, 15000L)));
+
+    assertThatThrownBy(() -> store.find(dto, "key"))
+      .isInstanceOf(IdempotencyKeyMismatchException.class)
+      .hasMessageContaining("key");
+  }
+
+  @Test
+  void find_shouldRejectRecentReplay_whenOperationTypeDiffers() {
+    UUID walletId = UUID.randomUUID();
+    store.remember(buildSaveWalletDto(walletId, new BigDecimal("100.00"), OperationType.DEPOSIT), "key", 15000L);
+
+    SaveWalletDto withdraw = buildSaveWalletDto(walletId, new BigDecimal("100.00"), OperationType.WITHDRAW);
+
+    assertThatThrownBy(() -> store.find(withdraw, "key"))
+      .isInstanceOf(IdempotencyKeyMismatchException.class);
+    verifyNoInteractions(repository);
+  }
+
+  @Test
+  void find_shouldReturnStoredResult_whenKeyHasNoStoredOperation() {
+    SaveWalletDto dto = buildSaveWalletDto(UUID.randomUUID(), new BigDecimal("1.00"), OperationType.WITHDRAW);
+    when(repository.find(dto.getWalletId(), "key"))
+      .thenReturn(Optional.of(new IdempotencyKeyRecord(null, null, 15000L)));
+
+    assertThat(store.find(dto, "key")).isPresent();
+  }
+
+  private static WalletProperties properties() {
+    WalletProperties properties = new WalletProperties();
+    properties.getIdempotency().setExpectedKeys(1_000);
+    properties.getIdempotency().setRecentKeys(100);
+    return properties;
+  }
+}
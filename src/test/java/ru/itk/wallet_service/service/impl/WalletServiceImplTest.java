@@ -1,26 +1,47 @@
 package ru.itk.wallet_service.service.impl;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import ru.itk.wallet_service.AbstractApplicationTest;
+import ru.itk.wallet_service.config.WalletProperties;
 import ru.itk.wallet_service.db.entity.Wallet;
 import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.db.model.WalletOperation;
+import ru.itk.wallet_service.db.repository.IdempotencyKeyRepository;
+import ru.itk.wallet_service.db.repository.WalletOperationRepository;
 import ru.itk.wallet_service.db.repository.WalletRepository;
+import ru.itk.wallet_service.db.repository.WalletShardRepository;
+import ru.itk.wallet_service.db.routing.RecentWrites;
+import ru.itk.wallet_service.enums.OperationStatus;
+import ru.itk.wallet_service.enums.UpdateMode;
+import ru.itk.wallet_service.handler.exception.BalanceOverflowException;
+import ru.itk.wallet_service.handler.exception.BatchRejectedException;
 import ru.itk.wallet_service.handler.exception.EntityNotFoundException;
 import ru.itk.wallet_service.handler.exception.InsufficientFundsException;
+import ru.itk.wallet_service.handler.exception.JournalModeException;
+import ru.itk.wallet_service.service.cache.WalletBalanceCache;
+import ru.itk.wallet_service.service.hot.HotWalletDetector;
+import ru.itk.wallet_service.service.metrics.WalletMetrics;
+import ru.itk.wallet_service.service.model.OperationResult;
 import ru.itk.wallet_service.web.dto.SaveWalletDto;
+import ru.itk.wallet_service.web.dto.TransferDto;
 
 import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,10 +49,28 @@ class WalletServiceImplTest extends AbstractApplicationTest {
 
   @Mock
   private WalletRepository repository;
+  @Mock
+  private WalletShardRepository shardRepository;
+  @Mock
+  private WalletOperationRepository operationRepository;
+  @Mock
+  private IdempotencyKeyRepository idempotencyKeyRepository;
+  @Mock
+  private WalletBalanceCache balanceCache;
+  @Mock
+  private RecentWrites recentWrites;
+  @Mock
+  private HotWalletDetector hotWallets;
+  @Spy
+  private WalletMetrics metrics = new WalletMetrics(new SimpleMeterRegistry());
+  @Spy
+  private WalletProperties properties = new WalletProperties();
   @InjectMocks
   private WalletServiceImpl service;
   @Captor
   private ArgumentCaptor<Wallet> walletCaptor;
+  @Captor
+  private ArgumentCaptor<List<WalletOperation>> journalCaptor;
 
   @Test
   void createWallet_shouldCreateWithZeroBalanceAndSave() {
@@ -46,10 +85,11 @@ class WalletServiceImplTest extends AbstractApplicationTest {
 
     assertThat(captured.getAmount()).isEqualByComparingTo(BigDecimal.ZERO);
     assertThat(result).isSameAs(saved);
+    verify(balanceCache).putAfterCommit(saved);
   }
 
   @Test
-  void updateWallet_deposit_shouldAddAmountAndSave() {
+  void updateWallet_deposit_shouldWriteBalanceAndLedgerRecordInOneStatement() {
     UUID id = UUID.randomUUID();
     Wallet existing = buildWallet(id, BigDecimal.valueOf(100.00));
 
@@ -59,13 +99,17 @@ class WalletServiceImplTest extends AbstractApplicationTest {
     when(dto.getAmount()).thenReturn(BigDecimal.valueOf(25.50));
 
     when(repository.findByIdForUpdate(id)).thenReturn(Optional.of(existing));
-    when(repository.save(any(Wallet.class))).thenAnswer(inv -> inv.getArgument(0));
+    when(repository.updateBalance(eq(id), anyLong(), anyLong(), anyString(), anyLong())).thenReturn(1);
 
     Wallet updated = service.updateWallet(dto);
 
     assertThat(updated.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(125.50));
     verify(repository).findByIdForUpdate(id);
-    verify(repository).save(existing);
+    assertThat(updated.getVersion()).isEqualTo(1L);
+    verify(repository).updateBalance(id, 0L, 12550L, "DEPOSIT", 2550L);
+    verify(repository, never()).save(any());
+    verify(repository, never()).flush();
+    verifyNoInteractions(operationRepository);
   }
 
   @Test
@@ -79,12 +123,12 @@ class WalletServiceImplTest extends AbstractApplicationTest {
     when(dto.getAmount()).thenReturn(BigDecimal.valueOf(40.00));
 
     when(repository.findByIdForUpdate(id)).thenReturn(Optional.of(existing));
-    when(repository.save(any(Wallet.class))).thenAnswer(inv -> inv.getArgument(0));
+    when(repository.updateBalance(eq(id), anyLong(), anyLong(), anyString(), anyLong())).thenReturn(1);
 
     Wallet updated = service.updateWallet(dto);
 
     assertThat(updated.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(60.00));
-    verify(repository).save(existing);
+    verify(repository).updateBalance(id, 0L, 6000L, "WITHDRAW", 4000L);
   }
 
   @Test
@@ -106,6 +150,23 @@ class WalletServiceImplTest extends AbstractApplicationTest {
     verify(repository, never()).save(any());
   }
 
+  @Test
+  void updateWallet_deposit_shouldThrowBalanceOverflowWhenBalanceExceedsLong() {
+    UUID id = UUID.randomUUID();
+    Wallet existing = buildWallet(id, BigDecimal.ZERO);
+    existing.setAmountMinor(Long.MAX_VALUE - 99);
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(1.00), OperationType.DEPOSIT);
+
+    when(repository.findByIdForUpdate(id)).thenReturn(Optional.of(existing));
+
+    assertThatThrownBy(() -> service.updateWallet(dto))
+      .isInstanceOf(BalanceOverflowException.class)
+      .hasMessageContaining(id.toString());
+
+    assertThat(existing.getAmountMinor()).isEqualTo(Long.MAX_VALUE - 99);
+    verify(repository, never()).save(any());
+  }
+
   @Test
   void updateWallet_unknownOrNullOperation_shouldThrowInvalidOperationTypeException() {
     UUID id = UUID.randomUUID();
@@ -135,23 +196,462 @@ class WalletServiceImplTest extends AbstractApplicationTest {
       .hasMessageContaining(id.toString());
   }
 
+  @Test
+  void updateWallet_atomicDeposit_shouldApplyDeltaInSingleStatement() {
+    UUID id = UUID.randomUUID();
+    properties.setUpdateMode(UpdateMode.ATOMIC);
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(25.50), OperationType.DEPOSIT);
+
+    when(repository.addToBalance(id, 2550L, "DEPOSIT")).thenReturn(Optional.of(12550L));
+
+    Wallet updated = service.updateWallet(dto);
+
+    assertThat(updated.getWalletId()).isEqualTo(id);
+    assertThat(updated.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(125.50));
+    verify(repository, never()).findByIdForUpdate(any());
+    verify(repository, never()).save(any());
+    verify(operationRepository, never()).saveAll(any());
+  }
+
+  @Test
+  void updateWallet_atomicWithdraw_shouldPassNegativeDelta() {
+    UUID id = UUID.randomUUID();
+    properties.setUpdateMode(UpdateMode.ATOMIC);
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(40.00), OperationType.WITHDRAW);
+
+    when(repository.addToBalance(id, -4000L, "WITHDRAW")).thenReturn(Optional.of(6000L));
+
+    Wallet updated = service.updateWallet(dto);
+
+    assertThat(updated.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(60.00));
+  }
+
+  @Test
+  void updateWallet_atomicWithdraw_shouldThrowInsufficientFundsWhenWalletExists() {
+    UUID id = UUID.randomUUID();
+    properties.setUpdateMode(UpdateMode.ATOMIC);
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(20.00), OperationType.WITHDRAW);
+
+    when(repository.addToBalance(id, -2000L, "WITHDRAW")).thenReturn(Optional.empty());
+    when(repository.findByIdForUpdate(id)).thenReturn(Optional.of(buildWallet(id, BigDecimal.valueOf(10.00))));
+
+    assertThatThrownBy(() -> service.updateWallet(dto))
+      .isInstanceOf(InsufficientFundsException.class)
+      .hasMessageContaining(id.toString());
+  }
+
+  @Test
+  void updateWallet_atomic_shouldThrowEntityNotFoundWhenWalletMissing() {
+    UUID id = UUID.randomUUID();
+    properties.setUpdateMode(UpdateMode.ATOMIC);
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(20.00), OperationType.DEPOSIT);
+
+    when(repository.addToBalance(id, 2000L, "DEPOSIT")).thenReturn(Optional.empty());
+    when(repository.findByIdForUpdate(id)).thenReturn(Optional.empty());
+
+    assertThatThrownBy(() -> service.updateWallet(dto))
+      .isInstanceOf(EntityNotFoundException.class)
+      .hasMessageContaining(id.toString());
+  }
+
+  @Test
+  void updateWalletBatch_shouldApplyOperationsInOrderAndSaveOnce() {
+    UUID id = UUID.randomUUID();
+    Wallet existing = buildWallet(id, BigDecimal.valueOf(10.00));
+    List<SaveWalletDto> operations = List.of(
+      buildSaveWalletDto(id, BigDecimal.valueOf(5.00), OperationType.DEPOSIT),
+      buildSaveWalletDto(id, BigDecimal.valueOf(20.00), OperationType.WITHDRAW),
+      buildSaveWalletDto(id, BigDecimal.valueOf(15.00), OperationType.WITHDRAW));
+
+    when(repository.findByIdForUpdate(id)).thenReturn(Optional.of(existing));
+
+    List<OperationResult> results = service.updateWalletBatch(id, operations);
+
+    assertThat(results).hasSize(3);
+    assertThat(results.get(0).getWallet().getAmount()).isEqualByComparingTo(BigDecimal.valueOf(15.00));
+    assertThat(results.get(1).getError()).isInstanceOf(InsufficientFundsException.class);
+    assertThat(results.get(2).getWallet().getAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+    assertThat(existing.getAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+    verify(repository, times(1)).findByIdForUpdate(id);
+    verify(repository, times(1)).save(existing);
+    verify(operationRepository, times(1)).saveAll(journalCaptor.capture());
+    assertThat(journalCaptor.getValue())
+      .extracting(WalletOperation::getBalance)
+      .containsExactly(1500L, 0L);
+  }
+
+  @Test
+  void updateWalletBatch_notFoundShouldThrowEntityNotFoundException() {
+    UUID id = UUID.randomUUID();
+    when(repository.findByIdForUpdate(id)).thenReturn(Optional.empty());
+
+    assertThatThrownBy(() -> service.updateWalletBatch(id, List.of()))
+      .isInstanceOf(EntityNotFoundException.class);
+  }
+
+  @Test
+  void updateWalletOptimistically_shouldReadWithoutLockAndWriteVersionedUpdate() {
+    UUID id = UUID.randomUUID();
+    Wallet existing = buildWallet(id, BigDecimal.valueOf(100.00));
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(40.00), OperationType.WITHDRAW);
+
+    when(repository.findById(id)).thenReturn(Optional.of(existing));
+    when(repository.updateBalance(eq(id), anyLong(), anyLong(), anyString(), anyLong())).thenReturn(1);
+
+    Wallet updated = service.updateWalletOptimistically(dto);
+
+    assertThat(updated.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(60.00));
+    verify(repository, never()).findByIdForUpdate(any());
+    verify(repository, never()).save(any());
+    verify(repository).updateBalance(id, 0L, 6000L, "WITHDRAW", 4000L);
+    verifyNoInteractions(operationRepository);
+    verify(balanceCache).putAfterCommit(updated);
+  }
+
+  @Test
+  void updateWalletOptimistically_shouldThrowInsufficientFunds() {
+    UUID id = UUID.randomUUID();
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(140.00), OperationType.WITHDRAW);
+
+    when(repository.findById(id)).thenReturn(Optional.of(buildWallet(id, BigDecimal.valueOf(100.00))));
+
+    assertThatThrownBy(() -> service.updateWalletOptimistically(dto))
+      .isInstanceOf(InsufficientFundsException.class);
+    verify(repository, never()).updateBalance(any(), anyLong(), anyLong(), any(), anyLong());
+  }
+
+  @Test
+  void updateWalletOptimistically_shouldThrowOptimisticLockFailure_whenVersionChanged() {
+    UUID id = UUID.randomUUID();
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(40.00), OperationType.DEPOSIT);
+
+    when(repository.findById(id)).thenReturn(Optional.of(buildWallet(id, BigDecimal.valueOf(100.00))));
+    when(repository.updateBalance(id, 0L, 14000L, "DEPOSIT", 4000L)).thenReturn(0);
+
+    assertThatThrownBy(() -> service.updateWalletOptimistically(dto))
+      .isInstanceOf(ObjectOptimisticLockingFailureException.class);
+    verify(balanceCache, never()).putAfterCommit(any());
+  }
+
+  @Test
+  void updateWalletOnce_shouldApplyAndStoreResultWhenKeyIsNew() {
+    UUID id = UUID.randomUUID();
+    Wallet existing = buildWallet(id, BigDecimal.valueOf(100.00));
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(20.00), OperationType.DEPOSIT);
+
+    when(idempotencyKeyRepository.claim(id, "key", OperationType.DEPOSIT, 2000L)).thenReturn(true);
+    when(repository.findByIdForUpdate(id)).thenReturn(Optional.of(existing));
+    when(repository.updateBalance(eq(id), anyLong(), anyLong(), anyString(), anyLong())).thenReturn(1);
+
+    Optional<Wallet> updated = service.updateWalletOnce(dto, "key");
+
+    assertThat(updated).hasValueSatisfying(wallet ->
+      assertThat(wallet.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(120.00)));
+    verify(idempotencyKeyRepository).complete(id, "key", updated.get().getAmountMinor());
+  }
+
+  @Test
+  void updateWalletOnce_shouldNotTouchWalletWhenKeyIsUsed() {
+    UUID id = UUID.randomUUID();
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(20.00), OperationType.DEPOSIT);
+
+    when(idempotencyKeyRepository.claim(id, "key", OperationType.DEPOSIT, 2000L)).thenReturn(false);
+
+    assertThat(service.updateWalletOnce(dto, "key")).isEmpty();
+    verifyNoInteractions(repository, shardRepository, operationRepository);
+    verify(idempotencyKeyRepository, never()).complete(any(), any(), anyLong());
+  }
+
+  @Test
+  void updateWallet_shardingEnabled_shouldDepositIntoShardWithoutLockingWallet() {
+    UUID id = UUID.randomUUID();
+    properties.getSharding().setEnabled(true);
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(5.00), OperationType.DEPOSIT);
+
+    when(shardRepository.depositToShard(eq(id), eq(500L), anyInt())).thenReturn(Optional.of(10500L));
+
+    Wallet updated = service.updateWallet(dto);
+
+    assertThat(updated.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(105.00));
+    verify(repository, never()).findByIdForUpdate(any());
+    verify(balanceCache).evictAfterCommit(id);
+    verify(balanceCache, never()).putAfterCommit(any());
+  }
+
+  @Test
+  void updateWallet_shardingEnabled_shouldFallBackToLockWhenWalletIsNotSharded() {
+    UUID id = UUID.randomUUID();
+    properties.getSharding().setEnabled(true);
+    Wallet existing = buildWallet(id, BigDecimal.valueOf(100.00));
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(5.00), OperationType.DEPOSIT);
+
+    when(shardRepository.depositToShard(eq(id), anyLong(), anyInt())).thenReturn(Optional.empty());
+    when(repository.findByIdForUpdate(id)).thenReturn(Optional.of(existing));
+    when(repository.updateBalance(eq(id), anyLong(), anyLong(), anyString(), anyLong())).thenReturn(1);
+
+    Wallet updated = service.updateWallet(dto);
+
+    assertThat(updated.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(105.00));
+    verify(shardRepository, never()).lockAndSumByWalletId(any());
+    verify(repository, never()).flush();
+  }
+
+  @Test
+  void updateWallet_withdrawFromShardedWallet_shouldBorrowFromShards() {
+    UUID id = UUID.randomUUID();
+    Wallet existing = buildWallet(id, BigDecimal.valueOf(10.00));
+    existing.setShardCount(4);
+    SaveWalletDto dto = buildSaveWalletDto(id, BigDecimal.valueOf(30.00), OperationType.WITHDRAW);
+
+    when(repository.findByIdForUpdate(id)).thenReturn(Optional.of(existing));
+    when(shardRepository.lockAndSumByWalletId(id)).thenReturn(2500L);
+    when(repository.updateBalance(eq(id), anyLong(), anyLong(), anyString(), anyLong())).thenReturn(1);
+
+    Wallet updated = service.updateWallet(dto);
+
+    assertThat(updated.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(5.00));
+    verify(shardRepository).resetByWalletId(id);
+    verify(repository).flush();
+    verify(repository).updateBalance(id, 0L, 500L, "WITHDRAW", 3000L);
+  }
+
+  @Test
+  void shardWallet_shouldCollapseExistingShardsAndCreateNewSlots() {
+    UUID id = UUID.randomUUID();
+    Wallet existing = buildWallet(id, BigDecimal.valueOf(10.00));
+    existing.setShardCount(2);
+
+    when(repository.findByIdForUpdate(id)).thenReturn(Optional.of(existing));
+    when(shardRepository.lockAndSumByWalletId(id)).thenReturn(700L);
+    when(repository.save(any(Wallet.class))).thenAnswer(inv -> inv.getArgument(0));
+
+    Wallet sharded = service.shardWallet(id, 8);
+
+    assertThat(sharded.getShardCount()).isEqualTo(8);
+    assertThat(sharded.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(17.00));
+    verify(shardRepository).deleteByWalletId(id);
+    verify(shardRepository).createShards(id, 8);
+  }
+
+  @Test
+  void unshardWallet_shouldMoveShardBalancesIntoWallet() {
+    UUID id = UUID.randomUUID();
+    Wallet existing = buildWallet(id, BigDecimal.valueOf(1.00));
+    existing.setShardCount(4);
+
+    when(repository.findByIdForUpdate(id)).thenReturn(Optional.of(existing));
+    when(shardRepository.lockAndSumByWalletId(id)).thenReturn(900L);
+    when(repository.save(any(Wallet.class))).thenAnswer(inv -> inv.getArgument(0));
+
+    Wallet result = service.unshardWallet(id);
+
+    assertThat(result.getShardCount()).isZero();
+    assertThat(result.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(10.00));
+    verify(shardRepository).deleteByWalletId(id);
+  }
+
+  @Test
+  void getBalance_shouldReadWalletAndShardsInOneStatement() {
+    UUID id = UUID.randomUUID();
+
+    when(repository.findBalanceById(id)).thenReturn(Optional.of(4250L));
+
+    Wallet result = service.getBalance(id);
+
+    assertThat(result.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(42.50));
+    verify(repository, never()).findById(any());
+    verifyNoInteractions(shardRepository);
+  }
+
+  @Test
+  void updateWallets_shouldLockAllWalletsOnceAndReportEachOperation() {
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+    UUID missing = UUID.randomUUID();
+    Wallet firstWallet = buildWallet(first, BigDecimal.valueOf(10.00));
+    Wallet secondWallet = buildWallet(second, BigDecimal.valueOf(5.00));
+    List<SaveWalletDto> operations = List.of(
+      buildSaveWalletDto(first, BigDecimal.valueOf(3.00), OperationType.WITHDRAW),
+      buildSaveWalletDto(missing, BigDecimal.valueOf(1.00), OperationType.DEPOSIT),
+      buildSaveWalletDto(second, BigDecimal.valueOf(6.00), OperationType.WITHDRAW),
+      buildSaveWalletDto(second, BigDecimal.valueOf(2.00), OperationType.DEPOSIT));
+
+    when(repository.findAllByIdForUpdate(any())).thenReturn(List.of(firstWallet, secondWallet));
+
+    List<OperationResult> results = service.updateWallets(operations, false);
+
+    assertThat(results).extracting(OperationResult::getStatus).containsExactly(
+      OperationStatus.APPLIED, OperationStatus.REJECTED, OperationStatus.REJECTED, OperationStatus.APPLIED);
+    assertThat(results.get(1).getError()).isInstanceOf(EntityNotFoundException.class);
+    assertThat(results.get(2).getError()).isInstanceOf(InsufficientFundsException.class);
+    assertThat(firstWallet.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(7.00));
+    assertThat(secondWallet.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(7.00));
+    verify(repository, times(1)).findAllByIdForUpdate(any());
+    verify(repository).saveAll(any());
+  }
+
+  @Test
+  void updateWallets_allOrNothing_shouldThrowWhenAnyOperationRejected() {
+    UUID id = UUID.randomUUID();
+    Wallet wallet = buildWallet(id, BigDecimal.valueOf(10.00));
+    List<SaveWalletDto> operations = List.of(
+      buildSaveWalletDto(id, BigDecimal.valueOf(3.00), OperationType.DEPOSIT),
+      buildSaveWalletDto(id, BigDecimal.valueOf(100.00), OperationType.WITHDRAW));
+
+    when(repository.findAllByIdForUpdate(any())).thenReturn(List.of(wallet));
+
+    assertThatThrownBy(() -> service.updateWallets(operations, true))
+      .isInstanceOfSatisfying(BatchRejectedException.class, e -> assertThat(e.getResults())
+        .extracting(OperationResult::getStatus)
+        .containsExactly(OperationStatus.APPLIED, OperationStatus.REJECTED));
+    verify(repository, never()).saveAll(any());
+    verify(operationRepository, never()).saveAll(any());
+  }
+
+  @Test
+  void transfer_shouldMoveFundsAndJournalBothLegs() {
+    UUID from = UUID.randomUUID();
+    UUID to = UUID.randomUUID();
+    Wallet fromWallet = buildWallet(from, BigDecimal.valueOf(100.00));
+    Wallet toWallet = buildWallet(to, BigDecimal.valueOf(5.00));
+
+    when(repository.findAllByIdForUpdate(any())).thenReturn(List.of(toWallet, fromWallet));
+
+    List<Wallet> result = service.transfer(buildTransferDto(from, to, BigDecimal.valueOf(30.25)));
+
+    assertThat(result).containsExactly(fromWallet, toWallet);
+    assertThat(fromWallet.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(69.75));
+    assertThat(toWallet.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(35.25));
+    verify(repository, times(1)).findAllByIdForUpdate(any());
+    verify(repository, never()).transfer(any(), any(), anyLong());
+    verify(operationRepository).saveAll(journalCaptor.capture());
+    assertThat(journalCaptor.getValue())
+      .extracting(WalletOperation::getOperationType, WalletOperation::getAmount, WalletOperation::getBalance)
+      .containsExactly(
+        tuple(OperationType.TRANSFER_OUT, 3025L, 6975L),
+        tuple(OperationType.TRANSFER_IN, 3025L, 3525L));
+  }
+
+  @Test
+  void transfer_shouldThrowInsufficientFundsAndKeepBalances() {
+    UUID from = UUID.randomUUID();
+    UUID to = UUID.randomUUID();
+    Wallet fromWallet = buildWallet(from, BigDecimal.valueOf(10.00));
+    Wallet toWallet = buildWallet(to, BigDecimal.ZERO);
+
+    when(repository.findAllByIdForUpdate(any())).thenReturn(List.of(fromWallet, toWallet));
+
+    assertThatThrownBy(() -> service.transfer(buildTransferDto(from, to, BigDecimal.valueOf(10.01))))
+      .isInstanceOf(InsufficientFundsException.class)
+      .hasMessageContaining(from.toString());
+    assertThat(fromWallet.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(10.00));
+    verify(repository, never()).saveAll(any());
+    verify(operationRepository, never()).saveAll(any());
+  }
+
+  @Test
+  void updateWallet_shouldRejectTransactionalUpdate_whenJournalModeEnabled() {
+    properties.getJournal().setEnabled(true);
+    UUID id = UUID.randomUUID();
+
+    assertThatThrownBy(() -> service.updateWallet(buildSaveWalletDto(id, BigDecimal.ONE, OperationType.DEPOSIT)))
+      .isInstanceOf(JournalModeException.class);
+    assertThatThrownBy(() -> service.transfer(buildTransferDto(id, UUID.randomUUID(), BigDecimal.ONE)))
+      .isInstanceOf(JournalModeException.class);
+    verifyNoInteractions(repository, operationRepository);
+  }
+
+  @Test
+  void transfer_shouldThrowEntityNotFoundWhenRecipientMissing() {
+    UUID from = UUID.randomUUID();
+    UUID to = UUID.randomUUID();
+
+    when(repository.findAllByIdForUpdate(any())).thenReturn(List.of(buildWallet(from, BigDecimal.TEN)));
+
+    assertThatThrownBy(() -> service.transfer(buildTransferDto(from, to, BigDecimal.ONE)))
+      .isInstanceOf(EntityNotFoundException.class)
+      .hasMessageContaining(to.toString());
+  }
+
+  @Test
+  void transfer_atomic_shouldApplyInSingleStatement() {
+    UUID from = UUID.randomUUID();
+    UUID to = UUID.randomUUID();
+    properties.setUpdateMode(UpdateMode.ATOMIC);
+
+    when(repository.transfer(from, to, 1500L)).thenReturn(List.of(8500L, 1500L));
+
+    List<Wallet> result = service.transfer(buildTransferDto(from, to, BigDecimal.valueOf(15.00)));
+
+    assertThat(result).extracting(Wallet::getWalletId).containsExactly(from, to);
+    assertThat(result.get(0).getAmount()).isEqualByComparingTo(BigDecimal.valueOf(85.00));
+    assertThat(result.get(1).getAmount()).isEqualByComparingTo(BigDecimal.valueOf(15.00));
+    verify(repository, never()).findAllByIdForUpdate(any());
+    verify(operationRepository, never()).saveAll(any());
+  }
+
+  @Test
+  void transfer_atomic_shouldFallBackToLockWhenStatementRejected() {
+    UUID from = UUID.randomUUID();
+    UUID to = UUID.randomUUID();
+    properties.setUpdateMode(UpdateMode.ATOMIC);
+
+    when(repository.transfer(from, to, 2000L)).thenReturn(List.of());
+    when(repository.findAllByIdForUpdate(any()))
+      .thenReturn(List.of(buildWallet(from, BigDecimal.valueOf(5.00)), buildWallet(to, BigDecimal.ZERO)));
+
+    assertThatThrownBy(() -> service.transfer(buildTransferDto(from, to, BigDecimal.valueOf(20.00))))
+      .isInstanceOf(InsufficientFundsException.class)
+      .hasMessageContaining(from.toString());
+  }
+
+  @Test
+  void transferBatch_shouldNetOpposingTransfersAndJournalOnlyChangedWallets() {
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+    UUID third = UUID.randomUUID();
+    Wallet firstWallet = buildWallet(first, BigDecimal.ZERO);
+    Wallet secondWallet = buildWallet(second, BigDecimal.valueOf(50.00));
+    Wallet thirdWallet = buildWallet(third, BigDecimal.ZERO);
+    List<TransferDto> transfers = List.of(
+      buildTransferDto(first, second, BigDecimal.valueOf(20.00)),
+      buildTransferDto(second, first, BigDecimal.valueOf(20.00)),
+      buildTransferDto(second, third, BigDecimal.valueOf(50.00)));
+
+    when(repository.findAllByIdForUpdate(any())).thenReturn(List.of(firstWallet, secondWallet, thirdWallet));
+
+    List<Wallet> result = service.transferBatch(transfers);
+
+    assertThat(result).containsExactly(firstWallet, secondWallet, thirdWallet);
+    assertThat(firstWallet.getAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+    assertThat(secondWallet.getAmount()).isEqualByComparingTo(BigDecimal.ZERO);
+    assertThat(thirdWallet.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(50.00));
+    verify(repository, times(1)).findAllByIdForUpdate(any());
+    verify(operationRepository).saveAll(journalCaptor.capture());
+    assertThat(journalCaptor.getValue())
+      .extracting(WalletOperation::getWalletId, WalletOperation::getOperationType)
+      .containsExactly(
+        tuple(second, OperationType.TRANSFER_OUT),
+        tuple(third, OperationType.TRANSFER_IN));
+  }
+
   @Test
   void getBalance_shouldReturnWallet_whenFound() {
     UUID id = UUID.randomUUID();
-    Wallet wallet = buildWallet(id, BigDecimal.valueOf(500.00));
 
-    when(repository.findById(id)).thenReturn(Optional.of(wallet));
+    when(repository.findBalanceById(id)).thenReturn(Optional.of(50000L));
 
     Wallet result = service.getBalance(id);
 
-    assertThat(result).isSameAs(wallet);
+    assertThat(result.getWalletId()).isEqualTo(id);
+    assertThat(result.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(500.00));
   }
 
   @Test
   void getBalance_shouldThrowEntityNotFound_whenNotFound() {
     UUID id = UUID.randomUUID();
 
-    when(repository.findById(id)).thenReturn(Optional.empty());
+    when(repository.findBalanceById(id)).thenReturn(Optional.empty());
 
     assertThatThrownBy(() -> service.getBalance(id))
       .isInstanceOf(EntityNotFoundException.class)
@@ -0,0 +1,154 @@
+package ru.itk.wallet_service.service.journal;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class JournalFileTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void append_shouldBeReadableOnlyAfterSync() {
+    UUID walletId = UUID.randomUUID();
+    try (JournalFile file = new JournalFile(directory, 16, 0)) {
+      long first = file.append(walletId, 500, 500);
+      long second = file.append(walletId, -200, 300);
+
+      assertThat(file.read(0, 10)).isEmpty();
+
+      file.awaitDurable(second);
+
+      assertThat(first).isEqualTo(1);
+      assertThat(file.read(0, 10))
+        .extracting(JournalRecord::getSequence, JournalRecord::getWalletId, JournalRecord::getDelta, JournalRecord::getBalance)
+        .containsExactly(
+          tuple(1L, walletId, 500L, 500L),
+          tuple(2L, walletId, -200L, 300L));
+      assertThat(file.read(1, 10)).extracting(JournalRecord::getSequence).containsExactly(2L);
+    }
+  }
+
+  @Test
+  void reopen_shouldRecoverRecordsAcrossSegmentsAndContinueNumbering() {
+    UUID walletId = UUID.randomUUID();
+    try (JournalFile file = new JournalFile(directory, 4, 0)) {
+      long last = 0;
+      for (int i = 1; i <= 6; i++) {
+        last = file.append(walletId, i, i);
+      }
+      file.awaitDurable(last);
+    }
+
+    try (JournalFile file = new JournalFile(directory, 4, 0)) {
+      assertThat(file.lastSequence()).isEqualTo(6);
+      assertThat(file.read(0, 100)).extracting(JournalRecord::getSequence).containsExactly(1L, 2L, 3L, 4L, 5L, 6L);
+      assertThat(file.append(walletId, 7, 7)).isEqualTo(7);
+    }
+  }
+
+  @Test
+  void reopen_shouldDropTornTailAndNotResurrectLaterRecords() throws IOException {
+    UUID walletId = UUID.randomUUID();
+    try (JournalFile file = new JournalFile(directory, 16, 0)) {
+      file.append(walletId, 1, 1);
+      file.append(walletId, 2, 3);
+      file.awaitDurable(file.append(walletId, 3, 6));
+    }
+    corruptRecord(segment(), 1);
+
+    try (JournalFile file = new JournalFile(directory, 16, 0)) {
+      assertThat(file.lastSequence()).isEqualTo(1);
+      file.awaitDurable(file.append(walletId, 10, 11));
+    }
+
+    try (JournalFile file = new JournalFile(directory, 16, 0)) {
+      assertThat(file.read(0, 100))
+        .extracting(JournalRecord::getSequence, JournalRecord::getDelta)
+        .containsExactly(
+          tuple(1L, 1L),
+          tuple(2L, 10L));
+    }
+  }
+
+  @Test
+  void deleteUpTo_shouldRemoveOnlyAppliedSegments() throws IOException {
+    UUID walletId = UUID.randomUUID();
+    try (JournalFile file = new JournalFile(directory, 2, 0)) {
+      long last = 0;
+      for (int i = 1; i <= 5; i++) {
+        last = file.append(walletId, i, i);
+      }
+      file.awaitDurable(last);
+
+      file.deleteUpTo(3);
+
+      assertThat(segments()).hasSize(2);
+      assertThat(file.read(2, 100)).extracting(JournalRecord::getSequence).containsExactly(3L, 4L, 5L);
+    }
+
+    try (JournalFile file = new JournalFile(directory, 2, 3)) {
+      assertThat(file.lastSequence()).isEqualTo(5);
+      assertThat(file.read(3, 100)).extracting(JournalRecord::getSequence).containsExactly(4L, 5L);
+    }
+  }
+
+  @Test
+  void emptyJournal_shouldContinueNumberingFromAppliedSequence() {
+    try (JournalFile file = new JournalFile(directory, 16, 41)) {
+      assertThat(file.append(UUID.randomUUID(), 1, 1)).isEqualTo(42);
+    }
+  }
+
+  @Test
+  void awaitDurable_shouldReturnForEveryConcurrentWriter() throws Exception {
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try (JournalFile file = new JournalFile(directory, 1024, 0)) {
+      List<Future<Long>> futures = IntStream.range(0, 400)
+        .mapToObj(i -> pool.submit(() -> {
+          long sequence = file.append(UUID.randomUUID(), 1, 1);
+          file.awaitDurable(sequence);
+          return sequence;
+        }))
+        .toList();
+      for (Future<Long> future : futures) {
+        assertThat(future.get()).isLessThanOrEqualTo(file.durableSequence());
+      }
+      assertThat(file.read(0, 1000)).hasSize(400);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  private Path segment() throws IOException {
+    return segments().get(0);
+  }
+
+  private List<Path> segments() throws IOException {
+    try (Stream<Path> list = Files.list(directory)) {
+      return list.sorted().toList();
+    }
+  }
+
+  private static void corruptRecord(Path segment, int index) throws IOException {
+    try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+      file.seek((long) index * JournalFile.RECORD_SIZE + 24);
+      file.writeLong(Long.MAX_VALUE);
+    }
+  }
+}
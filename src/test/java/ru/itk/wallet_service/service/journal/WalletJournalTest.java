@@ -0,0 +1,202 @@
+package ru.itk.wallet_service.service.journal;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.itk.wallet_service.AbstractApplicationTest;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.db.repository.JournalCheckpointRepository;
+import ru.itk.wallet_service.handler.exception.InsufficientFundsException;
+import ru.itk.wallet_service.service.WalletService;
+import ru.itk.wallet_service.service.metrics.WalletMetrics;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class WalletJournalTest extends AbstractApplicationTest {
+  private static final String JOURNAL_ID = "test";
+
+  @TempDir
+  Path directory;
+  @Mock
+  private JournalApplier applier;
+  @Mock
+  private JournalCheckpointRepository checkpointRepository;
+  @Mock
+  private WalletService service;
+  @Captor
+  private ArgumentCaptor<List<JournalRecord>> recordsCaptor;
+
+  private final WalletProperties properties = new WalletProperties();
+  private WalletJournal journal;
+
+  @BeforeEach
+  void setUp() {
+    properties.getJournal().setEnabled(true);
+    properties.getJournal().setDirectory(directory.toString());
+    properties.getJournal().setId(JOURNAL_ID);
+    properties.getJournal().setApplyInterval(Duration.ofHours(1));
+    journal = open();
+  }
+
+  @AfterEach
+  void tearDown() {
+    journal.close();
+  }
+
+  @Test
+  void update_shouldChangeBalanceInMemoryWithoutTouchingDatabase() {
+    UUID walletId = UUID.randomUUID();
+    when(service.getBalance(walletId)).thenReturn(buildWallet(walletId, BigDecimal.valueOf(100)));
+
+    Wallet deposited = journal.update(buildSaveWalletDto(walletId, BigDecimal.valueOf(25.50), OperationType.DEPOSIT));
+    Wallet withdrawn = journal.update(buildSaveWalletDto(walletId, BigDecimal.valueOf(5.50), OperationType.WITHDRAW));
+
+    assertThat(deposited.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(125.50));
+    assertThat(withdrawn.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(120));
+    assertThat(journal.getBalance(walletId).getAmount()).isEqualByComparingTo(BigDecimal.valueOf(120));
+    verify(service, times(1)).getBalance(walletId);
+    verify(service, never()).updateWallet(any());
+  }
+
+  @Test
+  void update_shouldThrowInsufficientFundsAndNotJournal() {
+    UUID walletId = UUID.randomUUID();
+    when(service.getBalance(walletId)).thenReturn(buildWallet(walletId, BigDecimal.TEN));
+
+    assertThatThrownBy(() -> journal.update(buildSaveWalletDto(walletId, BigDecimal.valueOf(10.01), OperationType.WITHDRAW)))
+      .isInstanceOf(InsufficientFundsException.class);
+
+    journal.applyPending();
+    assertThat(journal.getBalance(walletId).getAmount()).isEqualByComparingTo(BigDecimal.TEN);
+    verify(applier, never()).apply(anyString(), anyLong(), anyList());
+  }
+
+  @Test
+  void applyPending_shouldApplyRecordsOnceAndAdvanceCheckpoint() {
+    UUID walletId = UUID.randomUUID();
+    when(service.getBalance(walletId)).thenReturn(buildWallet(walletId, BigDecimal.ZERO));
+    journal.update(buildSaveWalletDto(walletId, BigDecimal.valueOf(3), OperationType.DEPOSIT));
+    journal.update(buildSaveWalletDto(walletId, BigDecimal.ONE, OperationType.WITHDRAW));
+
+    journal.applyPending();
+    journal.applyPending();
+
+    verify(applier).apply(eq(JOURNAL_ID), eq(0L), recordsCaptor.capture());
+    assertThat(recordsCaptor.getValue())
+      .extracting(JournalRecord::getSequence, JournalRecord::getDelta, JournalRecord::getBalance)
+      .containsExactly(tuple(1L, 300L, 300L), tuple(2L, -100L, 200L));
+  }
+
+  @Test
+  void applyPending_shouldRetryRecordsAfterDatabaseFailure() {
+    UUID walletId = UUID.randomUUID();
+    when(service.getBalance(walletId)).thenReturn(buildWallet(walletId, BigDecimal.ZERO));
+    journal.update(buildSaveWalletDto(walletId, BigDecimal.ONE, OperationType.DEPOSIT));
+    doThrow(new IllegalStateException("database is down"))
+      .doNothing()
+      .when(applier).apply(eq(JOURNAL_ID), eq(0L), anyList());
+
+    journal.applyPending();
+    journal.applyPending();
+
+    verify(applier, times(2)).apply(eq(JOURNAL_ID), eq(0L), anyList());
+  }
+
+  @Test
+  void getBalance_shouldReadFromDatabase_whenWalletHasNoJournalRecords() {
+    UUID walletId = UUID.randomUUID();
+    when(service.getBalance(walletId))
+      .thenReturn(buildWallet(walletId, BigDecimal.ONE))
+      .thenReturn(buildWallet(walletId, BigDecimal.TEN));
+
+    assertThat(journal.getBalance(walletId).getAmount()).isEqualByComparingTo(BigDecimal.ONE);
+    assertThat(journal.getBalance(walletId).getAmount()).isEqualByComparingTo(BigDecimal.TEN);
+    verify(service, times(2)).getBalance(walletId);
+  }
+
+  @Test
+  void applyPending_shouldEvictAppliedBalancesAndReloadThemOnNextUpdate() {
+    UUID walletId = UUID.randomUUID();
+    when(service.getBalance(walletId))
+      .thenReturn(buildWallet(walletId, BigDecimal.ZERO))
+      .thenReturn(buildWallet(walletId, BigDecimal.valueOf(3)));
+    journal.update(buildSaveWalletDto(walletId, BigDecimal.valueOf(3), OperationType.DEPOSIT));
+
+    journal.applyPending();
+    Wallet withdrawn = journal.update(buildSaveWalletDto(walletId, BigDecimal.ONE, OperationType.WITHDRAW));
+
+    assertThat(withdrawn.getAmount()).isEqualByComparingTo(BigDecimal.valueOf(2));
+    assertThat(journal.getBalance(walletId).getAmount()).isEqualByComparingTo(BigDecimal.valueOf(2));
+    verify(service, times(2)).getBalance(walletId);
+  }
+
+  @Test
+  void open_shouldRestoreUnappliedBalancesFromJournal() {
+    UUID walletId = UUID.randomUUID();
+    when(service.getBalance(walletId)).thenReturn(buildWallet(walletId, BigDecimal.ZERO));
+    journal.update(buildSaveWalletDto(walletId, BigDecimal.valueOf(42), OperationType.DEPOSIT));
+    doThrow(new IllegalStateException("database is down"))
+      .when(applier).apply(anyString(), anyLong(), anyList());
+    journal.close();
+
+    journal = open();
+
+    assertThat(journal.getBalance(walletId).getAmount()).isEqualByComparingTo(BigDecimal.valueOf(42));
+    verify(service, times(1)).getBalance(walletId);
+  }
+
+  @Test
+  void open_shouldDrainJournalWhenModeIsDisabled() {
+    UUID walletId = UUID.randomUUID();
+    when(service.getBalance(walletId)).thenReturn(buildWallet(walletId, BigDecimal.ZERO));
+    journal.update(buildSaveWalletDto(walletId, BigDecimal.ONE, OperationType.DEPOSIT));
+    doThrow(new IllegalStateException("database is down"))
+      .when(applier).apply(anyString(), anyLong(), anyList());
+    journal.close();
+    properties.getJournal().setEnabled(false);
+
+    assertThatThrownBy(this::open).isInstanceOf(IllegalStateException.class);
+
+    doNothing().when(applier).apply(anyString(), anyLong(), anyList());
+    journal = open();
+
+    assertThat(directory).isEmptyDirectory();
+    assertThatThrownBy(() -> journal.getBalance(walletId)).isInstanceOf(IllegalStateException.class);
+  }
+
+  private WalletJournal open() {
+    WalletJournal opened = new WalletJournal(applier, checkpointRepository, service,
+      new WalletMetrics(new SimpleMeterRegistry()), properties);
+    opened.afterSingletonsInstantiated();
+    return opened;
+  }
+}
@@ -0,0 +1,84 @@
+package ru.itk.wallet_service.service.limit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.handler.exception.ConcurrencyLimitExceededException;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConcurrencyLimiterTest {
+
+  @Test
+  void acquire_shouldRejectRequestsOverLimit() {
+    ConcurrencyLimiter limiter = enabledLimiter();
+    ConcurrencyLimiter.Permit first = limiter.acquire();
+    limiter.acquire();
+
+    assertThatThrownBy(limiter::acquire)
+      .isInstanceOfSatisfying(ConcurrencyLimitExceededException.class, e ->
+        assertThat(e.getRetryAfterSeconds()).isBetween(1L, 5L));
+
+    first.release();
+    limiter.acquire();
+    assertThat(limiter.stats().rejected()).isEqualTo(1);
+    assertThat(limiter.stats().inflight()).isEqualTo(2);
+  }
+
+  @Test
+  void acquire_shouldNotCountRequestsWhenDisabled() {
+    ConcurrencyLimiter limiter = new ConcurrencyLimiter(new WalletProperties(), new SimpleMeterRegistry());
+
+    for (int i = 0; i < 1000; i++) {
+      limiter.acquire();
+    }
+
+    assertThat(limiter.stats().inflight()).isZero();
+  }
+
+  @Test
+  void executeForWallet_shouldRejectOnlyTheBusyWallet() {
+    ConcurrencyLimiter limiter = enabledLimiter();
+    UUID busy = UUID.randomUUID();
+    UUID other = UUID.randomUUID();
+
+    String result = limiter.executeForWallet(busy, () -> {
+      assertThatThrownBy(() -> limiter.executeForWallet(busy, () -> "nested"))
+        .isInstanceOfSatisfying(ConcurrencyLimitExceededException.class, e ->
+          assertThat(e.getWalletId()).isEqualTo(busy));
+      return limiter.executeForWallet(other, () -> "other");
+    });
+
+    assertThat(result).isEqualTo("other");
+    assertThat(limiter.executeForWallet(busy, () -> "again")).isEqualTo("again");
+    assertThat(limiter.stats().walletRejected()).isEqualTo(1);
+    assertThat(limiter.stats().walletsInFlight()).isZero();
+  }
+
+  @Test
+  void executeForWallet_shouldReleaseWalletWhenActionFails() {
+    ConcurrencyLimiter limiter = enabledLimiter();
+    UUID walletId = UUID.randomUUID();
+
+    assertThatThrownBy(() -> limiter.executeForWallet(walletId, () -> {
+      throw new IllegalStateException("failed");
+    })).isInstanceOf(IllegalStateException.class);
+
+    assertThat(limiter.stats().walletsInFlight()).isZero();
+  }
+
+  private static ConcurrencyLimiter enabledLimiter() {
+    WalletProperties properties = new WalletProperties();
+    WalletProperties.Limit settings = properties.getLimit();
+    settings.setEnabled(true);
+    settings.setInitialLimit(2);
+    settings.setMinLimit(1);
+    settings.setMinWalletLimit(1);
+    settings.setMaxRetryAfter(Duration.ofSeconds(5));
+    return new ConcurrencyLimiter(properties, new SimpleMeterRegistry());
+  }
+}
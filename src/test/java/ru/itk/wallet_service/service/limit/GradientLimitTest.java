@@ -0,0 +1,74 @@
+package ru.itk.wallet_service.service.limit;
+
+import org.junit.jupiter.api.Test;
+import ru.itk.wallet_service.config.WalletProperties;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GradientLimitTest {
+  private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+  private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(20);
+
+  @Test
+  void onSample_shouldGrowLimitWhileLatencyIsSteady() {
+    GradientLimit limit = new GradientLimit(settings());
+
+    for (int i = 0; i < 50; i++) {
+      limit.onSample(FAST, limit.getLimit());
+    }
+
+    assertThat(limit.getLimit()).isGreaterThan(20);
+  }
+
+  @Test
+  void onSample_shouldNotGrowLimitWhenMostOfItIsIdle() {
+    GradientLimit limit = new GradientLimit(settings());
+
+    for (int i = 0; i < 50; i++) {
+      limit.onSample(FAST, 1);
+    }
+
+    assertThat(limit.getLimit()).isEqualTo(20);
+  }
+
+  @Test
+  void onSample_shouldShrinkLimitWhenLatencyGrows() {
+    GradientLimit limit = new GradientLimit(settings());
+    for (int i = 0; i < 50; i++) {
+      limit.onSample(FAST, limit.getLimit());
+    }
+    int grown = limit.getLimit();
+
+    for (int i = 0; i < 50; i++) {
+      limit.onSample(SLOW, limit.getLimit());
+    }
+
+    assertThat(limit.getLimit()).isLessThan(grown).isGreaterThanOrEqualTo(4);
+  }
+
+  @Test
+  void onSample_shouldKeepLimitWithinBounds() {
+    WalletProperties.Limit settings = settings();
+    settings.setMinLimit(10);
+    settings.setMaxLimit(30);
+    GradientLimit limit = new GradientLimit(settings);
+
+    for (int i = 0; i < 500; i++) {
+      limit.onSample(FAST, limit.getLimit());
+    }
+    assertThat(limit.getLimit()).isEqualTo(30);
+
+    for (int i = 0; i < 500; i++) {
+      limit.onSample(SLOW * (i + 1), limit.getLimit());
+    }
+    assertThat(limit.getLimit()).isEqualTo(10);
+  }
+
+  private static WalletProperties.Limit settings() {
+    WalletProperties.Limit settings = new WalletProperties.Limit();
+    settings.setEnabled(true);
+    return settings;
+  }
+}
@@ -0,0 +1,63 @@
+package ru.itk.wallet_service.service.lock;
+
+import org.junit.jupiter.api.Test;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.handler.exception.WalletLockTimeoutException;
+
+import java.time.Duration;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WalletStripedLockTest {
+
+  @Test
+  void executeLocked_shouldReturnActionResult() {
+    WalletStripedLock lock = new WalletStripedLock(properties(Duration.ofSeconds(1)));
+
+    assertThat(lock.executeLocked(UUID.randomUUID(), () -> "done")).isEqualTo("done");
+  }
+
+  @Test
+  void executeLocked_shouldThrowWhenWalletIsHeldLongerThanTimeout() throws Exception {
+    WalletStripedLock lock = new WalletStripedLock(properties(Duration.ofMillis(50)));
+    UUID walletId = UUID.randomUUID();
+    CountDownLatch acquired = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+
+    CompletableFuture<Void> holder = CompletableFuture.runAsync(() -> lock.executeLocked(walletId, () -> {
+      acquired.countDown();
+      await(release);
+      return null;
+    }));
+    assertThat(acquired.await(1, TimeUnit.SECONDS)).isTrue();
+
+    assertThatThrownBy(() -> lock.executeLocked(walletId, () -> "late"))
+      .isInstanceOf(WalletLockTimeoutException.class)
+      .hasMessageContaining(walletId.toString());
+
+    release.countDown();
+    holder.get(1, TimeUnit.SECONDS);
+    assertThat(lock.executeLocked(walletId, () -> "free")).isEqualTo("free");
+  }
+
+  private WalletProperties properties(Duration waitTimeout) {
+    WalletProperties properties = new WalletProperties();
+    properties.getLock().setEnabled(true);
+    properties.getLock().setStripes(16);
+    properties.getLock().setWaitTimeout(waitTimeout);
+    return properties;
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package ru.itk.wallet_service.service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.itk.wallet_service.handler.exception.InsufficientFundsException;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WalletMetricsTest {
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final WalletMetrics metrics = new WalletMetrics(registry);
+
+  @Test
+  void recordOperation_shouldTagOutcome() {
+    metrics.recordOperation("deposit", () -> "ok");
+    assertThatThrownBy(() -> metrics.recordOperation("withdraw", () -> {
+      throw new InsufficientFundsException(UUID.randomUUID(), BigDecimal.TEN);
+    })).isInstanceOf(InsufficientFundsException.class);
+
+    assertThat(registry.get(WalletMetrics.OPERATION).tags("operation", "deposit", "outcome", "success").timer().count())
+      .isEqualTo(1);
+    assertThat(registry.get(WalletMetrics.OPERATION)
+      .tags("operation", "withdraw", "outcome", "InsufficientFundsException").timer().count())
+      .isEqualTo(1);
+  }
+
+  @Test
+  void recordCommit_shouldMeasureFromBeforeCommitToAfterCommit() {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      metrics.recordCommit("deposit");
+      for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+        synchronization.beforeCommit(false);
+        synchronization.afterCommit();
+      }
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertThat(registry.get(WalletMetrics.COMMIT).tag("operation", "deposit").timer().count()).isEqualTo(1);
+  }
+
+  @Test
+  void countError_shouldIncrementCounterByType() {
+    metrics.countError("not_found");
+    metrics.countError("not_found");
+
+    assertThat(registry.get(WalletMetrics.ERRORS).tag("type", "not_found").counter().count()).isEqualTo(2);
+  }
+}
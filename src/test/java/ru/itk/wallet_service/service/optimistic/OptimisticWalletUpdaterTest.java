@@ -0,0 +1,96 @@
+package ru.itk.wallet_service.service.optimistic;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import ru.itk.wallet_service.config.WalletProperties;
+import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.enums.UpdateMode;
+import ru.itk.wallet_service.handler.exception.WalletUpdateConflictException;
+import ru.itk.wallet_service.service.WalletService;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+
+import java.time.Duration;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class OptimisticWalletUpdaterTest {
+  private final WalletService service = mock(WalletService.class);
+
+  @Test
+  void update_shouldRetryVersionConflicts() {
+    OptimisticWalletUpdater updater = new OptimisticWalletUpdater(service, properties(UpdateMode.OPTIMISTIC, 5));
+    SaveWalletDto dto = dto();
+    Wallet wallet = new Wallet();
+
+    when(service.updateWalletOptimistically(dto))
+      .thenThrow(conflict())
+      .thenThrow(conflict())
+      .thenReturn(wallet);
+
+    assertThat(updater.update(dto)).isSameAs(wallet);
+    verify(service, times(3)).updateWalletOptimistically(dto);
+  }
+
+  @Test
+  void update_shouldFailWithConflictAfterMaxAttempts() {
+    OptimisticWalletUpdater updater = new OptimisticWalletUpdater(service, properties(UpdateMode.OPTIMISTIC, 3));
+    SaveWalletDto dto = dto();
+
+    when(service.updateWalletOptimistically(dto)).thenThrow(conflict());
+
+    assertThatThrownBy(() -> updater.update(dto))
+      .isInstanceOf(WalletUpdateConflictException.class)
+      .hasMessageContaining(dto.getWalletId().toString());
+    verify(service, times(3)).updateWalletOptimistically(dto);
+    verify(service, never()).updateWallet(any());
+  }
+
+  @Test
+  void update_adaptive_shouldSwitchToPessimisticWhenWalletBecomesContended() {
+    WalletProperties properties = properties(UpdateMode.ADAPTIVE, 10);
+    properties.getOptimistic().setContentionThreshold(2);
+    OptimisticWalletUpdater updater = new OptimisticWalletUpdater(service, properties);
+    SaveWalletDto dto = dto();
+    Wallet wallet = new Wallet();
+
+    when(service.updateWalletOptimistically(dto)).thenThrow(conflict());
+    when(service.updateWallet(dto)).thenReturn(wallet);
+
+    assertThat(updater.appliesTo(dto.getWalletId())).isTrue();
+    assertThat(updater.update(dto)).isSameAs(wallet);
+    verify(service, times(2)).updateWalletOptimistically(dto);
+    assertThat(updater.appliesTo(dto.getWalletId())).isFalse();
+    assertThat(updater.appliesTo(UUID.randomUUID())).isTrue();
+  }
+
+  @Test
+  void appliesTo_shouldBeFalseForLockingModes() {
+    UUID walletId = UUID.randomUUID();
+
+    assertThat(new OptimisticWalletUpdater(service, properties(UpdateMode.PESSIMISTIC, 5)).appliesTo(walletId)).isFalse();
+    assertThat(new OptimisticWalletUpdater(service, properties(UpdateMode.ATOMIC, 5)).appliesTo(walletId)).isFalse();
+    assertThat(new OptimisticWalletUpdater(service, properties(UpdateMode.OPTIMISTIC, 5)).appliesTo(walletId)).isTrue();
+  }
+
+  private static WalletProperties properties(UpdateMode mode, int maxAttempts) {
+    WalletProperties properties = new WalletProperties();
+    properties.setUpdateMode(mode);
+    properties.getOptimistic().setMaxAttempts(maxAttempts);
+    properties.getOptimistic().setInitialBackoff(Duration.ofMillis(1));
+    properties.getOptimistic().setMaxBackoff(Duration.ofMillis(2));
+    return properties;
+  }
+
+  private static SaveWalletDto dto() {
+    SaveWalletDto dto = new SaveWalletDto();
+    dto.setWalletId(UUID.randomUUID());
+    return dto;
+  }
+
+  private static OptimisticLockingFailureException conflict() {
+    return new OptimisticLockingFailureException("version conflict");
+  }
+}
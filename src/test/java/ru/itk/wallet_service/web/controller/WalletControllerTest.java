@@ -7,30 +7,67 @@ import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.transaction.CannotCreateTransactionException;
 import ru.itk.wallet_service.AbstractApplicationTest;
 import ru.itk.wallet_service.PathUtils;
 import ru.itk.wallet_service.db.entity.Wallet;
+import ru.itk.wallet_service.db.repository.WalletBulkRepository;
 import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.db.model.WalletOperation;
+import ru.itk.wallet_service.enums.BatchMode;
 import ru.itk.wallet_service.enums.EntityType;
+import ru.itk.wallet_service.handler.exception.ConcurrencyLimitExceededException;
 import ru.itk.wallet_service.handler.exception.EntityNotFoundException;
+import ru.itk.wallet_service.handler.exception.IdempotencyKeyMismatchException;
 import ru.itk.wallet_service.handler.exception.InsufficientFundsException;
 import ru.itk.wallet_service.handler.exception.InvalidOperationTypeException;
+import ru.itk.wallet_service.handler.exception.WalletLockTimeoutException;
+import ru.itk.wallet_service.handler.exception.WalletUpdateConflictException;
 import ru.itk.wallet_service.mapper.WalletMapper;
 import ru.itk.wallet_service.service.WalletService;
+import ru.itk.wallet_service.service.export.WalletExporter;
+import ru.itk.wallet_service.service.history.OperationHistoryService;
+import ru.itk.wallet_service.service.idempotency.IdempotencyKeyStore;
+import ru.itk.wallet_service.service.model.OperationPage;
+import ru.itk.wallet_service.service.model.OperationResult;
+import ru.itk.wallet_service.web.dto.BatchOperationRequestDto;
+import ru.itk.wallet_service.web.dto.BulkCreateWalletDto;
+import ru.itk.wallet_service.web.dto.OperationHistoryQueryDto;
 import ru.itk.wallet_service.web.dto.SaveWalletDto;
+import ru.itk.wallet_service.web.dto.TransferBatchRequestDto;
+import ru.itk.wallet_service.web.dto.TransferDto;
 import ru.itk.wallet_service.web.dto.WalletDto;
 
+import java.io.ByteArrayInputStream;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.List;
 import java.util.Locale;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.ObjLongConsumer;
+import java.util.zip.GZIPInputStream;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @SpringBootTest
@@ -41,6 +78,14 @@ class WalletControllerTest extends AbstractApplicationTest {
   private WalletService walletService;
   @MockitoBean
   private WalletMapper walletMapper;
+  @MockitoBean
+  private IdempotencyKeyStore idempotencyKeyStore;
+  @MockitoBean
+  private WalletBulkRepository bulkRepository;
+  @MockitoBean
+  private OperationHistoryService historyService;
+  @MockitoBean
+  private WalletExporter exporter;
   @Autowired
   private ObjectMapper objectMapper;
 
@@ -55,7 +100,51 @@ class WalletControllerTest extends AbstractApplicationTest {
     mockMvc.perform(post(getPath(PathUtils.CREATE)))
       .andExpect(status().isCreated())
       .andExpect(jsonPath("$.walletId").value(wallet.getWalletId().toString()))
-      .andExpect(jsonPath("$.amount").value(wallet.getAmount()));
+      .andExpect(jsonPath("$.amount").value(wallet.getAmount().doubleValue()));
+  }
+
+  @Test
+  void createWallet_shouldReturnServiceUnavailable_ifPoolHasNoFreeConnection() throws Exception {
+    Mockito.when(walletService.createWallet())
+      .thenThrow(new CannotCreateTransactionException("Could not open JPA EntityManager for transaction"));
+
+    mockMvc.perform(post(getPath(PathUtils.CREATE)))
+      .andExpect(status().isServiceUnavailable());
+  }
+
+  @Test
+  void createWallets_shouldStreamCreatedWalletIds() throws Exception {
+    UUID existing = UUID.randomUUID();
+    UUID created = UUID.randomUUID();
+    BulkCreateWalletDto dto = new BulkCreateWalletDto();
+    dto.setWalletIds(List.of(existing, created));
+    Mockito.when(bulkRepository.insertAll(anyList())).thenReturn(List.of(created));
+
+    MvcResult result = mockMvc.perform(post(getPath(PathUtils.BULK_CREATE))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(dto)))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+      .andExpect(status().isOk())
+      .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+      .andExpect(content().string("{\"walletId\":\"%s\"}\n".formatted(created)));
+  }
+
+  @Test
+  void createWallets_shouldReturnBadRequest_ifCountAndIdsBothSet() throws Exception {
+    BulkCreateWalletDto dto = new BulkCreateWalletDto();
+    dto.setCount(10);
+    dto.setWalletIds(List.of(UUID.randomUUID()));
+    String validationMessage = messageSource.getMessage("wallet.valid.bulkSource", null, Locale.getDefault());
+
+    mockMvc.perform(post(getPath(PathUtils.BULK_CREATE))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(dto)))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.message").value(Matchers.containsString(validationMessage)));
+    Mockito.verifyNoInteractions(bulkRepository);
   }
 
   @Test
@@ -73,7 +162,90 @@ class WalletControllerTest extends AbstractApplicationTest {
         .content(objectMapper.writeValueAsString(saveDto)))
       .andExpect(status().isOk())
       .andExpect(jsonPath("$.walletId").value(updatedWallet.getWalletId().toString()))
-      .andExpect(jsonPath("$.amount").value(updatedWallet.getAmount()));
+      .andExpect(jsonPath("$.amount").value(updatedWallet.getAmount().doubleValue()));
+  }
+
+  @Test
+  void updateWallet_shouldReturnStoredResult_ifIdempotencyKeyReplayed() throws Exception {
+    SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(100.0), OperationType.DEPOSIT);
+    Wallet storedWallet = buildWallet(saveDto.getWalletId(), BigDecimal.valueOf(150.0));
+    WalletDto walletDto = buildWalletDto(storedWallet.getWalletId(), storedWallet.getAmount());
+
+    Mockito.when(idempotencyKeyStore.find(saveDto, "retry-1")).thenReturn(Optional.of(storedWallet));
+    Mockito.when(walletMapper.toDto(storedWallet)).thenReturn(walletDto);
+
+    mockMvc.perform(post(getPath(PathUtils.UPDATE))
+        .header(WalletController.IDEMPOTENCY_KEY_HEADER, "retry-1")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(saveDto)))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.amount").value(storedWallet.getAmount().doubleValue()));
+
+    Mockito.verify(walletService, Mockito.never()).updateWalletOnce(any(), any());
+    Mockito.verify(walletService, Mockito.never()).updateWallet(any());
+  }
+
+  @Test
+  void updateWallet_shouldApplyOnceAndRemember_ifIdempotencyKeyIsNew() throws Exception {
+    SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(100.0), OperationType.DEPOSIT);
+    Wallet updatedWallet = buildWallet(saveDto.getWalletId(), BigDecimal.valueOf(100.0));
+
+    Mockito.when(idempotencyKeyStore.find(saveDto, "retry-2")).thenReturn(Optional.empty());
+    Mockito.when(walletService.updateWalletOnce(any(SaveWalletDto.class), eq("retry-2")))
+      .thenReturn(Optional.of(updatedWallet));
+    Mockito.when(walletMapper.toDto(updatedWallet))
+      .thenReturn(buildWalletDto(updatedWallet.getWalletId(), updatedWallet.getAmount()));
+
+    mockMvc.perform(post(getPath(PathUtils.UPDATE))
+        .header(WalletController.IDEMPOTENCY_KEY_HEADER, "retry-2")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(saveDto)))
+      .andExpect(status().isOk());
+
+    Mockito.verify(idempotencyKeyStore).remember(saveDto, "retry-2", updatedWallet.getAmountMinor());
+  }
+
+  @Test
+  void updateWallet_shouldReturnUnprocessableEntity_ifIdempotencyKeyReusedForOtherOperation() throws Exception {
+    SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(100.0), OperationType.WITHDRAW);
+
+    Mockito.when(idempotencyKeyStore.find(saveDto, "retry-3"))
+      .thenThrow(new IdempotencyKeyMismatchException(saveDto.getWalletId(), "retry-3"));
+
+    mockMvc.perform(post(getPath(PathUtils.UPDATE))
+        .header(WalletController.IDEMPOTENCY_KEY_HEADER, "retry-3")
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(saveDto)))
+      .andExpect(status().isUnprocessableEntity())
+      .andExpect(jsonPath("$.message").value(Matchers.containsString("retry-3")));
+
+    Mockito.verify(walletService, Mockito.never()).updateWalletOnce(any(), any());
+    Mockito.verify(walletService, Mockito.never()).updateWallet(any());
+  }
+
+  @Test
+  void updateWallet_shouldReturnBadRequest_ifIdempotencyKeyTooLong() throws Exception {
+    SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(100.0), OperationType.DEPOSIT);
+
+    mockMvc.perform(post(getPath(PathUtils.UPDATE))
+        .header(WalletController.IDEMPOTENCY_KEY_HEADER, "k".repeat(IdempotencyKeyStore.MAX_KEY_LENGTH + 1))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(saveDto)))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.status").value(400));
+  }
+
+  @Test
+  void updateWallet_shouldReturnBadRequest_ifOperationTypeIsTransfer() throws Exception {
+    SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.TEN, OperationType.TRANSFER_IN);
+    String validationMessage = messageSource.getMessage("wallet.valid.operationType", null, Locale.getDefault());
+
+    mockMvc.perform(post(getPath(PathUtils.UPDATE))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(saveDto)))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.message").value(Matchers.containsString(validationMessage)));
+    Mockito.verifyNoInteractions(walletService);
   }
 
   @Test
@@ -95,6 +267,24 @@ class WalletControllerTest extends AbstractApplicationTest {
     performUpdateAndExpect(saveDto, 409, massage);
   }
 
+  @Test
+  void updateWallet_shouldReturnConflict_ifWalletLockTimedOut() throws Exception {
+    SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(10.0), OperationType.DEPOSIT);
+    Mockito.when(walletService.updateWallet(any(SaveWalletDto.class)))
+      .thenThrow(new WalletLockTimeoutException(saveDto.getWalletId()));
+
+    performUpdateAndExpect(saveDto, 409, "Ресурс занят");
+  }
+
+  @Test
+  void updateWallet_shouldReturnConflict_ifOptimisticRetriesExhausted() throws Exception {
+    SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(10.0), OperationType.DEPOSIT);
+    Mockito.when(walletService.updateWallet(any(SaveWalletDto.class)))
+      .thenThrow(new WalletUpdateConflictException(saveDto.getWalletId(), 5));
+
+    performUpdateAndExpect(saveDto, 409, "изменяется конкурентно");
+  }
+
   @Test
   void updateWallet_shouldReturnBadRequest_ifInvalidOperationType() throws Exception {
     SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(100.0), null);
@@ -128,6 +318,67 @@ class WalletControllerTest extends AbstractApplicationTest {
       .andExpect(jsonPath("$.status").value(400));
   }
 
+  @Test
+  void transfer_shouldReturnSenderThenRecipient() throws Exception {
+    TransferDto transferDto = buildTransferDto(UUID.randomUUID(), UUID.randomUUID(), BigDecimal.valueOf(25.0));
+    Wallet from = buildWallet(transferDto.getFromWalletId(), BigDecimal.valueOf(75.0));
+    Wallet to = buildWallet(transferDto.getToWalletId(), BigDecimal.valueOf(25.0));
+    List<WalletDto> walletDtos = List.of(buildWalletDto(from.getWalletId(), from.getAmount()),
+      buildWalletDto(to.getWalletId(), to.getAmount()));
+
+    Mockito.when(walletService.transfer(any(TransferDto.class))).thenReturn(List.of(from, to));
+    Mockito.when(walletMapper.toDto(List.of(from, to))).thenReturn(walletDtos);
+
+    mockMvc.perform(post(getPath(PathUtils.TRANSFER))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(transferDto)))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].walletId").value(from.getWalletId().toString()))
+      .andExpect(jsonPath("$[0].amount").value(from.getAmount().doubleValue()))
+      .andExpect(jsonPath("$[1].walletId").value(to.getWalletId().toString()))
+      .andExpect(jsonPath("$[1].amount").value(to.getAmount().doubleValue()));
+  }
+
+  @Test
+  void transfer_shouldReturnBadRequest_ifSameWallet() throws Exception {
+    UUID walletId = UUID.randomUUID();
+    TransferDto transferDto = buildTransferDto(walletId, walletId, BigDecimal.TEN);
+    String validationMessage = messageSource.getMessage("wallet.valid.transferSameWallet", null, Locale.getDefault());
+
+    mockMvc.perform(post(getPath(PathUtils.TRANSFER))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(transferDto)))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.message").value(Matchers.containsString(validationMessage)));
+    Mockito.verifyNoInteractions(walletService);
+  }
+
+  @Test
+  void transfer_shouldReturnConflict_ifInsufficientFunds() throws Exception {
+    TransferDto transferDto = buildTransferDto(UUID.randomUUID(), UUID.randomUUID(), BigDecimal.valueOf(500.0));
+    Mockito.when(walletService.transfer(any(TransferDto.class)))
+      .thenThrow(new InsufficientFundsException(transferDto.getFromWalletId(), transferDto.getAmount()));
+
+    mockMvc.perform(post(getPath(PathUtils.TRANSFER))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(transferDto)))
+      .andExpect(status().isConflict())
+      .andExpect(jsonPath("$.status").value(409));
+  }
+
+  @Test
+  void transferBatch_shouldReturnBadRequest_ifEmpty() throws Exception {
+    TransferBatchRequestDto batchDto = new TransferBatchRequestDto();
+    batchDto.setTransfers(List.of());
+
+    mockMvc.perform(post(getPath(PathUtils.TRANSFER_BATCH))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(batchDto)))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.status").value(400));
+    Mockito.verifyNoInteractions(walletService);
+  }
+
   @Test
   void updateWallet_shouldReturnBadRequest_ifAmountNegative() throws Exception {
     SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(-10.0), OperationType.DEPOSIT);
@@ -140,6 +391,19 @@ class WalletControllerTest extends AbstractApplicationTest {
       .andExpect(jsonPath("$.status").value(400));
   }
 
+  @Test
+  void updateWallet_shouldReturnBadRequest_ifAmountHasMoreThanTwoFractionDigits() throws Exception {
+    SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), new BigDecimal("10.001"), OperationType.DEPOSIT);
+    String validationMessage = messageSource.getMessage("wallet.valid.amountDigits", null, Locale.getDefault());
+    mockMvc.perform(post(getPath(PathUtils.UPDATE))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(saveDto)))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.message").value(Matchers.containsString("amount=[%s]".formatted(validationMessage))))
+      .andExpect(jsonPath("$.status").value(400));
+    Mockito.verify(walletService, Mockito.never()).updateWallet(any());
+  }
+
   @Test
   void updateWallet_shouldReturnInternalServerError_ifUnexpectedException() throws Exception {
     SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(100.0), OperationType.DEPOSIT);
@@ -183,6 +447,105 @@ class WalletControllerTest extends AbstractApplicationTest {
       .andExpect(jsonPath("$.status").value(400));
   }
 
+  @Test
+  void updateWalletAsync_shouldReturnUpdatedWallet() throws Exception {
+    SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(100.0), OperationType.DEPOSIT);
+    Wallet updatedWallet = buildWallet(saveDto.getWalletId(), saveDto.getAmount());
+
+    Mockito.when(walletService.updateWallet(any(SaveWalletDto.class))).thenReturn(updatedWallet);
+    Mockito.when(walletMapper.toDto(updatedWallet))
+      .thenReturn(buildWalletDto(updatedWallet.getWalletId(), updatedWallet.getAmount()));
+
+    MvcResult result = mockMvc.perform(post(getPath(PathUtils.ASYNC))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(saveDto)))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.walletId").value(updatedWallet.getWalletId().toString()));
+  }
+
+  @Test
+  void updateWalletAsync_shouldMapErrorsLikeSynchronousEndpoint() throws Exception {
+    SaveWalletDto saveDto = buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(50.0), OperationType.DEPOSIT);
+    Mockito.when(walletService.updateWallet(any(SaveWalletDto.class)))
+      .thenThrow(new EntityNotFoundException(EntityType.WALLET, saveDto.getWalletId()));
+
+    MvcResult result = mockMvc.perform(post(getPath(PathUtils.ASYNC))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(saveDto)))
+      .andExpect(request().asyncStarted())
+      .andReturn();
+
+    mockMvc.perform(asyncDispatch(result))
+      .andExpect(status().isNotFound())
+      .andExpect(jsonPath("$.message").value(Matchers.containsString(saveDto.getWalletId().toString())));
+  }
+
+  @Test
+  void updateWallets_shouldReturnResultPerOperation() throws Exception {
+    UUID walletId = UUID.randomUUID();
+    SaveWalletDto deposit = buildSaveWalletDto(walletId, BigDecimal.valueOf(10.0), OperationType.DEPOSIT);
+    SaveWalletDto withdraw = buildSaveWalletDto(walletId, BigDecimal.valueOf(100.0), OperationType.WITHDRAW);
+    BatchOperationRequestDto request = new BatchOperationRequestDto();
+    request.setMode(BatchMode.BEST_EFFORT);
+    request.setOperations(List.of(deposit, withdraw));
+
+    Mockito.when(walletService.updateWallets(any(), Mockito.eq(false))).thenReturn(List.of(
+      OperationResult.success(buildWallet(walletId, BigDecimal.valueOf(10.0))),
+      OperationResult.failure(new InsufficientFundsException(walletId, withdraw.getAmount()))));
+
+    mockMvc.perform(post(getPath(PathUtils.BATCH))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(request)))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].index").value(0))
+      .andExpect(jsonPath("$[0].status").value("APPLIED"))
+      .andExpect(jsonPath("$[0].amount").value(10.0))
+      .andExpect(jsonPath("$[1].status").value("REJECTED"))
+      .andExpect(jsonPath("$[1].message").value(Matchers.containsString("Недостаточно средств")));
+  }
+
+  @Test
+  void updateWallets_shouldHideInternalErrorMessages_whenChunkFails() throws Exception {
+    BatchOperationRequestDto request = new BatchOperationRequestDto();
+    request.setMode(BatchMode.BEST_EFFORT);
+    request.setOperations(List.of(buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(10.0), OperationType.DEPOSIT)));
+
+    Mockito.when(walletService.updateWallets(any(), Mockito.eq(false)))
+      .thenThrow(new CannotAcquireLockException("ERROR: could not obtain lock on row in relation \"wallet\""))
+      .thenThrow(new IllegalStateException("SQL [UPDATE wallet SET amount = ?] failed"));
+
+    mockMvc.perform(post(getPath(PathUtils.BATCH))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(request)))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].status").value("BUSY"))
+      .andExpect(jsonPath("$[0].message").value("Ресурс занят. Повторите запрос позже"));
+
+    mockMvc.perform(post(getPath(PathUtils.BATCH))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(request)))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$[0].status").value("FAILED"))
+      .andExpect(jsonPath("$[0].message").value("Внутренняя ошибка сервиса"));
+  }
+
+  @Test
+  void updateWallets_shouldReturnBadRequest_ifOperationInvalid() throws Exception {
+    BatchOperationRequestDto request = new BatchOperationRequestDto();
+    request.setMode(BatchMode.ALL_OR_NOTHING);
+    request.setOperations(List.of(buildSaveWalletDto(UUID.randomUUID(), BigDecimal.valueOf(-1.0), OperationType.DEPOSIT)));
+
+    mockMvc.perform(post(getPath(PathUtils.BATCH))
+        .contentType(MediaType.APPLICATION_JSON)
+        .content(objectMapper.writeValueAsString(request)))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.status").value(400));
+  }
+
   @Test
   void getBalance_shouldReturnWalletBalance() throws Exception {
     UUID walletId = UUID.randomUUID();
@@ -195,7 +558,7 @@ class WalletControllerTest extends AbstractApplicationTest {
     mockMvc.perform(get(getPath(PathUtils.GET_BALANCE), walletId))
       .andExpect(status().isOk())
       .andExpect(jsonPath("$.walletId").value(walletId.toString()))
-      .andExpect(jsonPath("$.amount").value(wallet.getAmount()));
+      .andExpect(jsonPath("$.amount").value(wallet.getAmount().doubleValue()));
   }
 
   @Test
@@ -210,6 +573,133 @@ class WalletControllerTest extends AbstractApplicationTest {
       .andExpect(jsonPath("$.message").exists());
   }
 
+  @Test
+  void getBalance_shouldReturnTooManyRequestsWithRetryAfter_ifWalletLimitExceeded() throws Exception {
+    UUID walletId = UUID.randomUUID();
+    Mockito.when(walletService.getBalance(walletId))
+      .thenThrow(new ConcurrencyLimitExceededException(walletId, 3));
+
+    mockMvc.perform(get(getPath(PathUtils.GET_BALANCE), walletId))
+      .andExpect(status().isTooManyRequests())
+      .andExpect(header().string(HttpHeaders.RETRY_AFTER, "3"))
+      .andExpect(jsonPath("$.status").value(429));
+  }
+
+  @Test
+  void exportWallets_shouldStreamBalancesAsNdjson() throws Exception {
+    UUID first = UUID.randomUUID();
+    UUID second = UUID.randomUUID();
+    stubExport(first, 12345L, second, 0L);
+
+    mockMvc.perform(get(getPath(PathUtils.EXPORT)))
+      .andExpect(status().isOk())
+      .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+      .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+      .andExpect(content().string("{\"walletId\":\"%s\",\"amount\":123.45}\n{\"walletId\":\"%s\",\"amount\":0.00}\n"
+        .formatted(first, second)));
+  }
+
+  @Test
+  void exportWallets_shouldCompressStream_ifClientAcceptsGzip() throws Exception {
+    UUID walletId = UUID.randomUUID();
+    stubExport(walletId, 500L);
+
+    byte[] body = mockMvc.perform(get(getPath(PathUtils.EXPORT)).header(HttpHeaders.ACCEPT_ENCODING, "br, gzip"))
+      .andExpect(status().isOk())
+      .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+      .andReturn().getResponse().getContentAsByteArray();
+
+    try (GZIPInputStream input = new GZIPInputStream(new ByteArrayInputStream(body))) {
+      assertThat(new String(input.readAllBytes(), StandardCharsets.UTF_8))
+        .isEqualTo("{\"walletId\":\"%s\",\"amount\":5.00}\n".formatted(walletId));
+    }
+  }
+
+  @Test
+  void getOperations_shouldReturnPageWithNextCursor() throws Exception {
+    UUID walletId = UUID.randomUUID();
+    WalletOperation operation = WalletOperation.of(walletId, OperationType.WITHDRAW, 1250, 8750);
+    operation.setSequenceNumber(42L);
+    operation.setCreatedAt(OffsetDateTime.parse("2026-03-01T10:15:30Z"));
+    Mockito.when(historyService.getHistory(eq(walletId), any(OperationHistoryQueryDto.class)))
+      .thenReturn(new OperationPage(List.of(operation), 42L));
+
+    mockMvc.perform(get(getPath(PathUtils.OPERATIONS), walletId)
+        .param("limit", "1")
+        .param("type", "WITHDRAW")
+        .param("from", "2026-03-01T00:00:00Z"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.operations[0].sequenceNumber").value(42))
+      .andExpect(jsonPath("$.operations[0].operationType").value("WITHDRAW"))
+      .andExpect(jsonPath("$.operations[0].amount").value(12.5))
+      .andExpect(jsonPath("$.operations[0].balance").value(87.5))
+      .andExpect(jsonPath("$.nextCursor").value(42));
+    Mockito.verify(historyService).getHistory(eq(walletId), Mockito.argThat(query -> query.getLimit() == 1
+      && query.getType() == OperationType.WITHDRAW && query.getFrom().toInstant().getEpochSecond() == 1772323200L));
+  }
+
+  @Test
+  void getOperations_shouldReturnBadRequest_ifLimitTooLarge() throws Exception {
+    String validationMessage = messageSource.getMessage("wallet.valid.historyLimit", null, Locale.getDefault());
+
+    mockMvc.perform(get(getPath(PathUtils.OPERATIONS), UUID.randomUUID())
+        .param("limit", String.valueOf(OperationHistoryQueryDto.MAX_LIMIT + 1)))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.message").value(Matchers.containsString(validationMessage)));
+    Mockito.verifyNoInteractions(historyService);
+  }
+
+  @Test
+  void getOperations_shouldReturnBadRequest_ifRangeReversed() throws Exception {
+    String validationMessage = messageSource.getMessage("wallet.valid.historyRange", null, Locale.getDefault());
+
+    mockMvc.perform(get(getPath(PathUtils.OPERATIONS), UUID.randomUUID())
+        .param("from", "2026-03-02T00:00:00Z")
+        .param("to", "2026-03-01T00:00:00Z"))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.message").value(Matchers.containsString(validationMessage)));
+    Mockito.verifyNoInteractions(historyService);
+  }
+
+  @Test
+  void shardWallet_shouldReturnWallet() throws Exception {
+    UUID walletId = UUID.randomUUID();
+    Wallet wallet = buildWallet(walletId, BigDecimal.valueOf(50.0));
+    WalletDto walletDto = buildWalletDto(walletId, wallet.getAmount());
+
+    Mockito.when(walletService.shardWallet(walletId, 8)).thenReturn(wallet);
+    Mockito.when(walletMapper.toDto(wallet)).thenReturn(walletDto);
+
+    mockMvc.perform(put(getPath(PathUtils.SHARDS), walletId)
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"shards\": 8}"))
+      .andExpect(status().isOk())
+      .andExpect(jsonPath("$.walletId").value(walletId.toString()))
+      .andExpect(jsonPath("$.amount").value(wallet.getAmount().doubleValue()));
+  }
+
+  @Test
+  void shardWallet_shouldReturnBadRequest_ifShardCountTooLarge() throws Exception {
+    String validationMessage = messageSource.getMessage("wallet.valid.shardsMax", null, Locale.getDefault());
+
+    mockMvc.perform(put(getPath(PathUtils.SHARDS), UUID.randomUUID())
+        .contentType(MediaType.APPLICATION_JSON)
+        .content("{\"shards\": 1000}"))
+      .andExpect(status().isBadRequest())
+      .andExpect(jsonPath("$.message").value(Matchers.containsString("shards=[%s]".formatted(validationMessage))));
+  }
+
+  @Test
+  void unshardWallet_shouldReturnNotFound_ifWalletDoesNotExist() throws Exception {
+    UUID walletId = UUID.randomUUID();
+    Mockito.when(walletService.unshardWallet(walletId))
+      .thenThrow(new EntityNotFoundException(EntityType.WALLET, walletId));
+
+    mockMvc.perform(delete(getPath(PathUtils.SHARDS), walletId))
+      .andExpect(status().isNotFound())
+      .andExpect(jsonPath("$.status").value(404));
+  }
+
   private void performUpdateAndExpect(SaveWalletDto saveDto, int expectedStatus, String expectedMessagePart) throws Exception {
     mockMvc.perform(post(getPath(PathUtils.UPDATE))
         .contentType(MediaType.APPLICATION_JSON)
@@ -218,6 +708,16 @@ class WalletControllerTest extends AbstractApplicationTest {
       .andExpect(jsonPath("$.message").value(Matchers.containsString(expectedMessagePart)));
   }
 
+  private void stubExport(Object... walletIdsAndAmounts) {
+    Mockito.when(exporter.export(any())).thenAnswer(invocation -> {
+      ObjLongConsumer<UUID> consumer = invocation.getArgument(0);
+      for (int i = 0; i < walletIdsAndAmounts.length; i += 2) {
+        consumer.accept((UUID) walletIdsAndAmounts[i], (Long) walletIdsAndAmounts[i + 1]);
+      }
+      return (long) walletIdsAndAmounts.length / 2;
+    });
+  }
+
   private String getPath(String path) {
     return String.format("/v1/%s", path);
   }
@@ -0,0 +1,106 @@
+package ru.itk.wallet_service.web.converter;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import ru.itk.wallet_service.db.enums.OperationType;
+import ru.itk.wallet_service.web.dto.SaveWalletDto;
+import ru.itk.wallet_service.web.dto.WalletDto;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class WalletJsonHttpMessageConverterTest {
+  private final MappingJackson2HttpMessageConverter jackson =
+    new MappingJackson2HttpMessageConverter(Jackson2ObjectMapperBuilder.json().build());
+  private final WalletJsonHttpMessageConverter converter = new WalletJsonHttpMessageConverter(jackson);
+
+  @Test
+  void read_shouldParseCanonicalBody() throws IOException {
+    UUID walletId = UUID.randomUUID();
+
+    SaveWalletDto dto = read(converter, """
+      {"walletId": "%s", "operationType": "WITHDRAW", "amount": 1000.50}
+      """.formatted(walletId));
+
+    assertThat(dto.getWalletId()).isEqualTo(walletId);
+    assertThat(dto.getOperationType()).isEqualTo(OperationType.WITHDRAW);
+    assertThat(dto.getAmount()).isEqualTo(new BigDecimal("1000.50"));
+  }
+
+  @Test
+  void read_shouldMatchJacksonForNonCanonicalBodies() throws IOException {
+    UUID walletId = UUID.randomUUID();
+    String[] bodies = {
+      "{\"walletId\": \"%s\", \"operationType\": \"DEPOSIT\", \"amount\": \"12.30\"}".formatted(walletId),
+      "{\"walletId\": \"%s\", \"operationType\": \"DEPOSIT\", \"amount\": 5, \"comment\": {\"a\": [1]}}".formatted(walletId),
+      "{\"walletId\": null, \"amount\": 7}",
+      "{\"walletId\": \"%s\", \"operationType\": \"TRANSFER_IN\", \"amount\": 1}".formatted(walletId),
+      "{\"walletId\": \"%s\", \"operationType\": \"DEPOSIT\", \"amount\": 1} trailing".formatted(walletId),
+      "{\"walletId\": \"%s\", \"operationType\": \"DEPOSIT\", \"amount\": 1, \"comment\": \"%s\"}"
+        .formatted(walletId, "x".repeat(WalletJsonHttpMessageConverter.MAX_BODY_SIZE))
+    };
+
+    for (String body : bodies) {
+      assertThat(read(converter, body)).as(body).isEqualTo(read(jackson, body));
+    }
+  }
+
+  @Test
+  void read_shouldRejectMalformedBodyLikeJackson() {
+    String[] bodies = {
+      "{\"walletId\": \"not-a-uuid\", \"operationType\": \"DEPOSIT\", \"amount\": 1}",
+      "{\"walletId\": \"%s\", \"operationType\": \"REFUND\", \"amount\": 1}".formatted(UUID.randomUUID()),
+      "{\"walletId\": \"%s\", \"operationType\": \"DEPOSIT\", \"amount\": }".formatted(UUID.randomUUID()),
+      "[1, 2, 3]"
+    };
+
+    for (String body : bodies) {
+      assertThatThrownBy(() -> read(jackson, body)).as(body).isInstanceOf(HttpMessageNotReadableException.class);
+      assertThatThrownBy(() -> read(converter, body)).as(body).isInstanceOf(HttpMessageNotReadableException.class);
+    }
+  }
+
+  @Test
+  void write_shouldProduceSameBytesAsJackson() throws IOException {
+    WalletDto dto = new WalletDto();
+    dto.setWalletId(UUID.randomUUID());
+    dto.setAmount(new BigDecimal("1234.50"));
+
+    assertThat(write(converter, dto)).isEqualTo(write(jackson, dto));
+
+    dto.setAmount(null);
+    assertThat(write(converter, dto)).isEqualTo(write(jackson, dto));
+  }
+
+  @Test
+  void canRead_shouldHandleOnlyWalletDtos() {
+    assertThat(converter.canRead(SaveWalletDto.class, MediaType.APPLICATION_JSON)).isTrue();
+    assertThat(converter.canRead(WalletDto.class, MediaType.APPLICATION_JSON)).isFalse();
+    assertThat(converter.canWrite(WalletDto.class, MediaType.APPLICATION_JSON)).isTrue();
+    assertThat(converter.canWrite(SaveWalletDto.class, MediaType.APPLICATION_JSON)).isFalse();
+    assertThat(converter.canRead(SaveWalletDto.class, MediaType.APPLICATION_XML)).isFalse();
+  }
+
+  private static SaveWalletDto read(HttpMessageConverter<Object> reader, String body) throws IOException {
+    MockHttpInputMessage input = new MockHttpInputMessage(body.getBytes(StandardCharsets.UTF_8));
+    input.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+    return (SaveWalletDto) reader.read(SaveWalletDto.class, input);
+  }
+
+  private static String write(HttpMessageConverter<Object> writer, WalletDto dto) throws IOException {
+    MockHttpOutputMessage output = new MockHttpOutputMessage();
+    writer.write(dto, MediaType.APPLICATION_JSON, output);
+    return output.getBodyAsString(StandardCharsets.UTF_8);
+  }
+}